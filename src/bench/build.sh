@@ -0,0 +1,50 @@
+#!/bin/sh
+# Compile the JMH benchmarks of src/bench/java together with the classes of
+# src/java and, if arguments are given, run them with the JMH runner, for
+# instance
+#
+#   sh src/bench/build.sh PipelineBenchmark -p num_authors=1000 -prof gc
+#
+# The JMH jars (of the versions below) are downloaded once from Maven Central
+# into src/bench/lib, the mmdb jar is extracted from conferencemining/ccdm.jar,
+# and the classes are written into src/bench/classes.
+set -e
+
+JMH_VERSION=1.37
+JOPT_SIMPLE_VERSION=5.0.4
+COMMONS_MATH3_VERSION=3.6.1
+MMDB_JAR=mmdb-2019-04-29.jar
+MAVEN_CENTRAL=https://repo1.maven.org/maven2
+
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+LIB=$ROOT/src/bench/lib
+CLASSES=$ROOT/src/bench/classes
+
+# fetch group_path artifact version: download the jar of the artifact
+fetch() {
+	if [ ! -f "$LIB/$2-$3.jar" ]; then
+		curl -fsSL -o "$LIB/$2-$3.jar.part" "$MAVEN_CENTRAL/$1/$2/$3/$2-$3.jar"
+		mv "$LIB/$2-$3.jar.part" "$LIB/$2-$3.jar"
+	fi
+}
+
+mkdir -p "$LIB"
+fetch org/openjdk/jmh jmh-core $JMH_VERSION
+fetch org/openjdk/jmh jmh-generator-annprocess $JMH_VERSION
+fetch net/sf/jopt-simple jopt-simple $JOPT_SIMPLE_VERSION
+fetch org/apache/commons commons-math3 $COMMONS_MATH3_VERSION
+if [ ! -f "$LIB/$MMDB_JAR" ]; then
+	unzip -q -o -j "$ROOT/conferencemining/ccdm.jar" $MMDB_JAR -d "$LIB"
+fi
+
+CP=$LIB/$MMDB_JAR:$LIB/jmh-core-$JMH_VERSION.jar:$LIB/jopt-simple-$JOPT_SIMPLE_VERSION.jar
+CP=$CP:$LIB/commons-math3-$COMMONS_MATH3_VERSION.jar
+rm -rf "$CLASSES"
+mkdir -p "$CLASSES"
+javac -d "$CLASSES" -cp "$CP" \
+	-processorpath "$LIB/jmh-generator-annprocess-$JMH_VERSION.jar:$LIB/jmh-core-$JMH_VERSION.jar" \
+	$(find "$ROOT/src/java" "$ROOT/src/bench/java" -name '*.java')
+
+if [ $# -gt 0 ]; then
+	java -cp "$CLASSES:$CP" org.openjdk.jmh.Main "$@"
+fi
@@ -0,0 +1,257 @@
+package icalp50.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import icalp50.datacollection.TemporalAdjacencyMap;
+import icalp50.datacollection.UrlRules;
+
+/**
+ * JMH comparison of the two evaluations of the conference-paper test in the
+ * second phase (see the add_publication method of the Conference class of
+ * ConferenceTemporalAdjacencyMatrixCreator). The nested evaluation is the one
+ * of the original create_temporal_adjacency_matrices method: for each of the
+ * k^2 pairs of authors of a publication the keys are compared and the
+ * dictionary (a TreeMap from keys to ids) is queried, and for each pair and
+ * each edition the upper case URL is tested against every exception and
+ * against the prefix of the edition, and the same tests are repeated for the
+ * file with all papers, whose line is built again for each edition. The once
+ * per publication evaluation classifies the publication once (by the classify
+ * method of the UrlRules class), looks up the ids of the k authors once, walks
+ * the pairs over the ids, and builds the line once. Both evaluations add the
+ * same collaborations to the same temporal adjacency matrices and produce the
+ * same lines.
+ *
+ * The conference has the given number of editions, which split the years from
+ * FIRST_YEAR to LAST_YEAR and share the same directory and prefix, and the
+ * exceptions EXCEPTIONS. The publications are random: each one has between 1
+ * and authors_per_paper authors, chosen among NUM_KEYS keys, of which one in
+ * five is not in the dictionary (as the authors who are not authors of the
+ * conference), and its URL is the one of a conference paper (one half of the
+ * publications), of a workshop paper, of an excluded paper, or of a journal
+ * article.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorPairBenchmark {
+	public static final int NUM_PUBLICATIONS = 10000;
+	public static final int NUM_KEYS = 50000;
+	public static final int FIRST_YEAR = 1980;
+	public static final int LAST_YEAR = 2021;
+	public static final long SEED = Long.getLong("icalp50.seed", 50);
+	public static final String[] EXCEPTIONS = { "conf/bench/benchsat", "conf/bench/bench2001-", "conf/bench/benchlb",
+			"conf/bench/bench2015a" };
+
+	@Param({ "4", "16", "32" })
+	public int authors_per_paper;
+	@Param({ "1", "3" })
+	public int editions;
+	String[] dir;
+	String[] conf;
+	int[] fy;
+	int[] ly;
+	UrlRules rules;
+	TreeMap<String, Integer> key_id;
+	String[][] pub_keys;
+	String[] pub_key;
+	String[] pub_url;
+	int[] pub_year;
+
+	/**
+	 * Output of an evaluation: the two temporal adjacency matrices and the
+	 * content of the file with all papers.
+	 */
+	public static class Scan {
+		public TemporalAdjacencyMap temporal_adjacency_matrix = new TemporalAdjacencyMap();
+		public TemporalAdjacencyMap temporal_adjacency_matrix_conf = new TemporalAdjacencyMap();
+		public StringBuilder papers = new StringBuilder();
+	}
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(SEED);
+		dir = new String[editions];
+		conf = new String[editions];
+		fy = new int[editions];
+		ly = new int[editions];
+		int num_years = LAST_YEAR - FIRST_YEAR + 1;
+		for (int c = 0; c < editions; c++) {
+			dir[c] = "conf/bench";
+			conf[c] = "bench";
+			fy[c] = FIRST_YEAR + c * num_years / editions;
+			ly[c] = FIRST_YEAR + (c + 1) * num_years / editions - 1;
+		}
+		rules = new UrlRules(dir, conf, fy, ly, EXCEPTIONS);
+		key_id = new TreeMap<>();
+		for (int k = 0; k < NUM_KEYS; k++) {
+			if (k % 5 != 0) {
+				key_id.put("homepages/" + (k % 100) + "/" + k, key_id.size());
+			}
+		}
+		pub_keys = new String[NUM_PUBLICATIONS][];
+		pub_key = new String[NUM_PUBLICATIONS];
+		pub_url = new String[NUM_PUBLICATIONS];
+		pub_year = new int[NUM_PUBLICATIONS];
+		for (int p = 0; p < NUM_PUBLICATIONS; p++) {
+			pub_keys[p] = new String[1 + rnd.nextInt(authors_per_paper)];
+			for (int pn = 0; pn < pub_keys[p].length; pn++) {
+				int k = rnd.nextInt(NUM_KEYS);
+				pub_keys[p][pn] = "homepages/" + (k % 100) + "/" + k;
+			}
+			int year = FIRST_YEAR + rnd.nextInt(num_years);
+			int kind = rnd.nextInt(20);
+			if (kind < 10) {
+				pub_key[p] = "conf/bench/" + p;
+				pub_url[p] = "db/conf/bench/bench" + year + ".html#" + p;
+			} else if (kind < 12) {
+				pub_key[p] = "conf/bench/w" + p;
+				pub_url[p] = "db/conf/bench/bench" + year + "w.html#" + p;
+			} else if (kind < 13) {
+				pub_key[p] = "conf/bench/sat" + p;
+				pub_url[p] = "db/conf/bench/benchsat" + year + ".html#" + p;
+			} else {
+				pub_key[p] = "journals/jbench/" + p;
+				pub_url[p] = "db/journals/jbench/jbench" + (year - FIRST_YEAR + 1) + ".html#" + p;
+			}
+			pub_year[p] = year;
+		}
+	}
+
+	/**
+	 * Test of the original code: whether the URL is the one of a paper of the
+	 * edition c published in the given year.
+	 */
+	boolean is_edition_paper(String url, int year, int c) {
+		boolean containsException = false;
+		for (int e = 0; e < EXCEPTIONS.length; e++) {
+			if (url.toUpperCase().contains(EXCEPTIONS[e].toUpperCase())) {
+				containsException = true;
+			}
+		}
+		return url.toUpperCase().contains(dir[c].toUpperCase() + "/" + conf[c].toUpperCase())
+				&& !url.toUpperCase().contains(dir[c].toUpperCase() + "/" + (conf[c] + "w").toUpperCase())
+				&& !url.toUpperCase().contains(dir[c].toUpperCase() + "/" + (conf[c] + year + "w").toUpperCase())
+				&& !containsException && fy[c] <= year && ly[c] >= year;
+	}
+
+	@Benchmark
+	public Scan nested() {
+		Scan scan = new Scan();
+		for (int p = 0; p < NUM_PUBLICATIONS; p++) {
+			String[] keys = pub_keys[p];
+			String url = pub_url[p];
+			int year = pub_year[p];
+			int n_names = keys.length;
+			for (int pn1 = 0; pn1 < n_names; pn1++) {
+				String k1 = keys[pn1];
+				if (key_id.containsKey(k1)) {
+					int id1 = key_id.get(k1);
+					for (int pn2 = 0; pn2 < n_names; pn2++) {
+						String k2 = keys[pn2];
+						if ((!k1.equals(k2) && key_id.containsKey(k2)) || (k1.equals(k2) && n_names == 1)) {
+							int id2 = key_id.get(k2);
+							if (id1 <= id2) {
+								scan.temporal_adjacency_matrix.add(id1, id2, year);
+								for (int c = 0; c < conf.length; c++) {
+									if (is_edition_paper(url, year, c)) {
+										scan.temporal_adjacency_matrix_conf.add(id1, id2, year);
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+			if (n_names > 0) {
+				for (int c = 0; c < conf.length; c++) {
+					if (is_edition_paper(url, year, c)) {
+						String publ_key = pub_key[p];
+						ArrayList<Integer> author_ids = new ArrayList<>();
+						for (int pn = 0; pn < n_names; pn++) {
+							String k = keys[pn];
+							if (key_id.containsKey(k)) {
+								int id = key_id.get(k);
+								author_ids.add(id);
+							}
+						}
+						scan.papers.append("y##" + year + "##k##" + publ_key + "##a##"
+								+ Arrays.toString(author_ids.toArray()) + "\n");
+					}
+				}
+			}
+		}
+		return scan;
+	}
+
+	@Benchmark
+	public Scan once_per_publication() {
+		Scan scan = new Scan();
+		int[] ids = new int[16];
+		for (int p = 0; p < NUM_PUBLICATIONS; p++) {
+			String[] keys = pub_keys[p];
+			int year = pub_year[p];
+			int n_names = keys.length;
+			int conf_editions = Math.max(rules.classify(pub_url[p].toUpperCase(), year), 0);
+			if (ids.length < n_names) {
+				ids = new int[Math.max(2 * ids.length, n_names)];
+			}
+			for (int pn = 0; pn < n_names; pn++) {
+				Integer id = key_id.get(keys[pn]);
+				ids[pn] = id == null ? -1 : id;
+			}
+			for (int pn1 = 0; pn1 < n_names; pn1++) {
+				int id1 = ids[pn1];
+				if (id1 >= 0) {
+					for (int pn2 = 0; pn2 < n_names; pn2++) {
+						int id2 = ids[pn2];
+						if (id2 >= 0 && (id1 != id2 || n_names == 1) && id1 <= id2) {
+							scan.temporal_adjacency_matrix.add(id1, id2, year);
+							for (int c = 0; c < conf_editions; c++) {
+								scan.temporal_adjacency_matrix_conf.add(id1, id2, year);
+							}
+						}
+					}
+				}
+			}
+			if (n_names > 0 && conf_editions > 0) {
+				int start = scan.papers.length();
+				scan.papers.append("y##").append(year).append("##k##").append(pub_key[p]).append("##a##[");
+				boolean first = true;
+				for (int pn = 0; pn < n_names; pn++) {
+					if (ids[pn] >= 0) {
+						if (!first) {
+							scan.papers.append(", ");
+						}
+						scan.papers.append(ids[pn]);
+						first = false;
+					}
+				}
+				scan.papers.append("]\n");
+				int end = scan.papers.length();
+				for (int c = 1; c < conf_editions; c++) {
+					scan.papers.append(scan.papers, start, end);
+				}
+			}
+		}
+		return scan;
+	}
+}
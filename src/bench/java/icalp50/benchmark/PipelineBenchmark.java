@@ -0,0 +1,183 @@
+package icalp50.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import icalp50.datacollection.AuthorProfileCache;
+import icalp50.datacollection.ConferenceAuthorDataCollector;
+import icalp50.datacollection.ConferenceTemporalAdjacencyMatrixCreator;
+import icalp50.datacollection.TemporalAdjacencyMap;
+import icalp50.datacollection.Temporal2Static;
+import icalp50.datacollection.TemporalGraphCreator;
+import icalp50.datacollection.TemporalGraphSorter;
+import icalp50.utilities.DblpSnapshot;
+import icalp50.utilities.FilteredSnapshotWriter;
+
+/**
+ * JMH benchmarks of the second to fifth phases on synthetic data (see the
+ * SyntheticCorpus class), at several numbers of authors (the num_authors
+ * parameter), so that the scaling of each phase can be compared between
+ * versions of the code. The benchmarks are not part of the pipeline: they are
+ * compiled together with the classes of src/java, with jmh-core on the class
+ * path and jmh-generator-annprocess as annotation processor, and executed by
+ * the JMH runner, as done by the src/bench/build.sh script, for instance
+ *
+ * sh src/bench/build.sh PipelineBenchmark -p num_authors=1000
+ *
+ * where -prof gc adds the allocated bytes of each phase.
+ *
+ * The second phase (create_temporal_adjacency_matrices) is measured on a
+ * synthetic DBLP-like XML file, from which a snapshot is created by the
+ * FilteredSnapshotWriter class and on which the first phase is executed once:
+ * the XML file and the snapshot are saved in a temporary directory, while the
+ * files of the conference are saved in the directory conferences/synthetic-n
+ * of the working directory (the phases read and write the files of a
+ * conference there). Both directories (and the conferences directory, if it
+ * has been created by the benchmark) are deleted at the end. The third to
+ * fifth phases (create_temporal_graph, sort, and temporal_to_static) are
+ * measured on a synthetic temporal adjacency matrix of n authors with 3n
+ * publications, in a temporary directory which is deleted at the end.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-DentityExpansionLimit=10000000")
+public class PipelineBenchmark {
+	public static final int FIRST_YEAR = 1980;
+	public static final int LAST_YEAR = 2021;
+	public static final long SEED = Long.getLong("icalp50.seed", 50);
+
+	/**
+	 * Snapshot of the synthetic conference with num_authors persons who can
+	 * author conference papers, on which the first phase has been executed.
+	 */
+	@State(Scope.Benchmark)
+	public static class Corpus {
+		@Param({ "1000", "10000", "100000" })
+		public int num_authors;
+		Path dir;
+		Path conf_dir;
+		boolean created_conferences;
+		DblpSnapshot dblp;
+		String[] sp_args;
+
+		@Setup
+		public void setup() throws Exception {
+			String acronym = "synthetic-" + num_authors;
+			dir = Files.createTempDirectory("icalp50-bench");
+			String xml_fn = dir + "/" + acronym + ".xml";
+			String snapshot_fn = dir + "/" + acronym + ".snapshot";
+			String[] fp_args = SyntheticCorpus.first_phase_arguments(acronym, FIRST_YEAR, LAST_YEAR);
+			sp_args = SyntheticCorpus.second_phase_arguments(acronym, FIRST_YEAR, LAST_YEAR);
+			SyntheticCorpus.write_xml(xml_fn, num_authors, FIRST_YEAR, LAST_YEAR, SEED);
+			FilteredSnapshotWriter.write(xml_fn, ConferenceAuthorDataCollector.toc_keys(fp_args),
+					ConferenceTemporalAdjacencyMatrixCreator.url_rules(sp_args)::matches, snapshot_fn);
+			dblp = DblpSnapshot.map(snapshot_fn);
+			created_conferences = !Files.exists(Paths.get("./conferences"));
+			conf_dir = Files.createDirectories(Paths.get("./conferences/" + acronym));
+			ConferenceAuthorDataCollector.collect(dblp, fp_args, new AuthorProfileCache(dblp));
+		}
+
+		@TearDown
+		public void tear_down() throws IOException {
+			dblp = null;
+			delete(dir);
+			delete(conf_dir);
+			if (created_conferences) {
+				Files.deleteIfExists(Paths.get("./conferences"));
+			}
+		}
+	}
+
+	/**
+	 * Delete a directory and all the files and directories it contains.
+	 *
+	 * @param root : the directory
+	 * @throws IOException
+	 */
+	static void delete(Path root) throws IOException {
+		try (Stream<Path> paths = Files.walk(root)) {
+			for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/**
+	 * Temporal adjacency matrix of num_authors authors with 3 * num_authors
+	 * publications, and the temporal graph and sorted temporal graph created
+	 * from it, which are the inputs of the third, fourth, and fifth phases. Each
+	 * phase writes its output to a file which is not the input of another phase.
+	 */
+	@State(Scope.Benchmark)
+	public static class Graph {
+		@Param({ "1000", "10000", "100000" })
+		public int num_authors;
+		Path dir;
+		String tam, tg, tgs, tg_out, tgs_out, sg;
+
+		@Setup
+		public void setup() throws Exception {
+			dir = Files.createTempDirectory("icalp50-bench");
+			tam = dir + "/temporal_adjacency_matrix.txt";
+			tg = dir + "/temporal_graph.txt";
+			tgs = dir + "/temporal_graph_sorted.txt";
+			tg_out = dir + "/temporal_graph_out.txt";
+			tgs_out = dir + "/temporal_graph_sorted_out.txt";
+			sg = dir + "/static_graph.txt";
+			TemporalAdjacencyMap matrix = SyntheticCorpus.collaborations(num_authors, 3L * num_authors, FIRST_YEAR,
+					LAST_YEAR, SEED);
+			matrix.save(tam);
+			TemporalGraphCreator.create_temporal_graph(num_authors, tam, tg);
+			new TemporalGraphSorter().sort(tg, tgs);
+		}
+
+		@TearDown
+		public void tear_down() {
+			for (String fn : new String[] { tam, tg, tgs, tg_out, tgs_out, sg }) {
+				new File(fn).delete();
+			}
+			dir.toFile().delete();
+		}
+	}
+
+	@Benchmark
+	public void phase2(Corpus c) {
+		ConferenceTemporalAdjacencyMatrixCreator.main(c.dblp, c.sp_args);
+	}
+
+	@Benchmark
+	public void phase3(Graph g) {
+		TemporalGraphCreator.create_temporal_graph(g.num_authors, g.tam, g.tg_out);
+	}
+
+	@Benchmark
+	public void phase4(Graph g) {
+		new TemporalGraphSorter().sort(g.tg, g.tgs_out);
+	}
+
+	@Benchmark
+	public void phase5(Graph g) {
+		Temporal2Static.temporal_to_static(g.tgs, g.sg, g.num_authors, FIRST_YEAR, LAST_YEAR);
+	}
+}
@@ -0,0 +1,321 @@
+package icalp50.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import icalp50.datacollection.TemporalAdjacencyMap;
+
+/**
+ * Seeded generator of synthetic data with the structure of the DBLP data used
+ * by the pipeline, so that the phases can be measured on repeatable inputs of
+ * any size. Two kinds of data are generated.
+ *
+ * A DBLP-like XML file with one conference (whose DBLP directory and prefix are
+ * both "bench"), with one proceedings volume and one table of contents per
+ * year, plus workshop papers, journal articles, informal CoRR articles, and
+ * the home page of every person (some persons have an alias, which is used by
+ * some of their publications). The file can be read by the
+ * FilteredSnapshotWriter class, with the arguments returned by the
+ * first_phase_arguments and second_phase_arguments methods.
+ *
+ * A temporal adjacency matrix of collaborations between author ids, in the
+ * format of the second phase, from which the temporal graph, sorted temporal
+ * graph, and static graph files can be created.
+ *
+ * In both cases the authors of each publication are chosen by preferential
+ * attachment (with a fixed probability the author is chosen uniformly at
+ * random, otherwise proportionally to the number of publications already
+ * assigned to the author), so that the number of publications and of
+ * co-authors per author follows a power law, as in DBLP. The number of authors
+ * of each publication follows a geometric distribution with mean about 2.2.
+ */
+public class SyntheticCorpus {
+	static final String[] GIVEN = { "Alice", "Bruno", "Chiara", "David", "Elena", "Fabien", "Giulia", "Hans",
+			"Irene", "Jean", "Katarzyna", "Luca", "Marie", "Nikos", "Olga", "Pierre", "Qing", "Rosa", "Stefan",
+			"Tomasz", "Ursula", "Viktor", "Wei", "Xavier", "Yuki", "Zolt\u00e1n" };
+	static final String[] FAMILY = { "Bianchi", "Dubois", "Fischer", "Garc\u00eda", "Kowalski", "Lef\u00e8vre",
+			"M\u00fcller", "Nakamura", "Nov\u00e1k", "Papadopoulos", "Rossi", "Schmidt", "Smith", "Svensson", "Tanaka",
+			"Wang", "Weber", "Y\u0131lmaz", "Zhang", "\u00d8rsted" };
+	static final String[] WORDS = { "algorithms", "automata", "bounds", "complexity", "computation", "concurrent",
+			"distributed", "dynamic", "efficient", "games", "graphs", "approximation", "languages", "learning",
+			"logic", "lower", "models", "networks", "online", "optimal", "parallel", "probabilistic", "programs",
+			"quantum", "random", "semantics", "sorting", "streams", "temporal", "trees", "types", "verification" };
+	static final String CONFERENCE = "bench";
+	static final String JOURNAL = "jbench";
+	/**
+	 * Probability that an author is chosen uniformly at random instead of by
+	 * preferential attachment.
+	 */
+	static final double UNIFORM_PROBABILITY = 0.4;
+	/**
+	 * Probability that a publication has one more author (up to MAX_AUTHORS).
+	 */
+	static final double MORE_AUTHORS_PROBABILITY = 0.55;
+	static final int MAX_AUTHORS = 12;
+
+	/**
+	 * Sampler of the authors of the publications by preferential attachment: the
+	 * authors chosen so far are kept in a list with repetitions, so that choosing
+	 * a random element of the list corresponds to choosing an author with
+	 * probability proportional to the number of its publications.
+	 */
+	static class AuthorSampler {
+		Random rnd;
+		int first;
+		int num_authors;
+		int[] slots = new int[1024];
+		int size = 0;
+		int[] authors = new int[MAX_AUTHORS];
+
+		/**
+		 * @param rnd         : the random generator
+		 * @param first       : the first author index
+		 * @param num_authors : the number of author indices
+		 */
+		AuthorSampler(Random rnd, int first, int num_authors) {
+			this.rnd = rnd;
+			this.first = first;
+			this.num_authors = num_authors;
+		}
+
+		int next() {
+			if (size == 0 || rnd.nextDouble() < UNIFORM_PROBABILITY) {
+				return first + rnd.nextInt(num_authors);
+			}
+			return slots[rnd.nextInt(size)];
+		}
+
+		/**
+		 * Choose the distinct authors of a new publication.
+		 *
+		 * @return : the number of authors, stored in the first positions of the
+		 *         authors array
+		 */
+		int sample() {
+			int k = 1;
+			while (k < Math.min(MAX_AUTHORS, num_authors) && rnd.nextDouble() < MORE_AUTHORS_PROBABILITY) {
+				k = k + 1;
+			}
+			int n = 0;
+			while (n < k) {
+				int a = next();
+				boolean repeated = false;
+				for (int i = 0; i < n; i++) {
+					repeated = repeated || authors[i] == a;
+				}
+				if (!repeated) {
+					authors[n++] = a;
+				}
+			}
+			if (size + k > slots.length) {
+				slots = Arrays.copyOf(slots, Math.max(2 * slots.length, size + k));
+			}
+			for (int i = 0; i < k; i++) {
+				slots[size++] = authors[i];
+			}
+			return k;
+		}
+	}
+
+	/**
+	 * Return the (unique) primary name of a person.
+	 *
+	 * @param person : person index
+	 * @return : the primary name
+	 */
+	static String name(int person) {
+		int g = person % GIVEN.length;
+		int f = (person / GIVEN.length) % FAMILY.length;
+		int d = person / (GIVEN.length * FAMILY.length);
+		return GIVEN[g] + " " + FAMILY[f] + (d > 0 ? String.format(" %04d", d) : "");
+	}
+
+	/**
+	 * Return the name of a person used by a publication: persons whose index is a
+	 * multiple of 50 have an alias, which is used by about one third of their
+	 * publications.
+	 */
+	static String name(int person, Random rnd) {
+		if (person % 50 == 0 && rnd.nextInt(3) == 0) {
+			return alias(person);
+		}
+		return name(person);
+	}
+
+	static String alias(int person) {
+		String name = name(person);
+		return name.charAt(0) + ". " + name.substring(name.indexOf(' ') + 1);
+	}
+
+	static String title(Random rnd) {
+		int n = 3 + rnd.nextInt(6);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			String word = WORDS[rnd.nextInt(WORDS.length)];
+			sb.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+		}
+		return sb.append(".").toString();
+	}
+
+	static void write_record(BufferedWriter bw, String tag, String key, String publtype, int[] authors, int k,
+			String title, String venue_field, String venue, int year, String url, Random rnd) throws IOException {
+		bw.write("<" + tag + " mdate=\"2022-01-01\" key=\"" + key + "\""
+				+ (publtype == null ? "" : " publtype=\"" + publtype + "\"") + ">\n");
+		for (int i = 0; i < k; i++) {
+			bw.write("<author>" + name(authors[i], rnd) + "</author>\n");
+		}
+		bw.write("<title>" + title + "</title>\n");
+		bw.write("<" + venue_field + ">" + venue + "</" + venue_field + ">\n");
+		bw.write("<year>" + year + "</year>\n");
+		bw.write("<url>" + url + "</url>\n");
+		bw.write("</" + tag + ">\n");
+	}
+
+	/**
+	 * Save the synthetic DBLP-like XML file. The conference has about num_authors
+	 * / (last_year - first_year + 1) papers per year, whose authors are chosen
+	 * among num_authors persons, while the journal articles (twice as many as
+	 * the conference papers) are authored by these persons and as many other
+	 * persons, so that the collaborations of the conference authors outside the
+	 * conference are also present. The same seed always produces the same file.
+	 *
+	 * @param fno         : file on which the XML file is saved
+	 * @param num_authors : number of persons who can author conference papers
+	 * @param first_year  : year of the first edition of the conference
+	 * @param last_year   : year of the last edition of the conference
+	 * @param seed        : seed of the random generator
+	 * @return : the number of records of the file
+	 * @throws IOException
+	 */
+	public static long write_xml(String fno, int num_authors, int first_year, int last_year, long seed)
+			throws IOException {
+		Random rnd = new Random(seed);
+		AuthorSampler conference_sampler = new AuthorSampler(rnd, 0, num_authors);
+		AuthorSampler journal_sampler = new AuthorSampler(rnd, 0, 2 * num_authors);
+		int num_years = last_year - first_year + 1;
+		int papers_per_year = Math.max(num_authors / num_years, 1);
+		long records = 0;
+		BufferedWriter bw = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(fno), StandardCharsets.UTF_8), 1 << 20);
+		bw.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<dblp>\n");
+		for (int year = first_year; year <= last_year; year++) {
+			String toc_url = "db/conf/" + CONFERENCE + "/" + CONFERENCE + year + ".html";
+			bw.write("<proceedings mdate=\"2022-01-01\" key=\"conf/" + CONFERENCE + "/" + year + "\">\n");
+			bw.write("<editor>" + name(rnd.nextInt(num_authors)) + "</editor>\n");
+			bw.write("<title>Proceedings of the Synthetic Conference " + year + "</title>\n");
+			bw.write("<booktitle>BENCH</booktitle>\n<year>" + year + "</year>\n<url>" + toc_url + "</url>\n");
+			bw.write("</proceedings>\n");
+			records = records + 1;
+			for (int i = 0; i < papers_per_year; i++) {
+				int k = conference_sampler.sample();
+				String key = "conf/" + CONFERENCE + "/" + year + "-" + i;
+				write_record(bw, "inproceedings", key, null, conference_sampler.authors, k, title(rnd), "booktitle",
+						"BENCH", year, toc_url + "#" + year + "-" + i, rnd);
+				records = records + 1;
+			}
+			for (int i = 0; i < Math.max(papers_per_year / 20, 1); i++) {
+				int k = conference_sampler.sample();
+				String key = "conf/" + CONFERENCE + "/" + year + "w-" + i;
+				String url = "db/conf/" + CONFERENCE + "/" + CONFERENCE + year + "w.html#" + i;
+				write_record(bw, "inproceedings", key, null, conference_sampler.authors, k, title(rnd), "booktitle",
+						"BENCH Workshops", year, url, rnd);
+				records = records + 1;
+			}
+		}
+		for (int i = 0; i < 2 * papers_per_year * num_years; i++) {
+			int k = journal_sampler.sample();
+			int year = first_year + rnd.nextInt(num_years);
+			int volume = year - first_year + 1;
+			write_record(bw, "article", "journals/" + JOURNAL + "/" + year + "-" + i, null, journal_sampler.authors, k,
+					title(rnd), "journal", "J. Bench", year,
+					"db/journals/" + JOURNAL + "/" + JOURNAL + volume + ".html#" + i, rnd);
+			records = records + 1;
+		}
+		for (int i = 0; i < Math.max(papers_per_year * num_years / 10, 1); i++) {
+			int k = journal_sampler.sample();
+			int year = first_year + rnd.nextInt(num_years);
+			write_record(bw, "article", "journals/corr/" + year + "-" + i, "informal", journal_sampler.authors, k,
+					title(rnd), "journal", "CoRR", year, "db/journals/corr/corr" + (year % 100) + ".html#" + i, rnd);
+			records = records + 1;
+		}
+		for (int person = 0; person < 2 * num_authors; person++) {
+			bw.write("<www mdate=\"2022-01-01\" key=\"homepages/" + (person % 100) + "/" + person + "\">\n");
+			bw.write("<author>" + name(person) + "</author>\n");
+			if (person % 50 == 0) {
+				bw.write("<author>" + alias(person) + "</author>\n");
+			}
+			bw.write("<title>Home Page</title>\n</www>\n");
+			records = records + 1;
+		}
+		bw.write("</dblp>\n");
+		bw.close();
+		return records;
+	}
+
+	/**
+	 * Return the arguments of the first phase for the conference of the
+	 * synthetic XML file.
+	 *
+	 * @param acronym    : conference acronym (that is, the name of its directory)
+	 * @param first_year : year of the first edition of the conference
+	 * @param last_year  : year of the last edition of the conference
+	 * @return : the arguments of the first phase
+	 */
+	public static String[] first_phase_arguments(String acronym, int first_year, int last_year) {
+		return new String[] { acronym, "conf", CONFERENCE, CONFERENCE, "" + first_year, "" + last_year, "1" };
+	}
+
+	/**
+	 * Return the arguments of the second phase for the conference of the
+	 * synthetic XML file.
+	 *
+	 * @param acronym    : conference acronym (that is, the name of its directory)
+	 * @param first_year : year of the first edition of the conference
+	 * @param last_year  : year of the last edition of the conference
+	 * @return : the arguments of the second phase
+	 */
+	public static String[] second_phase_arguments(String acronym, int first_year, int last_year) {
+		return new String[] { acronym, CONFERENCE, CONFERENCE, "" + first_year, "" + last_year, "ne" };
+	}
+
+	/**
+	 * Return the temporal adjacency matrix of the collaborations of num_papers
+	 * synthetic publications, whose authors have ids between 1 and num_nodes and
+	 * whose years are uniformly distributed between first_year and last_year. As
+	 * in the second phase, each publication adds one collaboration for each pair
+	 * of distinct authors (and a loop for single-author publications). The same
+	 * seed always produces the same matrix.
+	 *
+	 * @param num_nodes  : number of authors
+	 * @param num_papers : number of publications
+	 * @param first_year : first year
+	 * @param last_year  : last year
+	 * @param seed       : seed of the random generator
+	 * @return : the temporal adjacency matrix
+	 */
+	public static TemporalAdjacencyMap collaborations(int num_nodes, long num_papers, int first_year, int last_year,
+			long seed) {
+		Random rnd = new Random(seed);
+		AuthorSampler sampler = new AuthorSampler(rnd, 1, num_nodes);
+		TemporalAdjacencyMap tam = new TemporalAdjacencyMap();
+		for (long p = 0; p < num_papers; p++) {
+			int k = sampler.sample();
+			int year = first_year + rnd.nextInt(last_year - first_year + 1);
+			for (int i = 0; i < k; i++) {
+				for (int j = 0; j < k; j++) {
+					int id1 = sampler.authors[i];
+					int id2 = sampler.authors[j];
+					if ((id1 != id2 || k == 1) && id1 <= id2) {
+						tam.add(id1, id2, year);
+					}
+				}
+			}
+		}
+		return tam;
+	}
+}
@@ -0,0 +1,247 @@
+package icalp50.datacollection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import icalp50.utilities.DblpSnapshot;
+import icalp50.utilities.RecordWriter;
+
+/**
+ * Memoized profiles of the DBLP authors, that is, the lines of the author paper
+ * titles file and of the author conferences file which describe the
+ * publications of each author (encoded in UTF-8, so that they are copied as
+ * they are in the files). A profile is computed the first time the author
+ * is met and it is then reused by all conferences analysed with the same cache
+ * (the cache can be shared by several threads). The computed profiles can be
+ * saved on disk and loaded by a later execution on the same DBLP snapshot.
+ *
+ * The size of the cache is bounded by max_bytes: when the profiles exceed the
+ * bound, some of them are evicted until they use at most three quarters of the
+ * bound. An evicted profile is computed again if its author is met again, so
+ * that the bound does not change the created files.
+ */
+public class AuthorProfileCache {
+	static final int MAGIC = 0x434D5031;
+	/**
+	 * Approximate number of bytes used by a profile in addition to its lines.
+	 */
+	static final int PROFILE_OVERHEAD = 64;
+	/**
+	 * Maximum number of bytes of the profiles in the cache (by default, a quarter
+	 * of the maximum heap size).
+	 */
+	public static long max_bytes = Long.getLong("icalp50.profile_cache_mb", Runtime.getRuntime().maxMemory() >> 22)
+			<< 20;
+
+	/**
+	 * Profile of one author: the year and the title of each journal and conference
+	 * paper (only titles with at most three commas), and the year and the book
+	 * title of each conference paper.
+	 */
+	static class Profile {
+		final byte[] titles;
+		final byte[] conferences;
+
+		Profile(byte[] titles, byte[] conferences) {
+			this.titles = titles;
+			this.conferences = conferences;
+		}
+
+		long size() {
+			return titles.length + conferences.length + PROFILE_OVERHEAD;
+		}
+	}
+
+	DblpSnapshot dblp;
+	Map<Integer, Profile> profiles = new ConcurrentHashMap<>();
+	AtomicLong bytes = new AtomicLong();
+
+	public AuthorProfileCache(DblpSnapshot dblp) {
+		this.dblp = dblp;
+	}
+
+	public int size() {
+		return profiles.size();
+	}
+
+	/**
+	 * Return the approximate number of bytes used by the profiles in the cache.
+	 *
+	 * @return : the number of bytes
+	 */
+	public long bytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Remove all profiles from the cache.
+	 */
+	public synchronized void clear() {
+		profiles.clear();
+		bytes.set(0);
+	}
+
+	/**
+	 * Return the profile of the author, by computing it if it is not in the cache.
+	 *
+	 * @param person : index of the author in the snapshot
+	 * @return : the profile of the author
+	 */
+	Profile profile(int person) {
+		Profile profile = profiles.get(person);
+		if (profile == null) {
+			profile = compute_profile(person);
+			add(person, profile);
+		}
+		return profile;
+	}
+
+	/**
+	 * Add the profile of the author to the cache (if it is not already there),
+	 * evicting other profiles if the cache exceeds its bound.
+	 *
+	 * @param person  : index of the author in the snapshot
+	 * @param profile : the profile of the author
+	 */
+	void add(int person, Profile profile) {
+		if (profiles.putIfAbsent(person, profile) == null && bytes.addAndGet(profile.size()) > max_bytes) {
+			evict();
+		}
+	}
+
+	/**
+	 * Evict profiles until the cache uses at most three quarters of its bound.
+	 */
+	synchronized void evict() {
+		Iterator<Profile> it = profiles.values().iterator();
+		while (bytes.get() > max_bytes / 4 * 3 && it.hasNext()) {
+			Profile profile = it.next();
+			it.remove();
+			bytes.addAndGet(-profile.size());
+		}
+	}
+
+	/**
+	 * Compute the profile of the author (informal and withdrawn publications are
+	 * considered as in the original analysis).
+	 *
+	 * @param person : index of the author in the snapshot
+	 * @return : the profile of the author
+	 */
+	Profile compute_profile(int person) {
+		RecordWriter titles = new RecordWriter();
+		RecordWriter conferences = new RecordWriter();
+		try {
+			for (int l = 0; l < dblp.person_num_publications(person); l++) {
+				int pub = dblp.person_publication(person, l);
+				String publ_type = dblp.pub_publtype(pub);
+				if (publ_type == null || !publ_type.equals("informal") || !publ_type.equals("withdrawn")) {
+					String publ_tag = dblp.pub_tag(pub);
+					if (publ_tag.equals("article") || publ_tag.equals("inproceedings")) {
+						String title = dblp.pub_title(pub);
+						if (count_commas(title) <= 3) {
+							titles.append("y##").append(dblp.pub_year(pub)).append("##t##").append(title).append('\n');
+						}
+						if (publ_tag.equals("inproceedings")) {
+							conferences.append("y##").append(dblp.pub_year(pub)).append("##c##")
+									.append(dblp.pub_booktitle(pub)).append('\n');
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new Profile(titles.to_byte_array(), conferences.to_byte_array());
+	}
+
+	static int count_commas(String title) {
+		int count = 0;
+		for (int i = 0; i < title.length(); i++) {
+			if (title.charAt(i) == ',') {
+				count = count + 1;
+			}
+		}
+		return count;
+	}
+
+	static void write_bytes(DataOutputStream dos, byte[] bytes) throws IOException {
+		dos.writeInt(bytes.length);
+		dos.write(bytes);
+	}
+
+	static byte[] read_bytes(DataInputStream dis) throws IOException {
+		byte[] bytes = new byte[dis.readInt()];
+		dis.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Save the profiles in the cache in a binary file. The file starts with the
+	 * number of publications and of persons of the snapshot, which are checked
+	 * when the file is loaded.
+	 *
+	 * @param fn : file on which the profiles are saved
+	 * @throws IOException
+	 */
+	public void save(String fn) throws IOException {
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fn), 1 << 16));
+		dos.writeInt(MAGIC);
+		dos.writeInt(dblp.num_publications());
+		dos.writeInt(dblp.num_persons());
+		dos.writeInt(profiles.size());
+		for (Map.Entry<Integer, Profile> entry : profiles.entrySet()) {
+			dos.writeInt(entry.getKey());
+			write_bytes(dos, entry.getValue().titles);
+			write_bytes(dos, entry.getValue().conferences);
+		}
+		dos.close();
+	}
+
+	/**
+	 * Create a cache containing the profiles saved in the binary file. If the file
+	 * does not exist, it is older than the snapshot, or it has been created from a
+	 * different snapshot, the cache is empty.
+	 *
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param fn          : file containing the profiles
+	 * @param snapshot_fn : file containing the snapshot
+	 * @return : the cache
+	 * @throws IOException
+	 */
+	public static AuthorProfileCache load(DblpSnapshot dblp, String fn, String snapshot_fn) throws IOException {
+		AuthorProfileCache cache = new AuthorProfileCache(dblp);
+		File f = new File(fn);
+		if (!f.exists() || f.lastModified() < new File(snapshot_fn).lastModified()) {
+			return cache;
+		}
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16));
+		try {
+			if (dis.readInt() != MAGIC || dis.readInt() != dblp.num_publications()
+					|| dis.readInt() != dblp.num_persons()) {
+				return cache;
+			}
+			int n = dis.readInt();
+			for (int i = 0; i < n; i++) {
+				int person = dis.readInt();
+				byte[] titles = read_bytes(dis);
+				byte[] conferences = read_bytes(dis);
+				cache.add(person, new Profile(titles, conferences));
+			}
+		} finally {
+			dis.close();
+		}
+		return cache;
+	}
+}
@@ -1,21 +1,28 @@
 package icalp50.datacollection;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
-import org.dblp.mmdb.Field;
 import org.dblp.mmdb.Person;
-import org.dblp.mmdb.PersonName;
-import org.dblp.mmdb.Publication;
-import org.dblp.mmdb.RecordDbInterface;
-import org.dblp.mmdb.TableOfContents;
+
+import icalp50.utilities.AuthorDictionary;
+import icalp50.utilities.DblpSnapshot;
+import icalp50.utilities.MinHashSketch;
+import icalp50.utilities.PhaseMetrics;
+import icalp50.utilities.RecordWriter;
+import icalp50.utilities.TitleNgramIndex;
 
 public class ConferenceAuthorDataCollector {
 	static Comparator<Person> cmp = (Person o1, Person o2) -> o1.getPrimaryName().name()
@@ -25,26 +32,37 @@ public class ConferenceAuthorDataCollector {
 	 * Add titles of specific conference edition to paper titles file (it ignores
 	 * prefaces when possible).
 	 * 
+	 * @param dblp          : the snapshot of the DBLP database
 	 * @param conf          : conference acronym
 	 * @param toc           : table of contents of the conference edition
-	 * @param year          : year of the conference dition
-	 * @param year_paper_pw : writer of the file with all conference paper titles
+	 * @param year_paper_rw : writer of the file with all conference paper titles
+	 * @throws IOException
 	 */
-	public static void save_titles(String conf, TableOfContents toc, PrintWriter year_paper_pw) {
-		try {
-			for (Publication publ : toc.getPublications()) {
-				if (!publ.getTag().equals("proceedings")) {
-					String title = "";
-					// The Publication class does not include a getTitle method
-					for (Field f : publ.getFields("title")) {
-						title = title.concat(f.value());
-					}
-					year_paper_pw.format("%s\n", title);
-				}
+	public static void save_titles(DblpSnapshot dblp, String conf, int toc, RecordWriter year_paper_rw)
+			throws IOException {
+		for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+			int publ = dblp.toc_publication(toc, i);
+			if (!dblp.pub_tag(publ).equals("proceedings")) {
+				year_paper_rw.append(dblp.pub_title(publ)).append('\n');
+			}
+		}
+	}
+
+	/**
+	 * Add the titles of specific conference edition to the n-gram index (it
+	 * ignores prefaces when possible).
+	 * 
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param toc         : table of contents of the conference edition
+	 * @param year        : year of the conference edition
+	 * @param title_index : n-gram index of the conference paper titles
+	 */
+	public static void add_to_title_index(DblpSnapshot dblp, int toc, int year, TitleNgramIndex title_index) {
+		for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+			int publ = dblp.toc_publication(toc, i);
+			if (!dblp.pub_tag(publ).equals("proceedings")) {
+				title_index.add_title(year, dblp.pub_title(publ));
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(-1);
 		}
 	}
 
@@ -53,141 +71,341 @@ public class ConferenceAuthorDataCollector {
 	 * possible), collect the paper titles (only journal and conference papers and
 	 * only titles with at most three commas) and the conferences of the authors of
 	 * the paper (if not already done) and add them in the two corresponding files.
+	 * The titles and the conferences of each author are taken from the cache of
+	 * the author profiles.
 	 * 
-	 * @param toc        : table of contents of the conference edition
-	 * @param author_id  : dictionary associating author name to integer id
-	 * @param id_key     : dictionary associating integer id to DBLP key
-	 * @param current_id : next integer id to be assigned
-	 * @param paper_pw   : writer of the file with all paper titles of each
-	 *                   conference author
-	 * @param conf_pw    : writer of the file with all conferences of each
-	 *                   conference author
-	 * @return : next integer id to be assigned
+	 * @param dblp     : the snapshot of the DBLP database
+	 * @param toc      : table of contents of the conference edition
+	 * @param authors  : dictionary of the conference authors (the new authors
+	 *                 receive the next ids)
+	 * @param paper_rw : writer of the file with all paper titles of each
+	 *                 conference author
+	 * @param conf_rw  : writer of the file with all conferences of each conference
+	 *                 author
+	 * @param cache    : cache of the author profiles
+	 * @throws IOException
 	 */
-	public static int analyse_toc(TableOfContents toc, Map<String, Integer> author_id, Map<Integer, String> id_key,
-			int current_id, PrintWriter paper_pw, PrintWriter conf_pw) {
-		try {
-			for (Publication publ : toc.getPublications()) {
-				if (!publ.getTag().equals("proceedings")) {
-					for (PersonName personName : publ.getNames()) {
-						Person person = personName.getPerson();
-						if (!author_id.containsKey(person.getPrimaryName().name())) {
-							String name = person.getPrimaryName().name();
-							String key = person.getKey();
-							author_id.put(name, current_id);
-							id_key.put(current_id, key);
-							paper_pw.format("i##%d##n##%s##k##%s\n", current_id, name, key);
-							conf_pw.format("i##%d##n##%s##k##%s\n", current_id, name, key);
-							for (Publication pub : person.getPublications()) {
-								String publ_type = pub.getAttributes().get("publtype");
-								if (publ_type == null || !publ_type.equals("informal")
-										|| !publ_type.equals("withdrawn")) {
-									String publ_tag = pub.getTag();
-									if (publ_tag.equals("article") || publ_tag.equals("inproceedings")) {
-										String title = "";
-										for (Field f : pub.getFields("title")) {
-											title = title.concat(f.value());
-										}
-										long count = title.chars().filter(ch -> ch == ',').count();
-										if (count <= 3) {
-											paper_pw.format("y##%d##t##%s\n", pub.getYear(), title);
-										}
-										if (publ_tag.equals("inproceedings")) {
-											conf_pw.format("y##%d##c##%s\n", pub.getYear(),
-													pub.getBooktitle().getTitle());
-										}
-									}
-								}
-							}
-							current_id = current_id + 1;
+	public static void analyse_toc(DblpSnapshot dblp, int toc, AuthorDictionary authors, RecordWriter paper_rw,
+			RecordWriter conf_rw, AuthorProfileCache cache) throws IOException {
+		for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+			int publ = dblp.toc_publication(toc, i);
+			if (!dblp.pub_tag(publ).equals("proceedings")) {
+				for (int j = 0; j < dblp.pub_num_authors(publ); j++) {
+					int person = dblp.pub_author(publ, j);
+					if (authors.id(person) < 0) {
+						int id = authors.add(dblp, person);
+						paper_rw.append("i##").append(id).append("##n##").append(authors.name(id)).append("##k##")
+								.append(authors.key(id)).append('\n');
+						conf_rw.append("i##").append(id).append("##n##").append(authors.name(id)).append("##k##")
+								.append(authors.key(id)).append('\n');
+						AuthorProfileCache.Profile profile = cache.profile(person);
+						paper_rw.write(profile.titles);
+						conf_rw.write(profile.conferences);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add the DBLP keys of the authors of each paper in the conference edition
+	 * (prefaces are ignored when possible) to the sketch of the year of the paper.
+	 * 
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param toc         : table of contents of the conference edition
+	 * @param year_sketch : MinHash sketch of the author keys of each year
+	 */
+	public static void add_to_sketches(DblpSnapshot dblp, int toc, Map<Integer, MinHashSketch> year_sketch) {
+		for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+			int publ = dblp.toc_publication(toc, i);
+			if (!dblp.pub_tag(publ).equals("proceedings")) {
+				MinHashSketch sketch = year_sketch.computeIfAbsent(dblp.pub_year(publ), y -> new MinHashSketch());
+				for (int j = 0; j < dblp.pub_num_authors(publ); j++) {
+					sketch.add(dblp.person_key(dblp.pub_author(publ, j)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the key of the table of contents of a conference edition (or of a
+	 * part of it), such as db/conf/icalp/icalp72.bht or
+	 * db/conf/icalp/icalp2008-1.bht.
+	 * 
+	 * @param conf_type : the type (such as conf)
+	 * @param conf_dir  : the DBLP directory
+	 * @param conf_syn  : the acronym
+	 * @param suffix    : the suffix (years before 10 are padded with a zero)
+	 * @param part      : the part of the edition (0 if the edition has only one
+	 *                  part)
+	 * @return : the key of the table of contents
+	 */
+	static String toc_key(String conf_type, String conf_dir, String conf_syn, int suffix, int part) {
+		String suffixString = "" + suffix;
+		if (suffix < 10) {
+			suffixString = "0" + suffixString;
+		}
+		return "db/" + conf_type + "/" + conf_dir + "/" + conf_syn + suffixString + (part > 0 ? "-" + part : "")
+				+ ".bht";
+	}
+
+	/**
+	 * Return the keys of the tables of contents of all editions (and of all their
+	 * parts) of the conference, as looked up by the collect method.
+	 * 
+	 * @param args : list of arguments for the specific conference
+	 * @return : the keys of the tables of contents
+	 */
+	public static Set<String> toc_keys(String[] args) {
+		int num_arguments_conf = 6;
+		Set<String> keys = new HashSet<>();
+		for (int c = 0; c < args.length / num_arguments_conf; c++) {
+			String conf_type = args[1 + num_arguments_conf * c];
+			String conf_dir = args[2 + num_arguments_conf * c];
+			String conf_syn = args[3 + num_arguments_conf * c];
+			int first_suffix = Integer.parseInt(args[4 + num_arguments_conf * c]);
+			int last_suffix = Integer.parseInt(args[5 + num_arguments_conf * c]);
+			int num_parts = Integer.parseInt(args[6 + num_arguments_conf * c]);
+			for (int suffix = first_suffix; suffix <= last_suffix; suffix++) {
+				if (num_parts == 1) {
+					keys.add(toc_key(conf_type, conf_dir, conf_syn, suffix, 0));
+				} else {
+					for (int p = 1; p <= num_parts; p++) {
+						keys.add(toc_key(conf_type, conf_dir, conf_syn, suffix, p));
+					}
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Data of one edition of the conference (possibly made of several parts),
+	 * prepared independently of the other editions: the year of the edition, its
+	 * tables of contents, the content of its paper titles file, the n-gram index
+	 * of its paper titles, and the sketches of its author keys.
+	 */
+	static class Edition {
+		int year;
+		int[] tocs;
+		byte[] titles;
+		TitleNgramIndex title_index = new TitleNgramIndex();
+		Map<Integer, MinHashSketch> year_sketch = new TreeMap<>();
+
+		Edition(int year, int[] tocs) {
+			this.year = year;
+			this.tocs = tocs;
+		}
+
+		/**
+		 * Prepare the titles, the n-gram index, and the sketches of the edition, and
+		 * compute the profiles of its authors (prefaces are ignored when possible).
+		 * 
+		 * @param dblp  : the snapshot of the DBLP database
+		 * @param conf  : conference acronym
+		 * @param cache : cache of the author profiles
+		 */
+		void prepare(DblpSnapshot dblp, String conf, AuthorProfileCache cache) {
+			RecordWriter year_paper_rw = new RecordWriter();
+			for (int toc : tocs) {
+				try {
+					save_titles(dblp, conf, toc, year_paper_rw);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				add_to_title_index(dblp, toc, year, title_index);
+				add_to_sketches(dblp, toc, year_sketch);
+				for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+					int publ = dblp.toc_publication(toc, i);
+					if (!dblp.pub_tag(publ).equals("proceedings")) {
+						for (int j = 0; j < dblp.pub_num_authors(publ); j++) {
+							cache.profile(dblp.pub_author(publ, j));
 						}
 					}
 				}
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(-1);
+			titles = year_paper_rw.to_byte_array();
 		}
-		return current_id;
 	}
 
 	/**
-	 * Create the file with all paper titles of each conference author, the file
-	 * with all conferences of each conference author, and the file with the mapping
-	 * between integer id and DBLP key. The first argument is the conference
-	 * acronym, while the other arguments are grouped into blocks of six values,
-	 * that is, the type, the DBLP directory, the acronym, the first suffix, the
-	 * last suffix, and the number of parts of each edition of the conference.
+	 * Return the editions of the conference which are in the snapshot, in the
+	 * order of the arguments (an edition made of several parts is included if its
+	 * first part exists, and its year is the year of the first publication of its
+	 * first part).
 	 * 
-	 * @param dblp : the Java interface to the DBLP database
+	 * @param dblp : the snapshot of the DBLP database
 	 * @param args : list of arguments for the specific conference
+	 * @return : the editions of the conference
 	 */
-	public static void main(RecordDbInterface dblp, String[] args) {
+	static List<Edition> editions(DblpSnapshot dblp, String[] args) {
 		int num_arguments_conf = 6;
-		Map<String, Integer> author_id = new TreeMap<>();
-		Map<Integer, String> id_key = new TreeMap<>();
-		int current_id = 1;
+		List<Edition> editions = new ArrayList<>();
 		int nc = args.length / num_arguments_conf;
-		String conf = args[0];
-		try {
-			Path path = Paths.get("./conferences/" + conf + "/papers/");
-			Files.createDirectories(path);
-			PrintWriter paper_pw = new PrintWriter("./conferences/" + conf + "/author_paper_titles.txt");
-			PrintWriter conf_pw = new PrintWriter("./conferences/" + conf + "/author_conferences.txt");
-			for (int c = 0; c < nc; c++) {
-				String conf_type = args[1 + num_arguments_conf * c];
-				String conf_dir = args[2 + num_arguments_conf * c];
-				String conf_syn = args[3 + num_arguments_conf * c];
-				int first_suffix = Integer.parseInt(args[4 + num_arguments_conf * c]);
-				int last_suffix = Integer.parseInt(args[5 + num_arguments_conf * c]);
-				int num_parts = Integer.parseInt(args[6 + num_arguments_conf * c]);
-				for (int suffix = first_suffix; suffix <= last_suffix; suffix++) {
-					String suffixString = "" + suffix;
-					if (suffix < 10) {
-						suffixString = "0" + suffixString;
-					}
+		for (int c = 0; c < nc; c++) {
+			String conf_type = args[1 + num_arguments_conf * c];
+			String conf_dir = args[2 + num_arguments_conf * c];
+			String conf_syn = args[3 + num_arguments_conf * c];
+			int first_suffix = Integer.parseInt(args[4 + num_arguments_conf * c]);
+			int last_suffix = Integer.parseInt(args[5 + num_arguments_conf * c]);
+			int num_parts = Integer.parseInt(args[6 + num_arguments_conf * c]);
+			for (int suffix = first_suffix; suffix <= last_suffix; suffix++) {
+				int toc = dblp.toc(toc_key(conf_type, conf_dir, conf_syn, suffix, num_parts == 1 ? 0 : 1));
+				if (toc >= 0) {
+					int real_year = dblp.pub_year(dblp.toc_publication(toc, 0));
 					if (num_parts == 1) {
-						TableOfContents toc = dblp
-								.getToc("db/" + conf_type + "/" + conf_dir + "/" + conf_syn + suffixString + ".bht");
-						if (toc != null) {
-							int real_year = ((Publication) (toc.getPublications().toArray()[0])).getYear();
-							PrintWriter year_paper_pw = new PrintWriter(
-									"./conferences/" + conf + "/papers/paper_titles_" + real_year + ".txt");
-							save_titles(conf, toc, year_paper_pw);
-							current_id = analyse_toc(toc, author_id, id_key, current_id, paper_pw, conf_pw);
-							year_paper_pw.close();
-						}
+						editions.add(new Edition(real_year, new int[] { toc }));
 					} else {
-						TableOfContents toc = dblp
-								.getToc("db/" + conf_type + "/" + conf_dir + "/" + conf_syn + suffixString + "-1.bht");
-						if (toc != null) {
-							int real_year = ((Publication) (toc.getPublications().toArray()[0])).getYear();
-							PrintWriter year_paper_pw = new PrintWriter(
-									"./conferences/" + conf + "/papers/paper_titles_" + real_year + ".txt");
-							for (int p = 1; p <= num_parts; p++) {
-								toc = dblp.getToc("db/" + conf_type + "/" + conf_dir + "/" + conf_syn + suffixString + "-" + p
-										+ ".bht");
-								if (toc != null) {
-									save_titles(conf, toc, year_paper_pw);
-									current_id = analyse_toc(toc, author_id, id_key, current_id, paper_pw, conf_pw);
-								}
+						List<Integer> tocs = new ArrayList<>();
+						for (int p = 1; p <= num_parts; p++) {
+							toc = dblp.toc(toc_key(conf_type, conf_dir, conf_syn, suffix, p));
+							if (toc >= 0) {
+								tocs.add(toc);
 							}
-							year_paper_pw.close();
 						}
+						editions.add(new Edition(real_year, tocs.stream().mapToInt(Integer::intValue).toArray()));
 					}
 				}
 			}
-			paper_pw.close();
-			conf_pw.close();
-			BufferedWriter ai_bw = new BufferedWriter(new FileWriter("./conferences/" + conf + "/id_name_key.txt"));
-			for (String author_name : author_id.keySet()) {
-				int id = author_id.get(author_name);
-				ai_bw.write("i##" + id + "##n##" + author_name + "##k##" + id_key.get(id) + "\n");
+		}
+		return editions;
+	}
+
+	/**
+	 * Create the file with all paper titles of each conference author, the file
+	 * with all conferences of each conference author, the file with the mapping
+	 * between integer id and DBLP key, the file with the MinHash sketches of the
+	 * author keys of each year, and the file with the n-gram index of the paper
+	 * titles of each year. The first argument is the conference acronym, while the
+	 * other arguments are grouped into blocks of six values, that is, the type,
+	 * the DBLP directory, the acronym, the first suffix, the last suffix, and the
+	 * number of parts of each edition of the conference. The phase is measured
+	 * (see the PhaseMetrics class) as phase1.
+	 * 
+	 * @param dblp  : the snapshot of the DBLP database
+	 * @param args  : list of arguments for the specific conference
+	 * @param cache : cache of the author profiles (it can be shared by several
+	 *              conferences)
+	 */
+	public static void collect(DblpSnapshot dblp, String[] args, AuthorProfileCache cache) throws IOException {
+		collect(dblp, args, cache, 1);
+	}
+
+	/**
+	 * Create the files of the first phase (see the method with the same name) by
+	 * preparing the editions of the conference in parallel. The titles, the
+	 * n-gram indices, the sketches, and the author profiles of the editions are
+	 * computed by a pool of threads, then the editions are merged in the order of
+	 * the arguments, so that the ids of the authors are assigned in the order in
+	 * which they are met and the files are the same created by a sequential
+	 * execution. The CPU time and the bytes allocated by the threads of the pool
+	 * are added to the measurements of the phase.
+	 * 
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param args        : list of arguments for the specific conference
+	 * @param cache       : cache of the author profiles (it can be shared by
+	 *                    several conferences)
+	 * @param parallelism : number of threads preparing the editions (if 1, the
+	 *                    editions are prepared by the calling thread)
+	 */
+	public static void collect(DblpSnapshot dblp, String[] args, AuthorProfileCache cache, int parallelism)
+			throws IOException {
+		try (PhaseMetrics m = PhaseMetrics.start("phase1", args[0])) {
+			collect(dblp, args, cache, parallelism, m);
+		}
+	}
+
+	static void collect(DblpSnapshot dblp, String[] args, AuthorProfileCache cache, int parallelism, PhaseMetrics m)
+			throws IOException {
+		String conf = args[0];
+		List<Edition> editions = editions(dblp, args);
+		if (parallelism > 1 && editions.size() > 1) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.submit(() -> editions.parallelStream().forEach(e -> {
+					long[] start = PhaseMetrics.thread_usage();
+					e.prepare(dblp, conf, cache);
+					m.add_thread_usage(start);
+				})).get();
+			} catch (InterruptedException | ExecutionException e) {
+				throw new IOException(e);
+			} finally {
+				pool.shutdown();
 			}
-			ai_bw.close();
+		} else {
+			for (Edition e : editions) {
+				e.prepare(dblp, conf, cache);
+			}
+		}
+		AuthorDictionary authors = new AuthorDictionary();
+		Map<Integer, MinHashSketch> year_sketch = new TreeMap<>();
+		TitleNgramIndex title_index = new TitleNgramIndex();
+		Path path = Paths.get("./conferences/" + conf + "/papers/");
+		Files.createDirectories(path);
+		try (RecordWriter paper_rw = new RecordWriter("./conferences/" + conf + "/author_paper_titles.txt");
+				RecordWriter conf_rw = new RecordWriter("./conferences/" + conf + "/author_conferences.txt")) {
+			for (Edition e : editions) {
+				String year_paper_fn = "./conferences/" + conf + "/papers/paper_titles_" + e.year + ".txt";
+				try (RecordWriter year_paper_rw = new RecordWriter(year_paper_fn)) {
+					year_paper_rw.write(e.titles);
+				}
+				m.add_file(year_paper_fn);
+				for (int toc : e.tocs) {
+					analyse_toc(dblp, toc, authors, paper_rw, conf_rw, cache);
+					m.add_publications(dblp.toc_num_publications(toc));
+				}
+				title_index.merge(e.title_index);
+				for (Map.Entry<Integer, MinHashSketch> entry : e.year_sketch.entrySet()) {
+					year_sketch.computeIfAbsent(entry.getKey(), y -> new MinHashSketch()).union(entry.getValue());
+				}
+			}
+		}
+		authors.save("./conferences/" + conf + "/id_name_key.txt");
+		MinHashSketch.save(year_sketch, "./conferences/" + conf + "/author_sketches.txt");
+		title_index.save("./conferences/" + conf + "/title_ngrams.txt");
+		for (String fn : new String[] { "author_paper_titles.txt", "author_conferences.txt", "id_name_key.txt",
+				"author_sketches.txt", "title_ngrams.txt" }) {
+			m.add_file("./conferences/" + conf + "/" + fn);
+		}
+	}
+
+	/**
+	 * Invoke the collect method and terminate the program if an error occurs.
+	 * 
+	 * @param dblp  : the snapshot of the DBLP database
+	 * @param args  : list of arguments for the specific conference
+	 * @param cache : cache of the author profiles
+	 */
+	public static void main(DblpSnapshot dblp, String[] args, AuthorProfileCache cache) {
+		main(dblp, args, cache, 1);
+	}
+
+	/**
+	 * Invoke the collect method with the given number of threads preparing the
+	 * editions and terminate the program if an error occurs.
+	 * 
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param args        : list of arguments for the specific conference
+	 * @param cache       : cache of the author profiles
+	 * @param parallelism : number of threads preparing the editions
+	 */
+	public static void main(DblpSnapshot dblp, String[] args, AuthorProfileCache cache, int parallelism) {
+		try {
+			collect(dblp, args, cache, parallelism);
 		} catch (Exception e) {
 			e.printStackTrace();
 			System.exit(-1);
 		}
 	}
+
+	/**
+	 * Invoke the collect method with a cache of the author profiles used only for
+	 * this conference.
+	 * 
+	 * @param dblp : the snapshot of the DBLP database
+	 * @param args : list of arguments for the specific conference
+	 */
+	public static void main(DblpSnapshot dblp, String[] args) {
+		main(dblp, args, new AuthorProfileCache(dblp));
+	}
 }
@@ -1,26 +1,363 @@
 package icalp50.datacollection;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-import org.dblp.mmdb.Field;
 import org.dblp.mmdb.Person;
-import org.dblp.mmdb.PersonName;
-import org.dblp.mmdb.Publication;
-import org.dblp.mmdb.RecordDbInterface;
+
+import icalp50.utilities.AuthorDictionary;
+import icalp50.utilities.DblpSnapshot;
+import icalp50.utilities.MinHashSketch;
+import icalp50.utilities.PhaseMetrics;
+import icalp50.utilities.RecordWriter;
 
 public class ConferenceTemporalAdjacencyMatrixCreator {
 	static Comparator<Person> cmp = (Person o1, Person o2) -> o1.getPrimaryName().name()
 			.compareTo(o2.getPrimaryName().name());
+	static final String EUROCRYPT86 = "eurocrypt/eurocrypt86".toUpperCase();
+
+	/**
+	 * Data of one conference analysed during the scan of the DBLP publications:
+	 * the arguments of the conference, the dictionary of its authors, the two
+	 * (sparse) temporal adjacency matrices, the writer of the file with all papers
+	 * of the conference, the MinHash sketches of the authors of these papers, and
+	 * the exception which possibly stopped its analysis (so that the failure of
+	 * one conference does not stop the analysis of the other ones).
+	 */
+	static class Conference {
+		String acronym;
+		String[] dir;
+		String[] conf;
+		int[] fy;
+		int[] ly;
+		String[] exceptions;
+		UrlRules rules;
+		AuthorDictionary authors;
+		/**
+		 * Buffer for the ids of the authors of a publication.
+		 */
+		int[] ids = new int[16];
+		/**
+		 * Number of publications added and of author pairs visited (see the
+		 * PhaseMetrics class).
+		 */
+		long publications = 0;
+		long author_pairs = 0;
+		TemporalAdjacencyMap temporal_adjacency_matrix;
+		TemporalAdjacencyMap temporal_adjacency_matrix_conf;
+		RecordWriter pub_rw;
+		/**
+		 * MinHash sketch of the keys of the authors of the papers in the file with
+		 * all papers, for each year (null if the sketches are not computed).
+		 */
+		Map<Integer, MinHashSketch> year_sketch;
+		Exception failure = null;
+		/**
+		 * Used by the incremental update (see the IncrementalUpdater class): only the
+		 * publications published since this year are completely analysed, while for
+		 * the older publications only the collaborations involving authors with id at
+		 * least first_new_id are added.
+		 */
+		int since_year = Integer.MIN_VALUE;
+		int first_new_id = 0;
+
+		Conference(String acronym, String[] dir, String[] conf, int[] fy, int[] ly, String[] exceptions) {
+			this.acronym = acronym;
+			this.dir = dir;
+			this.conf = conf;
+			this.fy = fy;
+			this.ly = ly;
+			this.exceptions = exceptions;
+			this.rules = new UrlRules(dir, conf, fy, ly, exceptions);
+		}
+
+		/**
+		 * Read the dictionary of the conference authors, create the temporal
+		 * adjacency matrices, and open the file with all papers of the conference.
+		 *
+		 * @throws IOException
+		 */
+		void open() throws IOException {
+			authors = AuthorDictionary.read("./conferences/" + acronym + "/id_name_key.txt");
+			temporal_adjacency_matrix = new TemporalAdjacencyMap();
+			temporal_adjacency_matrix_conf = new TemporalAdjacencyMap();
+			pub_rw = new RecordWriter("./conferences/" + acronym + "/" + "papers.txt");
+			year_sketch = new TreeMap<>();
+		}
+
+		/**
+		 * Add the collaborations of a publication to the temporal adjacency matrices
+		 * and, if the publication is a conference paper, add a line to the file with
+		 * all papers of the conference. For each edition of which the publication is a
+		 * paper, the collaborations are added once to the temporal adjacency matrix of
+		 * the conference papers and a line is added to the file with all papers (the
+		 * keys of the authors of the line are added once to the sketch of the year,
+		 * so that the sketches describe the same author sets as the file). The
+		 * integer ids of the authors are looked up only once in the dictionary (which
+		 * must have been resolved against the snapshot), in a buffer reused by all
+		 * publications. Publications older than since_year only contribute the
+		 * collaborations involving the new authors.
+		 *
+		 * @param dblp          : the snapshot of the DBLP database
+		 * @param pub           : publication index
+		 * @param year          : year of the publication
+		 * @param conf_editions : number of editions of which the publication is a
+		 *                      paper (see the classify method of the UrlRules class)
+		 * @throws IOException
+		 */
+		void add_publication(DblpSnapshot dblp, int pub, int year, int conf_editions) throws IOException {
+			int n_names = dblp.pub_num_authors(pub);
+			boolean refreshed = year >= since_year;
+			if (ids.length < n_names) {
+				ids = new int[Math.max(2 * ids.length, n_names)];
+			}
+			for (int pn = 0; pn < n_names; pn++) {
+				ids[pn] = authors.id(dblp.pub_author(pub, pn));
+			}
+			publications = publications + 1;
+			author_pairs = author_pairs + (long) n_names * n_names;
+			for (int pn1 = 0; pn1 < n_names; pn1++) {
+				int id1 = ids[pn1];
+				if (id1 >= 0) {
+					for (int pn2 = 0; pn2 < n_names; pn2++) {
+						int id2 = ids[pn2];
+						if (id2 >= 0 && (id1 != id2 || n_names == 1) && id1 <= id2
+								&& (refreshed || id2 >= first_new_id)) {
+							temporal_adjacency_matrix.add(id1, id2, year);
+							for (int c = 0; c < conf_editions; c++) {
+								temporal_adjacency_matrix_conf.add(id1, id2, year);
+							}
+						}
+					}
+				}
+			}
+			if (n_names > 0 && conf_editions > 0 && refreshed) {
+				if (year_sketch != null) {
+					MinHashSketch sketch = year_sketch.computeIfAbsent(year, y -> new MinHashSketch());
+					for (int pn = 0; pn < n_names; pn++) {
+						if (ids[pn] >= 0) {
+							sketch.add(authors.key(ids[pn]));
+						}
+					}
+				}
+				String key = dblp.pub_key(pub);
+				for (int c = 0; c < conf_editions; c++) {
+					pub_rw.append("y##").append(year).append("##k##").append(key).append("##a##[");
+					boolean first = true;
+					for (int pn = 0; pn < n_names; pn++) {
+						if (ids[pn] >= 0) {
+							if (!first) {
+								pub_rw.append(", ");
+							}
+							pub_rw.append(ids[pn]);
+							first = false;
+						}
+					}
+					pub_rw.append("]\n");
+				}
+			}
+		}
+
+		/**
+		 * Save the non-empty elements of the two temporal adjacency matrices.
+		 *
+		 * @throws IOException
+		 */
+		void save_matrices() throws IOException {
+			save_matrices(".txt");
+		}
+
+		/**
+		 * Save the non-empty elements of the two temporal adjacency matrices in the
+		 * files with the given extension (the files are compressed if the extension
+		 * is .txt.gz).
+		 *
+		 * @param extension : extension of the file names
+		 * @throws IOException
+		 */
+		void save_matrices(String extension) throws IOException {
+			String prefix = "./conferences/" + acronym + "/temporal_adjacency_matrix";
+			temporal_adjacency_matrix.save(prefix + extension);
+			temporal_adjacency_matrix_conf.save(prefix + "_conf" + extension);
+		}
+
+		/**
+		 * Save the sketches of the authors of the papers of each year in the file
+		 * paper_author_sketches.txt (nothing is done if the sketches are not
+		 * computed).
+		 *
+		 * @throws IOException
+		 */
+		void save_sketches() throws IOException {
+			if (year_sketch != null) {
+				MinHashSketch.save(year_sketch, "./conferences/" + acronym + "/paper_author_sketches.txt");
+			}
+		}
+
+		/**
+		 * Close the file with all papers of the conference and release the temporal
+		 * adjacency matrices (nothing is done if the conference is already closed or
+		 * if it has not been opened).
+		 *
+		 * @throws IOException
+		 */
+		void close() throws IOException {
+			temporal_adjacency_matrix = null;
+			temporal_adjacency_matrix_conf = null;
+			if (pub_rw != null) {
+				RecordWriter rw = pub_rw;
+				pub_rw = null;
+				rw.close();
+			}
+		}
+	}
+
+	/**
+	 * Analyse all DBLP publications once and send each publication to every
+	 * conference which either has one of its authors or whose URL rules match the
+	 * URL of the publication (the URL rules of each conference are evaluated only
+	 * once for each publication). Only journal and conference papers which are not
+	 * informal or withdrawn are considered. Conferences which have already failed
+	 * are ignored, and a conference failing during the scan is ignored from then
+	 * on.
+	 *
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param conferences : list of conferences to be analysed
+	 */
+	static void scan_publications(DblpSnapshot dblp, List<Conference> conferences) {
+		scan_publications(dblp, conferences, null);
+	}
+
+	/**
+	 * Analyse the given DBLP publications (see the method with the same name
+	 * analysing all publications). The dictionaries of the conferences are first
+	 * resolved against the snapshot (only for the authors of the given
+	 * publications), so that the conferences of each author and the ids of the
+	 * authors are then looked up by person index. The scan is measured (see the
+	 * PhaseMetrics class) as phase2-scan of all the conferences, while the
+	 * publications, the author pairs, and the edges of each conference are
+	 * recorded as its phase2.
+	 *
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param conferences : list of conferences to be analysed
+	 * @param candidates  : indices of the publications to be analysed in
+	 *                    increasing order (if null, all publications are
+	 *                    analysed)
+	 */
+	static void scan_publications(DblpSnapshot dblp, List<Conference> conferences, int[] candidates) {
+		List<String> acronyms = new ArrayList<>();
+		for (Conference conference : conferences) {
+			acronyms.add(conference.acronym);
+		}
+		try (PhaseMetrics m = PhaseMetrics.start("phase2-scan", String.join("+", acronyms))) {
+			scan_candidates(dblp, conferences, candidates);
+			m.add_publications(candidates == null ? dblp.num_publications() : candidates.length);
+			for (Conference conference : conferences) {
+				m.add_author_pairs(conference.author_pairs);
+			}
+		}
+		for (Conference conference : conferences) {
+			if (conference.failure == null) {
+				PhaseMetrics.record("phase2", conference.acronym, conference.publications, conference.author_pairs,
+						conference.temporal_adjacency_matrix.num_edges());
+			}
+		}
+	}
+
+	static void scan_candidates(DblpSnapshot dblp, List<Conference> conferences, int[] candidates) {
+		int nc = conferences.size();
+		List<AuthorDictionary> dictionaries = new ArrayList<>();
+		for (Conference conference : conferences) {
+			dictionaries.add(conference.failure == null ? conference.authors : null);
+		}
+		int[][] person_conferences = AuthorDictionary.resolve(dblp, dictionaries, candidate_authors(dblp, candidates));
+		boolean[] selected = new boolean[nc];
+		int[] conf_editions = new int[nc];
+		int n_pubs = candidates == null ? dblp.num_publications() : candidates.length;
+		for (int i = 0; i < n_pubs; i++) {
+			int pub = candidates == null ? i : candidates[i];
+			String upper_url = dblp.pub_url(pub).toUpperCase();
+			String publ_type = dblp.pub_publtype(pub);
+			if (publ_type == null || (!publ_type.equals("informal") && !publ_type.equals("withdrawn"))
+					|| upper_url.contains(EUROCRYPT86)) {
+				if (dblp.pub_tag(pub).equals("article") || dblp.pub_tag(pub).equals("inproceedings")) {
+					int year = dblp.pub_year(pub);
+					int n_names = dblp.pub_num_authors(pub);
+					boolean any_selected = false;
+					for (int pn = 0; pn < n_names; pn++) {
+						int[] cs = person_conferences[dblp.pub_author(pub, pn)];
+						if (cs != null) {
+							for (int c : cs) {
+								selected[c] = true;
+							}
+							any_selected = true;
+						}
+					}
+					if (n_names > 0) {
+						for (int c = 0; c < nc; c++) {
+							if (conferences.get(c).failure == null) {
+								conf_editions[c] = conferences.get(c).rules.classify(upper_url, year);
+								if (conf_editions[c] >= 0) {
+									selected[c] = true;
+									any_selected = true;
+								}
+							}
+						}
+					}
+					if (any_selected) {
+						for (int c = 0; c < nc; c++) {
+							if (selected[c]) {
+								Conference conference = conferences.get(c);
+								if (conference.failure == null) {
+									try {
+										conference.add_publication(dblp, pub, year, Math.max(conf_editions[c], 0));
+									} catch (Exception e) {
+										conference.failure = e;
+									}
+								}
+								selected[c] = false;
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the authors of the given publications.
+	 *
+	 * @param dblp       : the snapshot of the DBLP database
+	 * @param candidates : indices of the publications (if null, all publications)
+	 * @return : the person indices of the authors (null if all persons)
+	 */
+	static int[] candidate_authors(DblpSnapshot dblp, int[] candidates) {
+		if (candidates == null) {
+			return null;
+		}
+		boolean[] author = new boolean[dblp.num_persons()];
+		int n = 0;
+		for (int pub : candidates) {
+			for (int pn = 0; pn < dblp.pub_num_authors(pub); pn++) {
+				int person = dblp.pub_author(pub, pn);
+				if (!author[person]) {
+					author[person] = true;
+					n = n + 1;
+				}
+			}
+		}
+		int[] persons = new int[n];
+		for (int person = 0, i = 0; person < author.length; person++) {
+			if (author[person]) {
+				persons[i++] = person;
+			}
+		}
+		return persons;
+	}
 
 	/**
 	 * Create the file with all papers of the conference and the two files with the
@@ -28,9 +365,11 @@ public class ConferenceTemporalAdjacencyMatrixCreator {
 	 * conference collaborations, respectively. All DBLP publications are analyzed
 	 * and only the ones corresponding to conference papers and not being exceptions
 	 * are considered in order to add lines to the three files. Only the non-empty
-	 * elements of the temporal adjacency lists are saved in the files.
-	 * 
-	 * @param dblp       : the Java interface to the DBLP database
+	 * elements of the temporal adjacency lists are saved in the files. The MinHash
+	 * sketches of the authors of the papers of each year are saved in the file
+	 * paper_author_sketches.txt.
+	 *
+	 * @param dblp       : the snapshot of the DBLP database
 	 * @param acronym    : conference acronym
 	 * @param dir        : array of DBLP directories of the conference
 	 * @param conf       : array of prefixes of DBLP URLs of the conference
@@ -38,157 +377,83 @@ public class ConferenceTemporalAdjacencyMatrixCreator {
 	 * @param ly         : array of last years
 	 * @param exceptions : array of exceptions
 	 */
-	public static void create_temporal_adjacency_matrices(RecordDbInterface dblp, String acronym, String[] dir,
+	public static void create_temporal_adjacency_matrices(DblpSnapshot dblp, String acronym, String[] dir,
 			String[] conf, int[] fy, int[] ly, String[] exceptions) {
-		Map<String, Integer> key_id = new TreeMap<>();
-		Map<Integer, String> id_key = new TreeMap<>();
-		try {
-			BufferedReader id_key_br = new BufferedReader(
-					new FileReader("./conferences/" + acronym + "/id_name_key.txt"));
-			String line = id_key_br.readLine();
-			while (line != null && line.length() > 0) {
-				String[] split_line = line.split("##");
-				key_id.put(split_line[5], Integer.parseInt(split_line[1]));
-				id_key.put(Integer.parseInt(split_line[1]), split_line[5]);
-				line = id_key_br.readLine();
-			}
-			id_key_br.close();
-			int n_authors = id_key.size();
-			@SuppressWarnings("unchecked")
-			ArrayList<Integer>[][] temporal_adjacency_matrix = new ArrayList[n_authors][n_authors];
-			@SuppressWarnings("unchecked")
-			ArrayList<Integer>[][] temporal_adjacency_matrix_conf = new ArrayList[n_authors][n_authors];
-			for (int a1 = 0; a1 < n_authors; a1++) {
-				for (int a2 = a1; a2 < n_authors; a2++) {
-					temporal_adjacency_matrix[a1][a2] = new ArrayList<Integer>();
-					temporal_adjacency_matrix_conf[a1][a2] = new ArrayList<Integer>();
+		List<Conference> conferences = new ArrayList<>();
+		conferences.add(new Conference(acronym, dir, conf, fy, ly, exceptions));
+		create_temporal_adjacency_matrices(dblp, conferences);
+	}
+
+	/**
+	 * Create the paper file and the two temporal adjacency matrix files of several
+	 * conferences by analysing all DBLP publications only once.
+	 *
+	 * @param dblp        : the snapshot of the DBLP database
+	 * @param conferences : list of conferences to be analysed
+	 */
+	static void create_temporal_adjacency_matrices(DblpSnapshot dblp, List<Conference> conferences) {
+		open_all(conferences);
+		scan_publications(dblp, conferences);
+		for (Conference c : conferences) {
+			try {
+				if (c.failure == null) {
+					c.save_matrices();
+					c.save_sketches();
+					c.close();
 				}
+			} catch (Exception e) {
+				c.failure = e;
 			}
-			Collection<Publication> all_pubs = dblp.getPublications();
-			BufferedWriter pub_bw = new BufferedWriter(new FileWriter("./conferences/" + acronym + "/" + "papers.txt"));
-			for (Publication pub : all_pubs) {
-				String url = "";
-				for (Field f : pub.getFields("url")) {
-					url = url.concat(f.value());
-				}
-				String publ_type = pub.getAttributes().get("publtype");
-				if (publ_type == null || (!publ_type.equals("informal") && !publ_type.equals("withdrawn"))
-						|| url.toUpperCase().contains("eurocrypt/eurocrypt86".toUpperCase())) {
-					if (pub.getTag().equals("article") || pub.getTag().equals("inproceedings")) {
-						int year = pub.getYear();
-						List<PersonName> person_names = pub.getNames();
-						for (PersonName pn1 : person_names) {
-							Person a1 = pn1.getPerson();
-							String k1 = a1.getKey();
-							if (key_id.containsKey(k1)) {
-								int id1 = key_id.get(k1);
-								for (PersonName pn2 : person_names) {
-									Person a2 = pn2.getPerson();
-									String k2 = a2.getKey();
-									if ((!k1.equals(k2) && key_id.containsKey(k2))
-											|| (k1.equals(k2) && person_names.size() == 1)) {
-										int id2 = key_id.get(k2);
-										if (id1 <= id2) {
-											temporal_adjacency_matrix[id1 - 1][id2 - 1].add(year);
-											for (int c = 0; c < conf.length; c++) {
-												boolean containsException = false;
-												for (int e = 0; e < exceptions.length; e++) {
-													if (url.toUpperCase().contains(exceptions[e].toUpperCase())) {
-														containsException = true;
-													}
-												}
-												if (url.toUpperCase()
-														.contains(dir[c].toUpperCase() + "/" + conf[c].toUpperCase())
-														&& !url.toUpperCase()
-																.contains(dir[c].toUpperCase() + "/"
-																		+ (conf[c] + "w").toUpperCase())
-														&& !url.toUpperCase()
-																.contains(dir[c].toUpperCase() + "/"
-																		+ (conf[c] + year + "w").toUpperCase())
-														&& !containsException) {
-													if (fy[c] <= year && ly[c] >= year) {
-														temporal_adjacency_matrix_conf[id1 - 1][id2 - 1].add(year);
-													}
-												}
-											}
-										}
-									}
-								}
-							}
-						}
-						if (person_names.size() > 0) {
-							for (int c = 0; c < conf.length; c++) {
-								boolean containsException = false;
-								for (int e = 0; e < exceptions.length; e++) {
-									if (url.toUpperCase().contains(exceptions[e].toUpperCase())) {
-										containsException = true;
-									}
-								}
-								if (url.toUpperCase().contains(dir[c].toUpperCase() + "/" + conf[c].toUpperCase())
-										&& !url.toUpperCase()
-												.contains(dir[c].toUpperCase() + "/" + (conf[c] + "w").toUpperCase())
-										&& !url.toUpperCase().contains(
-												dir[c].toUpperCase() + "/" + (conf[c] + year + "w").toUpperCase())
-										&& !containsException) {
-									if (fy[c] <= year && ly[c] >= year) {
-										String publ_key = pub.getAttributes().get("key");
-										ArrayList<Integer> author_ids = new ArrayList<>();
-										for (PersonName pn : person_names) {
-											Person a = pn.getPerson();
-											String k = a.getKey();
-											if (key_id.containsKey(k)) {
-												int id = key_id.get(k);
-												author_ids.add(id);
-											}
-										}
-										pub_bw.write("y##" + year + "##k##" + publ_key + "##a##"
-												+ Arrays.toString(author_ids.toArray()) + "\n");
-									}
-								}
-							}
-						}
-					}
-				}
+		}
+		close_failed(conferences);
+		for (Conference c : conferences) {
+			if (c.failure != null) {
+				c.failure.printStackTrace();
 			}
-			pub_bw.close();
-			BufferedWriter tam_bw = new BufferedWriter(
-					new FileWriter("./conferences/" + acronym + "/temporal_adjacency_matrix.txt"));
-			BufferedWriter tami_bw = new BufferedWriter(
-					new FileWriter("./conferences/" + acronym + "/temporal_adjacency_matrix_conf.txt"));
-			for (int a1 = 0; a1 < n_authors; a1++) {
-				for (int a2 = a1; a2 < n_authors; a2++) {
-					ArrayList<Integer> years = temporal_adjacency_matrix[a1][a2];
-					if (years.size() > 0) {
-						tam_bw.write("(" + (a1 + 1) + "," + (a2 + 1) + "): " + Arrays.toString(years.toArray()) + "\n");
-					}
-					years = temporal_adjacency_matrix_conf[a1][a2];
-					if (years.size() > 0) {
-						tami_bw.write(
-								"(" + (a1 + 1) + "," + (a2 + 1) + "): " + Arrays.toString(years.toArray()) + "\n");
-					}
+		}
+	}
+
+	/**
+	 * Close the failed conferences, so that their files are not left open (an
+	 * exception thrown while closing a conference is added to its failure).
+	 *
+	 * @param conferences : list of analysed conferences
+	 */
+	static void close_failed(List<Conference> conferences) {
+		for (Conference c : conferences) {
+			if (c.failure != null) {
+				try {
+					c.close();
+				} catch (Exception e) {
+					c.failure.addSuppressed(e);
 				}
 			}
-			tam_bw.close();
-			tami_bw.close();
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * The first argument is the conference acronym, while the other arguments are
-	 * grouped into blocks of five values, that is, the DBLP directory, the prefix
-	 * of the DBLP file, the first year, and the last year of each edition of the
-	 * conference. The last argument is the list of exceptions for the conference
-	 * (that is, which strings should not appear in the DBLP URL). For all
-	 * conferences, two exceptions are the DBLP directory followed by /, the prefix,
-	 * and the letter w, and the DBLP directory followed by /, the prefix, the year,
-	 * and the letter w.
-	 * 
-	 * @param dblp : the Java interface to the DBLP database
+	 * Open all conferences (a conference which cannot be opened is marked as
+	 * failed).
+	 *
+	 * @param conferences : list of conferences to be analysed
+	 */
+	static void open_all(List<Conference> conferences) {
+		for (Conference c : conferences) {
+			try {
+				c.open();
+			} catch (Exception e) {
+				c.failure = e;
+			}
+		}
+	}
+
+	/**
+	 * Parse the arguments of a conference (see the main method for their format).
+	 *
 	 * @param args : list of arguments for the specific conference
+	 * @return : the conference to be analysed
 	 */
-	public static void main(RecordDbInterface dblp, String[] args) {
+	static Conference parse_arguments(String[] args) {
 		String acronym = args[0];
 		int num_arguments_conf = 4;
 		int nc = (args.length - 2) / num_arguments_conf;
@@ -206,6 +471,51 @@ public class ConferenceTemporalAdjacencyMatrixCreator {
 		if (!args[args.length - 1].equals("ne")) {
 			exceptions = args[args.length - 1].split(",");
 		}
-		create_temporal_adjacency_matrices(dblp, acronym, dir, conf, first_year, last_year, exceptions);
+		return new Conference(acronym, dir, conf, first_year, last_year, exceptions);
+	}
+
+	/**
+	 * Return the URL rules of a conference (see the main method for the format of
+	 * the arguments).
+	 *
+	 * @param args : list of arguments for the specific conference
+	 * @return : the URL rules of the conference
+	 */
+	public static UrlRules url_rules(String[] args) {
+		return parse_arguments(args).rules;
+	}
+
+	/**
+	 * The first argument is the conference acronym, while the other arguments are
+	 * grouped into blocks of five values, that is, the DBLP directory, the prefix
+	 * of the DBLP file, the first year, and the last year of each edition of the
+	 * conference. The last argument is the list of exceptions for the conference
+	 * (that is, which strings should not appear in the DBLP URL). For all
+	 * conferences, two exceptions are the DBLP directory followed by /, the prefix,
+	 * and the letter w, and the DBLP directory followed by /, the prefix, the year,
+	 * and the letter w.
+	 *
+	 * @param dblp : the snapshot of the DBLP database
+	 * @param args : list of arguments for the specific conference
+	 */
+	public static void main(DblpSnapshot dblp, String[] args) {
+		Conference c = parse_arguments(args);
+		create_temporal_adjacency_matrices(dblp, c.acronym, c.dir, c.conf, c.fy, c.ly, c.exceptions);
+	}
+
+	/**
+	 * Process several conferences with a single scan of the DBLP publications.
+	 * Each element of the first argument is the list of arguments of one
+	 * conference, in the same format of the main method for a single conference.
+	 *
+	 * @param dblp : the snapshot of the DBLP database
+	 * @param args : list of arguments for each conference
+	 */
+	public static void main(DblpSnapshot dblp, String[][] args) {
+		List<Conference> conferences = new ArrayList<>();
+		for (String[] conference_args : args) {
+			conferences.add(parse_arguments(conference_args));
+		}
+		create_temporal_adjacency_matrices(dblp, conferences);
 	}
 }
@@ -0,0 +1,188 @@
+package icalp50.datacollection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import icalp50.datacollection.ConferenceTemporalAdjacencyMatrixCreator.Conference;
+import icalp50.utilities.DblpSnapshot;
+import icalp50.utilities.PhaseMetrics;
+
+public class FusedGraphCreator {
+	/**
+	 * If true, the intermediate files saved by the fused phases (which are not
+	 * read by the next phases) are compressed in the gzip format
+	 * (temporal_adjacency_matrix.txt.gz, temporal_graph.txt.gz, and the
+	 * corresponding files of the conference graph).
+	 */
+	public static boolean compress_intermediate = Boolean.getBoolean("icalp50.compress");
+
+	/**
+	 * Create the sorted temporal graph files and the static graph files of the
+	 * conference directly from its temporal adjacency matrices, without reading and
+	 * writing the intermediate text files (which are saved only if required). The
+	 * sorted temporal graphs are also saved in the binary format if required (see
+	 * the LinkStreamFile class). The created files are the same created by the
+	 * TemporalGraphCreator, the TemporalGraphSorter, and the Temporal2Static
+	 * classes. The creation is measured (see the PhaseMetrics class) as phase3-5 of
+	 * the conference.
+	 *
+	 * @param c                 : the conference (with its temporal adjacency
+	 *                          matrices)
+	 * @param fy                : first year to be considered in the static graphs
+	 * @param ly                : last year to be considered in the static graphs
+	 * @param save_intermediate : true if the temporal adjacency matrix files and
+	 *                          the (unsorted) temporal graph files have to be saved
+	 * @throws Exception
+	 */
+	static void create_graphs(Conference c, int fy, int ly, boolean save_intermediate) throws Exception {
+		try (PhaseMetrics m = PhaseMetrics.start("phase3-5", c.acronym)) {
+			create_graphs(c, fy, ly, save_intermediate, m);
+		}
+	}
+
+	static void create_graphs(Conference c, int fy, int ly, boolean save_intermediate, PhaseMetrics m)
+			throws Exception {
+		String path = "./conferences/" + c.acronym + "/";
+		String extension = compress_intermediate ? ".txt.gz" : ".txt";
+		if (save_intermediate) {
+			c.save_matrices(extension);
+			m.add_file(path + "temporal_adjacency_matrix" + extension);
+			m.add_file(path + "temporal_adjacency_matrix_conf" + extension);
+		}
+		LinkStream tg = c.temporal_adjacency_matrix.link_stream();
+		LinkStream tg_conf = c.temporal_adjacency_matrix_conf.link_stream();
+		c.save_sketches();
+		c.close();
+		m.add_file(path + "papers.txt");
+		m.add_file(path + "paper_author_sketches.txt");
+		if (save_intermediate) {
+			tg.save(path + "temporal_graph" + extension);
+			tg_conf.save(path + "temporal_graph_conf" + extension);
+			m.add_file(path + "temporal_graph" + extension);
+			m.add_file(path + "temporal_graph_conf" + extension);
+		}
+		tg = tg.sort_by_year();
+		tg_conf = tg_conf.sort_by_year();
+		tg.save(path + "temporal_graph_sorted.txt");
+		tg_conf.save(path + "temporal_graph_conf_sorted.txt");
+		m.add_edges(tg.size() + tg_conf.size());
+		m.add_file(path + "temporal_graph_sorted.txt");
+		m.add_file(path + "temporal_graph_conf_sorted.txt");
+		if (LinkStreamFile.save_binary) {
+			LinkStreamFile.write(tg, path + "temporal_graph_sorted.bin");
+			LinkStreamFile.write(tg_conf, path + "temporal_graph_conf_sorted.bin");
+			m.add_file(path + "temporal_graph_sorted.bin");
+			m.add_file(path + "temporal_graph_conf_sorted.bin");
+		}
+		m.add_edges(Temporal2Static.temporal_to_static(tg, path + "static_graph.txt", fy, ly));
+		m.add_edges(Temporal2Static.temporal_to_static(tg_conf, path + "static_graph_conf.txt", fy, ly));
+		m.add_file(path + "static_graph.txt");
+		m.add_file(path + "static_graph_conf.txt");
+	}
+
+	/**
+	 * Execute the second, third, fourth, and fifth phase of the analysis of
+	 * several conferences, by analysing all DBLP publications only once and by
+	 * keeping the temporal graphs in memory. Each element of the second argument
+	 * is the list of arguments of one conference, in the same format of the main
+	 * method of the ConferenceTemporalAdjacencyMatrixCreator class. After the scan
+	 * of the DBLP publications, the graphs of the conferences are created by the
+	 * given executor (if null, they are created by the calling thread). A failing
+	 * conference does not stop the analysis of the other ones.
+	 *
+	 * @param dblp              : the snapshot of the DBLP database
+	 * @param args              : list of arguments for each conference
+	 * @param fy                : first year to be considered in the static graphs
+	 * @param ly                : last year to be considered in the static graphs
+	 * @param save_intermediate : true if the intermediate files have to be saved
+	 * @param pool              : executor creating the graphs of the conferences
+	 *                          (it can be null)
+	 * @return : the exception which stopped the analysis of each failed
+	 *         conference (indexed by acronym)
+	 */
+	public static Map<String, Exception> create_graphs(DblpSnapshot dblp, String[][] args, int fy, int ly,
+			boolean save_intermediate, ExecutorService pool) {
+		Map<String, Exception> failures = new LinkedHashMap<>();
+		List<Conference> conferences = new ArrayList<>();
+		for (String[] conference_args : args) {
+			try {
+				conferences.add(ConferenceTemporalAdjacencyMatrixCreator.parse_arguments(conference_args));
+			} catch (Exception e) {
+				failures.put(conference_args.length > 0 ? conference_args[0] : "", e);
+			}
+		}
+		ConferenceTemporalAdjacencyMatrixCreator.open_all(conferences);
+		ConferenceTemporalAdjacencyMatrixCreator.scan_publications(dblp, conferences);
+		List<Future<?>> tasks = new ArrayList<>();
+		for (Conference c : conferences) {
+			if (c.failure != null) {
+				tasks.add(null);
+			} else if (pool == null) {
+				try {
+					create_graphs(c, fy, ly, save_intermediate);
+				} catch (Exception e) {
+					c.failure = e;
+				}
+				tasks.add(null);
+			} else {
+				tasks.add(pool.submit(() -> {
+					create_graphs(c, fy, ly, save_intermediate);
+					return null;
+				}));
+			}
+		}
+		for (int i = 0; i < conferences.size(); i++) {
+			Conference c = conferences.get(i);
+			if (tasks.get(i) != null) {
+				try {
+					tasks.get(i).get();
+				} catch (Exception e) {
+					c.failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+		}
+		ConferenceTemporalAdjacencyMatrixCreator.close_failed(conferences);
+		for (Conference c : conferences) {
+			if (c.failure != null) {
+				failures.put(c.acronym, c.failure);
+			}
+		}
+		return failures;
+	}
+
+	/**
+	 * Execute the second, third, fourth, and fifth phase of the analysis of
+	 * several conferences (see the create_graphs method), by using only the
+	 * calling thread.
+	 *
+	 * @param dblp              : the snapshot of the DBLP database
+	 * @param args              : list of arguments for each conference
+	 * @param fy                : first year to be considered in the static graphs
+	 * @param ly                : last year to be considered in the static graphs
+	 * @param save_intermediate : true if the intermediate files have to be saved
+	 */
+	public static void main(DblpSnapshot dblp, String[][] args, int fy, int ly, boolean save_intermediate) {
+		Map<String, Exception> failures = create_graphs(dblp, args, fy, ly, save_intermediate, null);
+		for (Exception e : failures.values()) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Execute the second, third, fourth, and fifth phase of the analysis of one
+	 * conference.
+	 *
+	 * @param dblp              : the snapshot of the DBLP database
+	 * @param args              : list of arguments for the specific conference
+	 * @param fy                : first year to be considered in the static graphs
+	 * @param ly                : last year to be considered in the static graphs
+	 * @param save_intermediate : true if the intermediate files have to be saved
+	 */
+	public static void main(DblpSnapshot dblp, String[] args, int fy, int ly, boolean save_intermediate) {
+		main(dblp, new String[][] { args }, fy, ly, save_intermediate);
+	}
+}
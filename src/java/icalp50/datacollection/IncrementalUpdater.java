@@ -0,0 +1,429 @@
+package icalp50.datacollection;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import icalp50.datacollection.ConferenceTemporalAdjacencyMatrixCreator.Conference;
+import icalp50.utilities.AuthorDictionary;
+import icalp50.utilities.DblpSnapshot;
+import icalp50.utilities.MinHashSketch;
+import icalp50.utilities.PhaseMetrics;
+import icalp50.utilities.RecordWriter;
+import icalp50.utilities.TitleNgramIndex;
+
+/**
+ * Incremental update of the files of a conference which has already been
+ * analysed, when a new DBLP snapshot contains new data (typically, a new
+ * edition of the conference). The publications published before a given year
+ * are assumed not to be changed: only the editions and the publications since
+ * that year are analysed, together with all publications of the new authors.
+ * The integer ids of the authors already in id_name_key.txt are kept, while
+ * the new authors receive the next ids. The work done is proportional to the
+ * size of the conference (its editions and the publications of its authors)
+ * rather than to the size of the snapshot: the authors are resolved against
+ * the authors of the editions, and the publications to be analysed are taken
+ * from the new editions and from the publication lists of the authors.
+ *
+ * The files obtained are the same obtained by the full analysis, apart from
+ * the order of the lines of papers.txt (the papers since the given year follow
+ * the older ones), provided that the conference papers since the given year
+ * belong to the tables of contents of the new editions. If the editions before
+ * the given year have been revised in the snapshot (an author of these
+ * editions is not in id_name_key.txt, or an author in id_name_key.txt is not
+ * an author of the editions), the ids of the full analysis could be different:
+ * in this case, the full analysis of the conference is executed instead.
+ */
+public class IncrementalUpdater {
+	DblpSnapshot dblp;
+	String conf;
+	String path;
+	int since_year;
+	AuthorProfileCache cache;
+	AuthorDictionary authors;
+	int first_new_id = 1;
+	List<ConferenceAuthorDataCollector.Edition> editions;
+	List<Integer> new_tocs = new ArrayList<>();
+
+	IncrementalUpdater(DblpSnapshot dblp, String conf, int since_year, AuthorProfileCache cache) {
+		this.dblp = dblp;
+		this.conf = conf;
+		this.path = "./conferences/" + conf + "/";
+		this.since_year = since_year;
+		this.cache = cache;
+	}
+
+	/**
+	 * Read the existing dictionary of the authors and associate the authors with
+	 * the persons of the snapshot having the same DBLP key, among the authors of
+	 * the editions of the conference. The name of each existing author is
+	 * replaced by the name in the snapshot, in case they differ (for instance,
+	 * because the file has been written with a charset not able to represent the
+	 * name).
+	 *
+	 * @param args : list of arguments for the specific conference
+	 * @return : true if the conference can be updated incrementally, that is, if
+	 *         all authors of the editions before the given year are in the
+	 *         dictionary and all authors in the dictionary are authors of the
+	 *         editions
+	 * @throws IOException
+	 */
+	boolean read_authors(String[] args) throws IOException {
+		authors = AuthorDictionary.read(path + "id_name_key.txt");
+		first_new_id = authors.next_id();
+		editions = ConferenceAuthorDataCollector.editions(dblp, args);
+		int[] persons = new int[16];
+		int n = 0;
+		for (ConferenceAuthorDataCollector.Edition e : editions) {
+			for (int toc : e.tocs) {
+				for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+					int publ = dblp.toc_publication(toc, i);
+					if (!dblp.pub_tag(publ).equals("proceedings")) {
+						for (int j = 0; j < dblp.pub_num_authors(publ); j++) {
+							persons = append(persons, n++, dblp.pub_author(publ, j));
+						}
+					}
+				}
+			}
+		}
+		AuthorDictionary.resolve(dblp, Collections.singletonList(authors), distinct(persons, n));
+		for (int id = 1; id < first_new_id; id++) {
+			if (authors.key(id) != null) {
+				int person = authors.person(id);
+				if (person < 0) {
+					return false;
+				}
+				String name = dblp.person_name(person);
+				if (!name.equals(authors.name(id))) {
+					authors.rename(id, name);
+				}
+			}
+		}
+		for (ConferenceAuthorDataCollector.Edition e : editions) {
+			if (e.year < since_year) {
+				for (int toc : e.tocs) {
+					for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+						int publ = dblp.toc_publication(toc, i);
+						if (!dblp.pub_tag(publ).equals("proceedings")) {
+							for (int j = 0; j < dblp.pub_num_authors(publ); j++) {
+								if (authors.id(dblp.pub_author(publ, j)) < 0) {
+									return false;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Append the value to the first n elements of the array.
+	 *
+	 * @return : the array (enlarged if it is full)
+	 */
+	static int[] append(int[] a, int n, int x) {
+		if (n == a.length) {
+			a = Arrays.copyOf(a, 2 * n);
+		}
+		a[n] = x;
+		return a;
+	}
+
+	/**
+	 * Return the distinct values of the first n elements of the array in
+	 * increasing order.
+	 */
+	static int[] distinct(int[] a, int n) {
+		Arrays.sort(a, 0, n);
+		int m = 0;
+		for (int i = 0; i < n; i++) {
+			if (m == 0 || a[i] != a[m - 1]) {
+				a[m++] = a[i];
+			}
+		}
+		return Arrays.copyOf(a, m);
+	}
+
+	/**
+	 * Return true if the publication is considered by the first phase of the
+	 * analysis when the profiles of its authors are computed.
+	 */
+	boolean is_profile_publication(int pub) {
+		String publ_tag = dblp.pub_tag(pub);
+		return publ_tag.equals("article") || publ_tag.equals("inproceedings");
+	}
+
+	/**
+	 * Incremental version of the first phase of the analysis (see the collect
+	 * method of the ConferenceAuthorDataCollector class), to be invoked after the
+	 * read_authors method. Only the editions since the given year are analysed
+	 * and the new authors are appended to the author files. The profile of an
+	 * existing author is recomputed only if the author has a publication since
+	 * the given year (which is looked for in the publications of the author), and
+	 * the sketches of the author keys and the n-gram index of the titles are
+	 * recomputed for the years since the given year.
+	 *
+	 * @throws IOException
+	 */
+	void update_authors() throws IOException {
+		RecordWriter new_papers = new RecordWriter();
+		RecordWriter new_conferences = new RecordWriter();
+		Files.createDirectories(Paths.get(path + "papers/"));
+		Map<Integer, MinHashSketch> year_sketch = null;
+		if (new File(path + "author_sketches.txt").exists()) {
+			year_sketch = MinHashSketch.read(path + "author_sketches.txt");
+			year_sketch.keySet().removeIf(y -> y >= since_year);
+		}
+		TitleNgramIndex title_index = null;
+		if (new File(path + "title_ngrams.txt").exists()) {
+			title_index = TitleNgramIndex.read(path + "title_ngrams.txt");
+			title_index.remove_since(since_year);
+		}
+		for (ConferenceAuthorDataCollector.Edition e : editions) {
+			if (e.year >= since_year) {
+				try (RecordWriter year_paper_rw = new RecordWriter(path + "papers/paper_titles_" + e.year + ".txt")) {
+					for (int toc : e.tocs) {
+						ConferenceAuthorDataCollector.save_titles(dblp, conf, toc, year_paper_rw);
+						ConferenceAuthorDataCollector.analyse_toc(dblp, toc, authors, new_papers, new_conferences,
+								cache);
+						if (year_sketch != null) {
+							ConferenceAuthorDataCollector.add_to_sketches(dblp, toc, year_sketch);
+						}
+						if (title_index != null) {
+							ConferenceAuthorDataCollector.add_to_title_index(dblp, toc, e.year, title_index);
+						}
+						new_tocs.add(toc);
+					}
+				}
+			}
+		}
+		Map<Integer, Integer> touched = new HashMap<>();
+		for (int id = 1; id < first_new_id; id++) {
+			int person = authors.key(id) != null ? authors.person(id) : -1;
+			if (person >= 0) {
+				for (int l = 0; l < dblp.person_num_publications(person); l++) {
+					int pub = dblp.person_publication(person, l);
+					if (dblp.pub_year(pub) >= since_year && is_profile_publication(pub)) {
+						touched.put(id, person);
+						break;
+					}
+				}
+			}
+		}
+		update_profiles(path + "author_paper_titles.txt", touched, true, new_papers.to_byte_array());
+		update_profiles(path + "author_conferences.txt", touched, false, new_conferences.to_byte_array());
+		authors.save(path + "id_name_key.txt");
+		if (year_sketch != null) {
+			MinHashSketch.save(year_sketch, path + "author_sketches.txt");
+		}
+		if (title_index != null) {
+			title_index.save(path + "title_ngrams.txt");
+		}
+	}
+
+	/**
+	 * Rewrite an author file (paper titles or conferences): the lines of the
+	 * existing authors are copied, apart from the ones of the authors with recent
+	 * publications whose profile is recomputed, and the lines of the new authors
+	 * are appended. The line with the id, the name, and the key of each existing
+	 * author is written from the dictionary, so that it contains the name in the
+	 * snapshot.
+	 *
+	 * @param fn        : the author file
+	 * @param touched   : existing authors (with their index in the snapshot)
+	 *                  whose profile has to be recomputed
+	 * @param titles    : true if the file contains the paper titles, false if it
+	 *                  contains the conferences
+	 * @param new_lines : lines of the new authors
+	 * @throws IOException
+	 */
+	void update_profiles(String fn, Map<Integer, Integer> touched, boolean titles, byte[] new_lines)
+			throws IOException {
+		File tmp = new File(fn + ".tmp");
+		try (BufferedReader br = new BufferedReader(new FileReader(fn, StandardCharsets.UTF_8));
+				RecordWriter rw = new RecordWriter(tmp.getPath())) {
+			boolean copy = true;
+			String line = br.readLine();
+			while (line != null) {
+				if (line.startsWith("i##")) {
+					int id = Integer.parseInt(line.split("##")[1]);
+					rw.append("i##").append(id).append("##n##").append(authors.name(id)).append("##k##")
+							.append(authors.key(id)).append('\n');
+					Integer person = touched.get(id);
+					copy = person == null;
+					if (!copy) {
+						AuthorProfileCache.Profile profile = cache.profile(person);
+						rw.write(titles ? profile.titles : profile.conferences);
+					}
+				} else if (copy) {
+					rw.append(line).append('\n');
+				}
+				line = br.readLine();
+			}
+			rw.write(new_lines);
+		}
+		Files.move(tmp.toPath(), Paths.get(fn), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Return the publications to be analysed by the incremental version of the
+	 * second phase: the publications of the new editions, the publications since
+	 * the given year of the existing authors, and all publications of the new
+	 * authors (a publication without authors of the conference which does not
+	 * belong to a new edition does not change the files).
+	 *
+	 * @return : the indices of the publications in increasing order
+	 */
+	int[] candidate_publications() {
+		int[] candidates = new int[1024];
+		int n = 0;
+		for (int toc : new_tocs) {
+			for (int i = 0; i < dblp.toc_num_publications(toc); i++) {
+				candidates = append(candidates, n++, dblp.toc_publication(toc, i));
+			}
+		}
+		for (int id = 1; id < authors.next_id(); id++) {
+			int person = authors.key(id) != null ? authors.person(id) : -1;
+			if (person >= 0) {
+				for (int l = 0; l < dblp.person_num_publications(person); l++) {
+					int pub = dblp.person_publication(person, l);
+					if (id >= first_new_id || dblp.pub_year(pub) >= since_year) {
+						candidates = append(candidates, n++, pub);
+					}
+				}
+			}
+		}
+		return distinct(candidates, n);
+	}
+
+	/**
+	 * Add to the temporal adjacency matrix the temporal edges of a sorted temporal
+	 * graph file which are before the given year.
+	 *
+	 * @param tam : the temporal adjacency matrix
+	 * @param fni : file containing the sorted temporal graph
+	 * @throws IOException
+	 */
+	void read_temporal_graph(TemporalAdjacencyMap tam, String fni) throws IOException {
+		BufferedReader tg_br = new BufferedReader(new FileReader(fni));
+		String line = tg_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split(",");
+			int t = Integer.parseInt(split_line[2]);
+			if (t < since_year) {
+				tam.add(Integer.parseInt(split_line[0]), Integer.parseInt(split_line[1]), t,
+						Integer.parseInt(split_line[3]));
+			}
+			line = tg_br.readLine();
+		}
+		tg_br.close();
+	}
+
+	/**
+	 * Incremental version of the second to fifth phase of the analysis: the
+	 * temporal graphs before the given year are read from the sorted temporal
+	 * graph files, the candidate publications are added, and all graph files are
+	 * saved again. The sketches of the authors of the papers are recomputed for
+	 * the years since the given year (if the file with the sketches exists).
+	 *
+	 * @param args              : list of arguments of the second phase for the
+	 *                          specific conference
+	 * @param fy                : first year to be considered in the static graphs
+	 * @param ly                : last year to be considered in the static graphs
+	 * @param save_intermediate : true if the intermediate files have to be saved
+	 * @throws Exception
+	 */
+	void update_graphs(String[] args, int fy, int ly, boolean save_intermediate) throws Exception {
+		Conference c = ConferenceTemporalAdjacencyMatrixCreator.parse_arguments(args);
+		c.since_year = since_year;
+		c.first_new_id = first_new_id;
+		List<String> old_papers = new ArrayList<>();
+		BufferedReader pub_br = new BufferedReader(new FileReader(path + "papers.txt", StandardCharsets.UTF_8));
+		String line = pub_br.readLine();
+		while (line != null && line.length() > 0) {
+			if (Integer.parseInt(line.split("##")[1]) < since_year) {
+				old_papers.add(line);
+			}
+			line = pub_br.readLine();
+		}
+		pub_br.close();
+		List<Conference> conferences = new ArrayList<>();
+		conferences.add(c);
+		try {
+			c.open();
+			for (String paper : old_papers) {
+				c.pub_rw.append(paper).append('\n');
+			}
+			c.year_sketch = null;
+			if (new File(path + "paper_author_sketches.txt").exists()) {
+				c.year_sketch = MinHashSketch.read(path + "paper_author_sketches.txt");
+				c.year_sketch.keySet().removeIf(y -> y >= since_year);
+			}
+			read_temporal_graph(c.temporal_adjacency_matrix, path + "temporal_graph_sorted.txt");
+			read_temporal_graph(c.temporal_adjacency_matrix_conf, path + "temporal_graph_conf_sorted.txt");
+			ConferenceTemporalAdjacencyMatrixCreator.scan_publications(dblp, conferences, candidate_publications());
+			if (c.failure != null) {
+				throw c.failure;
+			}
+			FusedGraphCreator.create_graphs(c, fy, ly, save_intermediate);
+		} catch (Exception e) {
+			c.failure = e;
+			ConferenceTemporalAdjacencyMatrixCreator.close_failed(conferences);
+			throw e;
+		}
+	}
+
+	/**
+	 * Update the files of a conference which has already been analysed, by
+	 * analysing only the data since the given year (the update of the author files
+	 * is measured as phase1, see the PhaseMetrics class).
+	 *
+	 * @param dblp              : the snapshot of the DBLP database
+	 * @param fp_args           : list of arguments of the first phase for the
+	 *                          specific conference
+	 * @param sp_args           : list of arguments of the second phase for the
+	 *                          specific conference
+	 * @param since_year        : first year whose data are analysed again
+	 * @param fy                : first year to be considered in the static graphs
+	 * @param ly                : last year to be considered in the static graphs
+	 * @param save_intermediate : true if the intermediate files have to be saved
+	 * @param cache             : cache of the author profiles
+	 * @throws Exception
+	 */
+	public static void update(DblpSnapshot dblp, String[] fp_args, String[] sp_args, int since_year, int fy, int ly,
+			boolean save_intermediate, AuthorProfileCache cache) throws Exception {
+		IncrementalUpdater updater = new IncrementalUpdater(dblp, fp_args[0], since_year, cache);
+		if (!updater.read_authors(fp_args)) {
+			System.out.println("The editions of " + fp_args[0] + " before " + since_year
+					+ " have changed: executing the full analysis...");
+			ConferenceAuthorDataCollector.collect(dblp, fp_args, cache);
+			Map<String, Exception> failures = FusedGraphCreator.create_graphs(dblp, new String[][] { sp_args }, fy,
+					ly, save_intermediate, null);
+			if (!failures.isEmpty()) {
+				throw failures.values().iterator().next();
+			}
+			return;
+		}
+		try (PhaseMetrics m = PhaseMetrics.start("phase1", fp_args[0])) {
+			updater.update_authors();
+			for (String fn : new String[] { "author_paper_titles.txt", "author_conferences.txt", "id_name_key.txt",
+					"author_sketches.txt", "title_ngrams.txt" }) {
+				m.add_file(updater.path + fn);
+			}
+		}
+		updater.update_graphs(sp_args, fy, ly, save_intermediate);
+	}
+}
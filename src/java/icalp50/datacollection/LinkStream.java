@@ -0,0 +1,161 @@
+package icalp50.datacollection;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+import icalp50.utilities.RecordWriter;
+
+/**
+ * In-memory temporal graph, that is, a list of temporal edges each specifying
+ * the two author ids, the year, and the number of collaborations in that year.
+ * The i-th temporal edge is stored in positions 4i (year), 4i+1 (first node),
+ * 4i+2 (second node), and 4i+3 (weight) of a single array of integers.
+ */
+public class LinkStream {
+	/**
+	 * Maximum difference between the last and the first year for which temporal
+	 * edges are sorted by counting sort.
+	 */
+	static final int MAX_COUNTING_SORT_RANGE = 4096;
+
+	int[] edges;
+	int n = 0;
+
+	public LinkStream() {
+		this(1024);
+	}
+
+	public LinkStream(int capacity) {
+		edges = new int[4 * Math.max(capacity, 1)];
+	}
+
+	LinkStream(int[] edges, int n) {
+		this.edges = edges;
+		this.n = n;
+	}
+
+	public void add(int u, int v, int t, int w) {
+		if (4 * n == edges.length) {
+			edges = Arrays.copyOf(edges, 8 * n);
+		}
+		edges[4 * n] = t;
+		edges[4 * n + 1] = u;
+		edges[4 * n + 2] = v;
+		edges[4 * n + 3] = w;
+		n = n + 1;
+	}
+
+	public int size() {
+		return n;
+	}
+
+	public int t(int i) {
+		return edges[4 * i];
+	}
+
+	public int u(int i) {
+		return edges[4 * i + 1];
+	}
+
+	public int v(int i) {
+		return edges[4 * i + 2];
+	}
+
+	public int w(int i) {
+		return edges[4 * i + 3];
+	}
+
+	/**
+	 * Stable sort of the first n temporal edges of the array with respect to the
+	 * year. If the years span a small range, counting sort is used, otherwise the
+	 * edges are sorted by the pair year and position in the array.
+	 *
+	 * @param edges : the temporal edges (four integers per edge, the first one
+	 *              being the year)
+	 * @param n     : number of temporal edges
+	 * @return : the sorted temporal edges
+	 */
+	static int[] sort_by_year(int[] edges, int n) {
+		int[] sorted = new int[4 * n];
+		if (n == 0) {
+			return sorted;
+		}
+		int min_t = Integer.MAX_VALUE;
+		int max_t = Integer.MIN_VALUE;
+		for (int i = 0; i < n; i++) {
+			min_t = Math.min(min_t, edges[4 * i]);
+			max_t = Math.max(max_t, edges[4 * i]);
+		}
+		if ((long) max_t - min_t < MAX_COUNTING_SORT_RANGE) {
+			int[] position = new int[max_t - min_t + 2];
+			for (int i = 0; i < n; i++) {
+				position[edges[4 * i] - min_t + 1]++;
+			}
+			for (int y = 1; y < position.length; y++) {
+				position[y] = position[y] + position[y - 1];
+			}
+			for (int i = 0; i < n; i++) {
+				int j = position[edges[4 * i] - min_t]++;
+				System.arraycopy(edges, 4 * i, sorted, 4 * j, 4);
+			}
+		} else {
+			long[] order = new long[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = ((long) edges[4 * i] << 32) | i;
+			}
+			Arrays.sort(order);
+			for (int j = 0; j < n; j++) {
+				System.arraycopy(edges, 4 * (int) order[j], sorted, 4 * j, 4);
+			}
+		}
+		return sorted;
+	}
+
+	/**
+	 * Return the temporal graph sorted in non-decreasing order with respect to the
+	 * year (temporal edges with the same year keep their relative order).
+	 *
+	 * @return : the sorted temporal graph
+	 */
+	public LinkStream sort_by_year() {
+		return new LinkStream(sort_by_year(edges, n), n);
+	}
+
+	/**
+	 * Save the temporal graph in the text format u,v,t,w (one temporal edge per
+	 * line).
+	 *
+	 * @param fno : file on which the temporal graph is saved
+	 * @throws IOException
+	 */
+	public void save(String fno) throws IOException {
+		try (RecordWriter tg_rw = new RecordWriter(fno)) {
+			for (int i = 0; i < n; i++) {
+				tg_rw.csv_line(u(i), v(i), t(i), w(i));
+			}
+		}
+	}
+
+	/**
+	 * Read a temporal graph saved in the text format u,v,t,w.
+	 *
+	 * @param fni : file containing the temporal graph
+	 * @return : the temporal graph
+	 * @throws IOException
+	 */
+	public static LinkStream read(String fni) throws IOException {
+		LinkStream ls = new LinkStream();
+		BufferedReader tg_br = new BufferedReader(new FileReader(fni));
+		String line = tg_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split(",");
+			ls.add(Integer.parseInt(split_line[0]), Integer.parseInt(split_line[1]), Integer.parseInt(split_line[2]),
+					Integer.parseInt(split_line[3]));
+			line = tg_br.readLine();
+		}
+		tg_br.close();
+		return ls;
+	}
+}
@@ -0,0 +1,318 @@
+package icalp50.datacollection;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Binary file containing a temporal graph sorted by year, which is read through
+ * a memory-mapped buffer of integers. The file starts with a header containing
+ * a magic number, the version, the number of nodes (that is, the maximum author
+ * id), the first and the last year, the number of temporal edges, and, for each
+ * year from the first to the last one plus one, the index of the first temporal
+ * edge of that year. The header is followed by the temporal edges, each one
+ * stored as four integers u, v, t, and w (as in the text format). Hence, the
+ * temporal edges of a range of years are a contiguous slice of the file.
+ */
+public class LinkStreamFile {
+	static final int MAGIC = 0x434D5431;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 6;
+
+	/**
+	 * If true, the binary file of the sorted temporal graphs is saved together
+	 * with the text file (temporal_graph_sorted.bin and
+	 * temporal_graph_conf_sorted.bin).
+	 */
+	public static boolean save_binary = Boolean.getBoolean("icalp50.binary");
+
+	int num_nodes;
+	int first_year;
+	int last_year;
+	int num_edges;
+	int edges_position;
+	IntBuffer ib;
+
+	/**
+	 * Header of a binary file, computed from the temporal edges (given in any
+	 * order) before they are written.
+	 */
+	public static class Header {
+		int num_nodes = 0;
+		int num_edges = 0;
+		int first_year = 0;
+		int last_year = -1;
+		/**
+		 * Number of temporal edges of each year, starting from the first year.
+		 */
+		int[] year_count = new int[0];
+
+		/**
+		 * Add a temporal edge to the header.
+		 *
+		 * @param u : first node
+		 * @param v : second node
+		 * @param t : year
+		 */
+		public void add(int u, int v, int t) {
+			num_nodes = Math.max(num_nodes, Math.max(u, v));
+			if (num_edges == 0) {
+				first_year = t;
+				last_year = t;
+				year_count = new int[16];
+			} else if (t < first_year) {
+				int shift = first_year - t;
+				int[] count = new int[Math.max(2 * year_count.length, last_year - t + 1)];
+				System.arraycopy(year_count, 0, count, shift, last_year - first_year + 1);
+				year_count = count;
+				first_year = t;
+			} else if (t > last_year) {
+				if (t - first_year >= year_count.length) {
+					year_count = Arrays.copyOf(year_count, Math.max(2 * year_count.length, t - first_year + 1));
+				}
+				last_year = t;
+			}
+			year_count[t - first_year]++;
+			num_edges = num_edges + 1;
+		}
+	}
+
+	/**
+	 * Writer of a binary file whose temporal edges are given one at a time, sorted
+	 * by year, after its header has been computed. Only the header is kept in
+	 * memory, so that a temporal graph which does not fit in memory can be saved
+	 * (see the TemporalGraphSorter class).
+	 */
+	public static class Writer implements Closeable {
+		DataOutputStream dos;
+		int num_edges;
+		int written = 0;
+		int last_t = Integer.MIN_VALUE;
+
+		/**
+		 * Create the file and write its header.
+		 *
+		 * @param fno    : file on which the temporal graph is saved
+		 * @param header : header of the temporal graph
+		 * @throws IOException
+		 */
+		public Writer(String fno, Header header) throws IOException {
+			num_edges = header.num_edges;
+			dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fno), 1 << 16));
+			dos.writeInt(MAGIC);
+			dos.writeInt(VERSION);
+			dos.writeInt(header.num_nodes);
+			dos.writeInt(header.first_year);
+			dos.writeInt(header.last_year);
+			dos.writeInt(header.num_edges);
+			int offset = 0;
+			dos.writeInt(offset);
+			for (int y = 0; y <= header.last_year - header.first_year; y++) {
+				offset = offset + header.year_count[y];
+				dos.writeInt(offset);
+			}
+		}
+
+		/**
+		 * Write the next temporal edge.
+		 *
+		 * @param u : first node
+		 * @param v : second node
+		 * @param t : year (not smaller than the year of the previous temporal edge)
+		 * @param w : weight
+		 * @throws IOException
+		 */
+		public void add(int u, int v, int t, int w) throws IOException {
+			if (t < last_t) {
+				throw new IllegalArgumentException("the temporal graph is not sorted by year");
+			}
+			last_t = t;
+			dos.writeInt(u);
+			dos.writeInt(v);
+			dos.writeInt(t);
+			dos.writeInt(w);
+			written = written + 1;
+		}
+
+		/**
+		 * Close the file, checking that all the temporal edges of the header have
+		 * been written.
+		 *
+		 * @throws IOException
+		 */
+		@Override
+		public void close() throws IOException {
+			dos.close();
+			if (written != num_edges) {
+				throw new IOException(written + " temporal edges written instead of " + num_edges);
+			}
+		}
+	}
+
+	/**
+	 * Save the temporal graph in the binary format.
+	 *
+	 * @param ls  : the temporal graph (sorted by year)
+	 * @param fno : file on which the temporal graph is saved
+	 * @throws IOException
+	 */
+	public static void write(LinkStream ls, String fno) throws IOException {
+		int n = ls.size();
+		Header header = new Header();
+		for (int i = 0; i < n; i++) {
+			if (i > 0 && ls.t(i) < ls.t(i - 1)) {
+				throw new IllegalArgumentException("the temporal graph is not sorted by year");
+			}
+			header.add(ls.u(i), ls.v(i), ls.t(i));
+		}
+		try (Writer writer = new Writer(fno, header)) {
+			for (int i = 0; i < n; i++) {
+				writer.add(ls.u(i), ls.v(i), ls.t(i), ls.w(i));
+			}
+		}
+	}
+
+	/**
+	 * Memory-map a temporal graph saved in the binary format.
+	 *
+	 * @param fni : file containing the temporal graph
+	 * @return : the temporal graph file
+	 * @throws IOException
+	 */
+	public static LinkStreamFile map(String fni) throws IOException {
+		LinkStreamFile f = new LinkStreamFile();
+		RandomAccessFile raf = new RandomAccessFile(fni, "r");
+		FileChannel fc = raf.getChannel();
+		f.ib = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size()).asIntBuffer();
+		raf.close();
+		if (f.ib.get(0) != MAGIC || f.ib.get(1) != VERSION) {
+			throw new IOException(fni + " is not a binary temporal graph of version " + VERSION);
+		}
+		f.num_nodes = f.ib.get(2);
+		f.first_year = f.ib.get(3);
+		f.last_year = f.ib.get(4);
+		f.num_edges = f.ib.get(5);
+		f.edges_position = HEADER_SIZE + f.last_year - f.first_year + 2;
+		return f;
+	}
+
+	/**
+	 * Return the temporal graph in the binary format stored in a buffer in memory
+	 * rather than in a file (so that a temporal graph saved only in the text
+	 * format can be accessed in the same way).
+	 *
+	 * @param ls : the temporal graph (sorted by year)
+	 * @return : the temporal graph file
+	 */
+	public static LinkStreamFile of(LinkStream ls) {
+		int n = ls.size();
+		Header header = new Header();
+		for (int i = 0; i < n; i++) {
+			if (i > 0 && ls.t(i) < ls.t(i - 1)) {
+				throw new IllegalArgumentException("the temporal graph is not sorted by year");
+			}
+			header.add(ls.u(i), ls.v(i), ls.t(i));
+		}
+		LinkStreamFile f = new LinkStreamFile();
+		f.num_nodes = header.num_nodes;
+		f.first_year = header.first_year;
+		f.last_year = header.last_year;
+		f.num_edges = n;
+		f.edges_position = HEADER_SIZE + f.last_year - f.first_year + 2;
+		f.ib = IntBuffer.allocate(f.edges_position + 4 * n);
+		f.ib.put(MAGIC).put(VERSION).put(f.num_nodes).put(f.first_year).put(f.last_year).put(n);
+		int offset = 0;
+		f.ib.put(offset);
+		for (int y = 0; y <= f.last_year - f.first_year; y++) {
+			offset = offset + header.year_count[y];
+			f.ib.put(offset);
+		}
+		for (int i = 0; i < n; i++) {
+			f.ib.put(ls.u(i)).put(ls.v(i)).put(ls.t(i)).put(ls.w(i));
+		}
+		f.ib.rewind();
+		return f;
+	}
+
+	public int num_nodes() {
+		return num_nodes;
+	}
+
+	public int first_year() {
+		return first_year;
+	}
+
+	public int last_year() {
+		return last_year;
+	}
+
+	public int num_edges() {
+		return num_edges;
+	}
+
+	/**
+	 * Return the index of the first temporal edge whose year is at least the given
+	 * year.
+	 *
+	 * @param year : the year
+	 * @return : the index of the first temporal edge of the year (the number of
+	 *         temporal edges if all temporal edges are before the year)
+	 */
+	public int first_edge(int year) {
+		if (year <= first_year) {
+			return 0;
+		}
+		if (year > last_year) {
+			return num_edges;
+		}
+		return ib.get(HEADER_SIZE + year - first_year);
+	}
+
+	public int u(int i) {
+		return ib.get(edges_position + 4 * i);
+	}
+
+	public int v(int i) {
+		return ib.get(edges_position + 4 * i + 1);
+	}
+
+	public int t(int i) {
+		return ib.get(edges_position + 4 * i + 2);
+	}
+
+	public int w(int i) {
+		return ib.get(edges_position + 4 * i + 3);
+	}
+
+	/**
+	 * Return the temporal edges whose year is between the first and the last year.
+	 *
+	 * @param fy : first year to be considered
+	 * @param ly : last year to be considered
+	 * @return : the in-memory temporal graph containing the temporal edges
+	 */
+	public LinkStream slice(int fy, int ly) {
+		int from = first_edge(fy);
+		int to = ly < fy ? from : first_edge(ly + 1);
+		LinkStream ls = new LinkStream(to - from);
+		for (int i = from; i < to; i++) {
+			ls.add(u(i), v(i), t(i), w(i));
+		}
+		return ls;
+	}
+
+	/**
+	 * Return the whole temporal graph.
+	 *
+	 * @return : the in-memory temporal graph
+	 */
+	public LinkStream link_stream() {
+		return slice(first_year, last_year);
+	}
+}
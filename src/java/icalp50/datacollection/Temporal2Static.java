@@ -1,19 +1,23 @@
 package icalp50.datacollection;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import icalp50.utilities.LongIntHashMap;
+import icalp50.utilities.PhaseMetrics;
+import icalp50.utilities.RecordWriter;
+
 public class Temporal2Static {
 	/**
 	 * Save in the static graph file the list of edges corresponding to the input
 	 * temporal graph file (each edge specifies the two author id and the number of
-	 * collaborations between the first and the last year).
+	 * collaborations between the first and the last year). The weights are
+	 * accumulated in a hash table indexed by the pair of author ids, so that time
+	 * and memory are proportional to the number of temporal edges.
 	 * 
 	 * @param fni        : file containing the temporal graph
 	 * @param fno        : file on which the static graph is saved
@@ -23,12 +27,7 @@ public class Temporal2Static {
 	 */
 	public static void temporal_to_static(String fni, String fno, int n, int first_year, int last_year) {
 		try {
-			int[][] weights = new int[n][n];
-			for (int u = 0; u < n; u++) {
-				for (int v = 0; v < n; v++) {
-					weights[u][v] = 0;
-				}
-			}
+			LongIntHashMap weights = new LongIntHashMap();
 			BufferedReader tg_br = new BufferedReader(new FileReader(fni));
 			String line = tg_br.readLine();
 			while (line != null && line.length() > 0) {
@@ -38,29 +37,84 @@ public class Temporal2Static {
 					int u = Integer.parseInt(split_line[0]);
 					int v = Integer.parseInt(split_line[1]);
 					int w = Integer.parseInt(split_line[3]);
-					if (u < v) {
-						weights[u - 1][v - 1] = weights[u - 1][v - 1] + w;
-					} else if (v < u) {
-						weights[v - 1][u - 1] = weights[v - 1][u - 1] + w;
-					}
+					add_weight(weights, u, v, w);
 				}
 				line = tg_br.readLine();
 			}
 			tg_br.close();
-			BufferedWriter sg_bw = new BufferedWriter(new FileWriter(fno));
-			for (int u = 0; u < n; u++) {
-				for (int v = u + 1; v < n; v++) {
-					if (weights[u][v] > 0) {
-						sg_bw.write((u + 1) + "," + (v + 1) + "," + weights[u][v] + "\n");
-					}
-				}
-			}
-			sg_bw.close();
+			save_static_graph(weights, fno);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Save in the static graph file the list of edges corresponding to the
+	 * in-memory temporal graph (see the method with the same name working on
+	 * files).
+	 * 
+	 * @param ls         : the temporal graph
+	 * @param fno        : file on which the static graph is saved
+	 * @param first_year : first year to be considered
+	 * @param last_year  : last year to be considered
+	 * @return : the number of edges of the static graph
+	 * @throws IOException
+	 */
+	public static int temporal_to_static(LinkStream ls, String fno, int first_year, int last_year)
+			throws IOException {
+		LongIntHashMap weights = new LongIntHashMap();
+		for (int i = 0; i < ls.size(); i++) {
+			int t = ls.t(i);
+			if (t >= first_year && t <= last_year) {
+				add_weight(weights, ls.u(i), ls.v(i), ls.w(i));
+			}
+		}
+		return save_static_graph(weights, fno);
+	}
+
+	/**
+	 * Save in the static graph file the list of edges corresponding to the
+	 * temporal graph saved in the binary format: only the slice of the temporal
+	 * edges between the first and the last year is read.
+	 * 
+	 * @param lsf        : the binary temporal graph file
+	 * @param fno        : file on which the static graph is saved
+	 * @param first_year : first year to be considered
+	 * @param last_year  : last year to be considered
+	 * @throws IOException
+	 */
+	public static void temporal_to_static(LinkStreamFile lsf, String fno, int first_year, int last_year)
+			throws IOException {
+		LongIntHashMap weights = new LongIntHashMap();
+		int to = last_year < first_year ? 0 : lsf.first_edge(last_year + 1);
+		for (int i = lsf.first_edge(first_year); i < to; i++) {
+			add_weight(weights, lsf.u(i), lsf.v(i), lsf.w(i));
+		}
+		save_static_graph(weights, fno);
+	}
+
+	static void add_weight(LongIntHashMap weights, int u, int v, int w) {
+		if (u < v) {
+			weights.add(LongIntHashMap.pack(u, v), w);
+		} else if (v < u) {
+			weights.add(LongIntHashMap.pack(v, u), w);
+		}
+	}
+
+	static int save_static_graph(LongIntHashMap weights, String fno) throws IOException {
+		int n_edges = 0;
+		try (RecordWriter sg_rw = new RecordWriter(fno)) {
+			for (long uv : weights.sorted_keys()) {
+				int w = weights.get(uv, 0);
+				if (w > 0) {
+					sg_rw.csv_line(LongIntHashMap.high(uv), LongIntHashMap.low(uv), w);
+					n_edges = n_edges + 1;
+				}
+			}
+		}
+		return n_edges;
+	}
+
 	/**
 	 * Invoke the method for creating the two static graph files with all papers and
 	 * only with conference papers, respectively.
@@ -78,13 +132,22 @@ public class Temporal2Static {
 	}
 
 	/**
-	 * Compute number of authors and invoke method to create static graph.
+	 * Compute number of authors and invoke method to create static graph
+	 * (measured as phase5, see the PhaseMetrics class).
 	 * 
 	 * @param conf : conference acronym
 	 * @param fy   : first year to be considered
 	 * @param ly   : last year to be considered
 	 */
 	public static void main(String conf, int fy, int ly) {
+		try (PhaseMetrics m = PhaseMetrics.start("phase5", conf)) {
+			create(conf, fy, ly);
+			m.add_file("./conferences/" + conf + "/static_graph.txt");
+			m.add_file("./conferences/" + conf + "/static_graph_conf.txt");
+		}
+	}
+
+	static void create(String conf, int fy, int ly) {
 		Path path = Paths.get("./conferences/" + conf + "/id_name_key.txt");
 		long num_nodes = 0;
 		try {
@@ -0,0 +1,177 @@
+package icalp50.datacollection;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import icalp50.utilities.LongIntHashMap;
+import icalp50.utilities.RecordWriter;
+
+/**
+ * Sparse temporal adjacency matrix. Each edge (id1,id2) with id1 <= id2 is
+ * identified by the long obtained by packing the two ids, and it is associated
+ * with the list of its years, each with the number of collaborations in that
+ * year. The edges are indexed by an open addressing hash table, while the year
+ * counters are stored in a pool of cells linked together, so that the memory
+ * used is proportional to the number of collaborations and not to the square of
+ * the number of authors.
+ */
+public class TemporalAdjacencyMap {
+	LongIntHashMap edge_index = new LongIntHashMap();
+	long[] edge_key = new long[512];
+	int[] edge_first_cell = new int[512];
+	int n_edges = 0;
+	int[] cell_year = new int[512];
+	int[] cell_count = new int[512];
+	int[] cell_next = new int[512];
+	int n_cells = 0;
+	long[] year_counts = new long[16];
+
+	/**
+	 * Return the index of the edge with the given key, creating it if it does not
+	 * exist yet.
+	 */
+	int edge(long key) {
+		int e = edge_index.get(key, -1);
+		if (e < 0) {
+			if (n_edges == edge_key.length) {
+				edge_key = Arrays.copyOf(edge_key, 2 * n_edges);
+				edge_first_cell = Arrays.copyOf(edge_first_cell, 2 * n_edges);
+			}
+			e = n_edges++;
+			edge_key[e] = key;
+			edge_first_cell[e] = -1;
+			edge_index.put(key, e);
+		}
+		return e;
+	}
+
+	/**
+	 * Add a collaboration between two authors in a given year.
+	 *
+	 * @param id1  : id of the first author
+	 * @param id2  : id of the second author (not smaller than id1)
+	 * @param year : year of the collaboration
+	 */
+	public void add(int id1, int id2, int year) {
+		add(id1, id2, year, 1);
+	}
+
+	/**
+	 * Add several collaborations between two authors in a given year.
+	 *
+	 * @param id1   : id of the first author
+	 * @param id2   : id of the second author (not smaller than id1)
+	 * @param year  : year of the collaborations
+	 * @param count : number of collaborations
+	 */
+	public void add(int id1, int id2, int year, int count) {
+		int e = edge(LongIntHashMap.pack(id1, id2));
+		int cell = edge_first_cell[e];
+		while (cell >= 0) {
+			if (cell_year[cell] == year) {
+				cell_count[cell] = cell_count[cell] + count;
+				return;
+			}
+			cell = cell_next[cell];
+		}
+		if (n_cells == cell_year.length) {
+			cell_year = Arrays.copyOf(cell_year, 2 * n_cells);
+			cell_count = Arrays.copyOf(cell_count, 2 * n_cells);
+			cell_next = Arrays.copyOf(cell_next, 2 * n_cells);
+		}
+		cell = n_cells++;
+		cell_year[cell] = year;
+		cell_count[cell] = count;
+		cell_next[cell] = edge_first_cell[e];
+		edge_first_cell[e] = cell;
+	}
+
+	public int num_edges() {
+		return n_edges;
+	}
+
+	/**
+	 * Return the indices of the edges sorted by the first and then by the second
+	 * author id.
+	 *
+	 * @return : the sorted edge indices
+	 */
+	int[] sorted_edges() {
+		long[] keys = edge_index.sorted_keys();
+		int[] edges = new int[n_edges];
+		for (int i = 0; i < n_edges; i++) {
+			edges[i] = edge_index.get(keys[i], -1);
+		}
+		return edges;
+	}
+
+	/**
+	 * Collect in the scratch array the years of the edge, each packed with the
+	 * number of collaborations in that year, sorted in increasing order of year.
+	 *
+	 * @param e : edge index
+	 * @return : number of distinct years of the edge
+	 */
+	int sorted_year_counts(int e) {
+		int n_years = 0;
+		for (int cell = edge_first_cell[e]; cell >= 0; cell = cell_next[cell]) {
+			if (n_years == year_counts.length) {
+				year_counts = Arrays.copyOf(year_counts, 2 * n_years);
+			}
+			year_counts[n_years++] = ((long) cell_year[cell] << 32) | cell_count[cell];
+		}
+		Arrays.sort(year_counts, 0, n_years);
+		return n_years;
+	}
+
+	/**
+	 * Save the temporal adjacency matrix in the same format of the original
+	 * matrix, that is, one line (u,v): [years] for each non-empty element (the
+	 * years are in non-decreasing order and each year is repeated as many times
+	 * as the number of collaborations in that year).
+	 *
+	 * @param fno : file on which the temporal adjacency matrix is saved
+	 * @throws IOException
+	 */
+	public void save(String fno) throws IOException {
+		try (RecordWriter tam_rw = new RecordWriter(fno)) {
+			for (int e : sorted_edges()) {
+				int n_years = sorted_year_counts(e);
+				tam_rw.append('(').append(LongIntHashMap.high(edge_key[e])).append(',')
+						.append(LongIntHashMap.low(edge_key[e])).append("): [");
+				for (int i = 0; i < n_years; i++) {
+					int year = (int) (year_counts[i] >>> 32);
+					int count = (int) year_counts[i];
+					for (int c = 0; c < count; c++) {
+						if (i > 0 || c > 0) {
+							tam_rw.append(", ");
+						}
+						tam_rw.append(year);
+					}
+				}
+				tam_rw.append("]\n");
+			}
+		}
+	}
+
+	/**
+	 * Return the temporal graph corresponding to the temporal adjacency matrix,
+	 * with the temporal edges in the same order of the file created by the
+	 * TemporalGraphCreator class (that is, sorted by first node, second node, and
+	 * year).
+	 *
+	 * @return : the temporal graph
+	 */
+	public LinkStream link_stream() {
+		LinkStream ls = new LinkStream(n_cells);
+		for (int e : sorted_edges()) {
+			int n_years = sorted_year_counts(e);
+			int u = LongIntHashMap.high(edge_key[e]);
+			int v = LongIntHashMap.low(edge_key[e]);
+			for (int i = 0; i < n_years; i++) {
+				ls.add(u, v, (int) (year_counts[i] >>> 32), (int) year_counts[i]);
+			}
+		}
+		return ls;
+	}
+}
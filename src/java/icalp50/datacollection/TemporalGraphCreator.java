@@ -1,15 +1,16 @@
 package icalp50.datacollection;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 
+import icalp50.utilities.PhaseMetrics;
+import icalp50.utilities.RecordWriter;
+
 public class TemporalGraphCreator {
 	/**
 	 * Save in the temporal graph file the list of temporal edges (each temporal edge
@@ -21,9 +22,8 @@ public class TemporalGraphCreator {
 	 * @param fno       : file on which the temporal graph is saved
 	 */
 	public static void create_temporal_graph(long num_nodes, String fni, String fno) {
-		try {
-			BufferedWriter tg_bw = new BufferedWriter(new FileWriter(fno));
-			BufferedReader tam_br = new BufferedReader(new FileReader(fni));
+		try (RecordWriter tg_rw = new RecordWriter(fno);
+				BufferedReader tam_br = new BufferedReader(new FileReader(fni))) {
 			String line = tam_br.readLine();
 			while (line != null && line.length() > 0) {
 				String[] split_line = line.split(":");
@@ -45,17 +45,15 @@ public class TemporalGraphCreator {
 					if (year[current_i] == current_year) {
 						current_weight = current_weight + 1;
 					} else {
-						tg_bw.write(u + "," + v + "," + current_year + "," + current_weight + "\n");
+						tg_rw.csv_line(u, v, current_year, current_weight);
 						current_year = year[current_i];
 						current_weight = 1;
 					}
 					current_i = current_i + 1;
 				}
-				tg_bw.write(u + "," + v + "," + current_year + "," + current_weight + "\n");
+				tg_rw.csv_line(u, v, current_year, current_weight);
 				line = tam_br.readLine();
 			}
-			tg_bw.close();
-			tam_br.close();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -77,11 +75,19 @@ public class TemporalGraphCreator {
 
 	/**
 	 * Compute the number of conference authors and invoke the method for creating
-	 * temporal graph files.
+	 * temporal graph files (measured as phase3, see the PhaseMetrics class).
 	 * 
 	 * @param conf : conference acronym
 	 */
 	public static void main(String conf) {
+		try (PhaseMetrics m = PhaseMetrics.start("phase3", conf)) {
+			create(conf);
+			m.add_file("./conferences/" + conf + "/temporal_graph.txt");
+			m.add_file("./conferences/" + conf + "/temporal_graph_conf.txt");
+		}
+	}
+
+	static void create(String conf) {
 		Path path = Paths.get("./conferences/" + conf + "/id_name_key.txt");
 		long num_nodes = 0;
 		try {
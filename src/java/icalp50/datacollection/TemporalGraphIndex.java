@@ -0,0 +1,162 @@
+package icalp50.datacollection;
+
+import java.io.File;
+import java.io.IOException;
+
+import icalp50.utilities.LongIntHashMap;
+
+/**
+ * Temporal graph sorted by year, accessed through its binary format (see the
+ * LinkStreamFile class), whose index of the first temporal edge of each year
+ * allows the static graph of any range of years to be obtained by aggregating
+ * only the temporal edges of the range. The static graphs of all the sliding
+ * windows of a given width are obtained in one pass, by adding the temporal
+ * edges of the year entering the window and by subtracting the ones of the
+ * years leaving it.
+ */
+public class TemporalGraphIndex {
+	LinkStreamFile lsf;
+
+	/**
+	 * Create the index of the temporal graph.
+	 *
+	 * @param lsf : the temporal graph in the binary format
+	 */
+	public TemporalGraphIndex(LinkStreamFile lsf) {
+		this.lsf = lsf;
+	}
+
+	/**
+	 * Read the sorted temporal graph: its binary file is memory-mapped, if it
+	 * exists, and otherwise its text file is read and converted into the binary
+	 * format in memory.
+	 *
+	 * @param fn : file name of the sorted temporal graph without extension
+	 * @return : the index of the temporal graph
+	 * @throws IOException
+	 */
+	public static TemporalGraphIndex read(String fn) throws IOException {
+		if (new File(fn + ".bin").exists()) {
+			return new TemporalGraphIndex(LinkStreamFile.map(fn + ".bin"));
+		}
+		return new TemporalGraphIndex(LinkStreamFile.of(LinkStream.read(fn + ".txt")));
+	}
+
+	public int first_year() {
+		return lsf.first_year();
+	}
+
+	public int last_year() {
+		return lsf.last_year();
+	}
+
+	/**
+	 * Add (or subtract) the weights of the temporal edges of a range of years to
+	 * the weights of the static graph (the pairs whose weight becomes zero are not
+	 * saved in the static graph files).
+	 *
+	 * @param weights : weight of each pair of author ids
+	 * @param fy      : first year of the range
+	 * @param ly      : last year of the range
+	 * @param sign    : 1 for adding and -1 for subtracting
+	 */
+	void add_years(LongIntHashMap weights, int fy, int ly, int sign) {
+		if (ly < fy) {
+			return;
+		}
+		int to = lsf.first_edge(ly + 1);
+		for (int i = lsf.first_edge(fy); i < to; i++) {
+			Temporal2Static.add_weight(weights, lsf.u(i), lsf.v(i), sign * lsf.w(i));
+		}
+	}
+
+	/**
+	 * Return the static graph of a range of years, that is, the number of
+	 * collaborations of each pair of authors between the first and the last year.
+	 *
+	 * @param fy : first year of the range
+	 * @param ly : last year of the range
+	 * @return : weight of each pair of author ids
+	 */
+	public LongIntHashMap window(int fy, int ly) {
+		LongIntHashMap weights = new LongIntHashMap();
+		add_years(weights, fy, ly, 1);
+		return weights;
+	}
+
+	/**
+	 * Save the static graph of a range of years in the static graph format.
+	 *
+	 * @param fy  : first year of the range
+	 * @param ly  : last year of the range
+	 * @param fno : file on which the static graph is saved
+	 * @throws IOException
+	 */
+	public void save_window(int fy, int ly, String fno) throws IOException {
+		Temporal2Static.save_static_graph(window(fy, ly), fno);
+	}
+
+	/**
+	 * Save the static graphs of the windows of the given width starting every
+	 * step years from the first year, as long as the window ends by the last year
+	 * (if the range is shorter than the width, only one window from the first to
+	 * the last year is saved). The static graph of the window from year fy to year
+	 * ly is saved in the file fn_fy_ly.txt.
+	 *
+	 * @param fy    : first year to be considered
+	 * @param ly    : last year to be considered
+	 * @param width : number of years of each window (positive)
+	 * @param step  : number of years between the starts of two windows
+	 *              (positive)
+	 * @param fn    : prefix of the files on which the static graphs are saved
+	 * @throws IOException
+	 */
+	public void save_sliding_windows(int fy, int ly, int width, int step, String fn) throws IOException {
+		if (width < 1 || step < 1) {
+			throw new IllegalArgumentException("the width and the step of the windows must be positive");
+		}
+		LongIntHashMap weights = new LongIntHashMap();
+		int start = fy;
+		int end = Math.min(fy + width - 1, ly);
+		add_years(weights, start, end, 1);
+		Temporal2Static.save_static_graph(weights, fn + "_" + start + "_" + end + ".txt");
+		while (start + step + width - 1 <= ly) {
+			int next_start = start + step;
+			int next_end = next_start + width - 1;
+			add_years(weights, start, Math.min(next_start - 1, end), -1);
+			add_years(weights, Math.max(end + 1, next_start), next_end, 1);
+			start = next_start;
+			end = next_end;
+			Temporal2Static.save_static_graph(weights, fn + "_" + start + "_" + end + ".txt");
+		}
+	}
+
+	/**
+	 * Save the static graphs of the sliding windows of the conference (with all
+	 * papers and only with conference papers) between the first and the last year
+	 * of the conference, in the files static_graph_fy_ly.txt and
+	 * static_graph_conf_fy_ly.txt.
+	 *
+	 * @param conf  : conference acronym
+	 * @param width : number of years of each window (positive)
+	 * @param step  : number of years between the starts of two windows
+	 *              (positive)
+	 */
+	public static void main(String conf, int width, int step) {
+		if (width < 1 || step < 1) {
+			System.out.println("Error in input format: see the documentation");
+			return;
+		}
+		try {
+			String path = "./conferences/" + conf + "/";
+			TemporalGraphIndex conf_index = read(path + "temporal_graph_conf_sorted");
+			TemporalGraphIndex index = read(path + "temporal_graph_sorted");
+			int fy = conf_index.first_year();
+			int ly = conf_index.last_year();
+			index.save_sliding_windows(fy, ly, width, step, path + "static_graph");
+			conf_index.save_sliding_windows(fy, ly, width, step, path + "static_graph_conf");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -1,92 +1,270 @@
 package icalp50.datacollection;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.List;
+
+import icalp50.utilities.PhaseMetrics;
+import icalp50.utilities.RecordWriter;
 
 public class TemporalGraphSorter {
-	class TemporalEdge {
-		int u;
-		int v;
-		int t;
-		int w;
-
-		public TemporalEdge(int u, int v, int t, int w) {
-			this.u = u;
-			this.v = v;
-			this.t = t;
-			this.w = w;
+	/**
+	 * Maximum number of temporal edges kept in memory: longer temporal graphs are
+	 * split into sorted runs which are saved in temporary files and then merged.
+	 */
+	int run_size;
+
+	/**
+	 * Temporal edges of the current run: the i-th edge is stored in positions 4i
+	 * (year), 4i+1 (first node), 4i+2 (second node), and 4i+3 (weight).
+	 */
+	int[] run;
+
+	public TemporalGraphSorter() {
+		this(1 << 22);
+	}
+
+	public TemporalGraphSorter(int run_size) {
+		this.run_size = run_size;
+	}
+
+	/**
+	 * Stable sort of the first n temporal edges of the run with respect to the
+	 * year.
+	 *
+	 * @param n : number of temporal edges in the run
+	 * @return : the sorted temporal edges
+	 */
+	int[] sort_run(int n) {
+		return LinkStream.sort_by_year(run, n);
+	}
+
+	/**
+	 * Save a sorted run in a temporary binary file.
+	 *
+	 * @param sorted : the sorted temporal edges
+	 * @param n      : number of temporal edges
+	 * @return : the temporary file
+	 * @throws IOException
+	 */
+	File spill_run(int[] sorted, int n) throws IOException {
+		File f = File.createTempFile("temporal_graph", ".run");
+		f.deleteOnExit();
+		DataOutputStream run_dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+		for (int i = 0; i < 4 * n; i++) {
+			run_dos.writeInt(sorted[i]);
 		}
+		run_dos.close();
+		return f;
 	}
 
-	class YearCompare implements Comparator<TemporalEdge> {
-		public int compare(TemporalEdge te1, TemporalEdge te2) {
-			if (te1.t < te2.t)
-				return -1;
-			if (te1.t > te2.t)
-				return 1;
-			return 0;
+	/**
+	 * Merge the sorted runs into the output temporal graph file (and into the
+	 * binary file, if any). Runs are merged by a heap ordered by year and then by
+	 * run index, so that temporal edges with the same year keep the order of the
+	 * input file.
+	 *
+	 * @param runs   : temporary files containing the sorted runs
+	 * @param tg_rw  : writer of the sorted temporal graph file
+	 * @param tg_bin : writer of the binary sorted temporal graph file (it can be
+	 *               null)
+	 * @throws IOException
+	 */
+	static void merge_runs(List<File> runs, RecordWriter tg_rw, LinkStreamFile.Writer tg_bin) throws IOException {
+		int k = runs.size();
+		DataInputStream[] run_dis = new DataInputStream[k];
+		long[] remaining = new long[k];
+		int[][] head = new int[k][4];
+		int[] heap = new int[k];
+		int heap_size = 0;
+		for (int r = 0; r < k; r++) {
+			run_dis[r] = new DataInputStream(new BufferedInputStream(new FileInputStream(runs.get(r)), 1 << 16));
+			remaining[r] = runs.get(r).length() / 16;
+			if (remaining[r] > 0) {
+				for (int j = 0; j < 4; j++) {
+					head[r][j] = run_dis[r].readInt();
+				}
+				remaining[r]--;
+				heap_size = sift_up(heap, heap_size, r, head);
+			}
+		}
+		while (heap_size > 0) {
+			int r = heap[0];
+			tg_rw.csv_line(head[r][1], head[r][2], head[r][0], head[r][3]);
+			if (tg_bin != null) {
+				tg_bin.add(head[r][1], head[r][2], head[r][0], head[r][3]);
+			}
+			if (remaining[r] > 0) {
+				for (int j = 0; j < 4; j++) {
+					head[r][j] = run_dis[r].readInt();
+				}
+				remaining[r]--;
+			} else {
+				heap_size--;
+				heap[0] = heap[heap_size];
+			}
+			sift_down(heap, heap_size, head);
+		}
+		for (int r = 0; r < k; r++) {
+			run_dis[r].close();
+		}
+	}
+
+	static boolean less(int r1, int r2, int[][] head) {
+		return head[r1][0] < head[r2][0] || (head[r1][0] == head[r2][0] && r1 < r2);
+	}
+
+	static int sift_up(int[] heap, int heap_size, int r, int[][] head) {
+		int i = heap_size;
+		heap[i] = r;
+		while (i > 0 && less(heap[i], heap[(i - 1) / 2], head)) {
+			int tmp = heap[i];
+			heap[i] = heap[(i - 1) / 2];
+			heap[(i - 1) / 2] = tmp;
+			i = (i - 1) / 2;
+		}
+		return heap_size + 1;
+	}
+
+	static void sift_down(int[] heap, int heap_size, int[][] head) {
+		int i = 0;
+		while (2 * i + 1 < heap_size) {
+			int c = 2 * i + 1;
+			if (c + 1 < heap_size && less(heap[c + 1], heap[c], head)) {
+				c = c + 1;
+			}
+			if (!less(heap[c], heap[i], head)) {
+				break;
+			}
+			int tmp = heap[i];
+			heap[i] = heap[c];
+			heap[c] = tmp;
+			i = c;
 		}
 	}
 
 	/**
 	 * Save in the output temporal graph file the temporal edges of the input
-	 * temporal graph file sorted in non-decreasing order with respect to the year.
-	 * 
+	 * temporal graph file sorted in non-decreasing order with respect to the year
+	 * (temporal edges with the same year appear in the same order of the input
+	 * file). At most run_size temporal edges are kept in memory: if the input file
+	 * is longer, it is split into sorted runs which are then merged.
+	 *
 	 * @param fni : file containing the temporal graph
 	 * @param fno : file on which the sorted temporal graph is saved
 	 */
 	public void sort(String fni, String fno) {
+		sort(fni, fno, null);
+	}
+
+	/**
+	 * Sort the temporal graph file (see the method with the same name) and, if
+	 * required, save the sorted temporal graph also in the binary format (see the
+	 * LinkStreamFile class). The header of the binary file is computed while the
+	 * input file is read, and the sorted temporal edges are written in the two
+	 * files in the same pass, so that the memory used is still bounded by
+	 * run_size.
+	 *
+	 * @param fni : file containing the temporal graph
+	 * @param fno : file on which the sorted temporal graph is saved
+	 * @param fnb : file on which the binary sorted temporal graph is saved (if
+	 *            null, the binary file is not saved)
+	 */
+	public void sort(String fni, String fno, String fnb) {
+		List<File> runs = new ArrayList<>();
 		try {
-			ArrayList<TemporalEdge> temporal_edges = new ArrayList<>();
-			BufferedReader tg_br = new BufferedReader(new FileReader(fni));
-			String line = tg_br.readLine();
-			while (line != null && line.length() > 0) {
-				String[] split_line = line.split(",");
-				int u = Integer.parseInt(split_line[0]);
-				int v = Integer.parseInt(split_line[1]);
-				int t = Integer.parseInt(split_line[2]);
-				int w = Integer.parseInt(split_line[3]);
-				TemporalEdge te = new TemporalEdge(u, v, t, w);
-				temporal_edges.add(te);
-				line = tg_br.readLine();
+			run = new int[4 * Math.min(run_size, 1 << 10)];
+			int n = 0;
+			LinkStreamFile.Header header = new LinkStreamFile.Header();
+			try (BufferedReader tg_br = new BufferedReader(new FileReader(fni))) {
+				String line = tg_br.readLine();
+				while (line != null && line.length() > 0) {
+					String[] split_line = line.split(",");
+					if (n == run_size) {
+						runs.add(spill_run(sort_run(n), n));
+						n = 0;
+					}
+					if (4 * n == run.length) {
+						run = Arrays.copyOf(run, 4 * Math.min(run_size, 2 * n));
+					}
+					run[4 * n] = Integer.parseInt(split_line[2]);
+					run[4 * n + 1] = Integer.parseInt(split_line[0]);
+					run[4 * n + 2] = Integer.parseInt(split_line[1]);
+					run[4 * n + 3] = Integer.parseInt(split_line[3]);
+					if (fnb != null) {
+						header.add(run[4 * n + 1], run[4 * n + 2], run[4 * n]);
+					}
+					n = n + 1;
+					line = tg_br.readLine();
+				}
 			}
-			tg_br.close();
-			Collections.sort(temporal_edges, new YearCompare());
-			BufferedWriter tg_bw = new BufferedWriter(new FileWriter(fno));
-			for (int i = 0; i < temporal_edges.size(); i++) {
-				TemporalEdge te = temporal_edges.get(i);
-				tg_bw.write(te.u + "," + te.v + "," + te.t + "," + te.w + "\n");
+			int[] sorted = sort_run(n);
+			run = null;
+			try (RecordWriter tg_rw = new RecordWriter(fno);
+					LinkStreamFile.Writer tg_bin = fnb == null ? null : new LinkStreamFile.Writer(fnb, header)) {
+				if (runs.isEmpty()) {
+					for (int i = 0; i < n; i++) {
+						tg_rw.csv_line(sorted[4 * i + 1], sorted[4 * i + 2], sorted[4 * i], sorted[4 * i + 3]);
+						if (tg_bin != null) {
+							tg_bin.add(sorted[4 * i + 1], sorted[4 * i + 2], sorted[4 * i], sorted[4 * i + 3]);
+						}
+					}
+				} else {
+					runs.add(spill_run(sorted, n));
+					sorted = null;
+					merge_runs(runs, tg_rw, tg_bin);
+				}
 			}
-			tg_bw.close();
 		} catch (Exception e) {
 			e.printStackTrace();
+		} finally {
+			for (File f : runs) {
+				f.delete();
+			}
 		}
 	}
 
 	/**
 	 * Invoke the sorting method on the two temporal graph files with all papers and
-	 * only with conference papers, respectively.
-	 * 
+	 * only with conference papers, respectively. If required, the sorted temporal
+	 * graphs are also saved in the binary format (see the LinkStreamFile class).
+	 *
 	 * @param conf : conference acronym
 	 */
 	public void sort(String conf) {
-		sort("./conferences/" + conf + "/temporal_graph.txt", "./conferences/" + conf + "/temporal_graph_sorted.txt");
-		sort("./conferences/" + conf + "/temporal_graph_conf.txt",
-				"./conferences/" + conf + "/temporal_graph_conf_sorted.txt");
+		String path = "./conferences/" + conf + "/";
+		boolean binary = LinkStreamFile.save_binary;
+		sort(path + "temporal_graph.txt", path + "temporal_graph_sorted.txt",
+				binary ? path + "temporal_graph_sorted.bin" : null);
+		sort(path + "temporal_graph_conf.txt", path + "temporal_graph_conf_sorted.txt",
+				binary ? path + "temporal_graph_conf_sorted.bin" : null);
 	}
 
 	/**
-	 * Invoke the sorting method.
-	 * 
+	 * Invoke the sorting method (measured as phase4, see the PhaseMetrics class).
+	 *
 	 * @param conf : conference acronym
 	 */
 	public static void main(String conf) {
-		(new TemporalGraphSorter()).sort(conf);
+		try (PhaseMetrics m = PhaseMetrics.start("phase4", conf)) {
+			(new TemporalGraphSorter()).sort(conf);
+			m.add_file("./conferences/" + conf + "/temporal_graph_sorted.txt");
+			m.add_file("./conferences/" + conf + "/temporal_graph_conf_sorted.txt");
+			if (LinkStreamFile.save_binary) {
+				m.add_file("./conferences/" + conf + "/temporal_graph_sorted.bin");
+				m.add_file("./conferences/" + conf + "/temporal_graph_conf_sorted.bin");
+			}
+		}
 	}
 
 }
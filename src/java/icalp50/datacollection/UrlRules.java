@@ -0,0 +1,274 @@
+package icalp50.datacollection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * URL rules of a conference, compiled once from the DBLP directory, the prefix,
+ * the first year, and the last year of each edition of the conference and from
+ * the exceptions of the conference. A publication is a paper of an edition if
+ * its URL (in upper case) contains the directory followed by / and the prefix,
+ * it does not contain the directory followed by /, the prefix, and the letter
+ * w, it does not contain the directory followed by /, the prefix, the year of
+ * the publication, and the letter w, it does not contain any exception, and the
+ * year of the publication is between the first and the last year of the
+ * edition. All the patterns are searched in one pass over the URL by an
+ * Aho-Corasick automaton.
+ *
+ * The classify method uses scratch arrays of the instance, so that it does not
+ * allocate memory: an instance must be classifying publications in only one
+ * thread at a time (the matches method can be used by several threads).
+ */
+public class UrlRules {
+	/**
+	 * Type of a pattern: the directory followed by / and the prefix of an edition,
+	 * the same followed by the letter w, and an exception.
+	 */
+	static final int PREFIX = 0;
+	static final int WORKSHOP = 1;
+	static final int EXCEPTION = 2;
+
+	int[] fy;
+	int[] ly;
+	/**
+	 * Directory followed by / and the prefix of each edition, in upper case (after
+	 * each of its occurrences, the URL is checked not to continue with the year of
+	 * the publication followed by the letter w).
+	 */
+	String[] prefix;
+	int[] pattern_type;
+	int[] pattern_edition;
+
+	/**
+	 * Automaton: the transition of state s with symbol a is delta[s][a] (symbol 0
+	 * is used for all characters not appearing in the patterns), while the
+	 * patterns recognized in state s (including the ones recognized by following
+	 * the failure links) are output[s].
+	 */
+	int[][] delta;
+	int[][] output;
+	int[] ascii_symbol = new int[128];
+	Map<Character, Integer> other_symbol = new HashMap<>();
+	int num_symbols = 1;
+	/**
+	 * Scratch arrays of the classify method (one element per edition).
+	 */
+	boolean[] has_prefix;
+	boolean[] excluded;
+
+	/**
+	 * Compile the URL rules of a conference.
+	 *
+	 * @param dir        : DBLP directory of each edition
+	 * @param conf       : prefix of the DBLP file of each edition
+	 * @param fy         : first year of each edition
+	 * @param ly         : last year of each edition
+	 * @param exceptions : strings which should not appear in the URL
+	 */
+	public UrlRules(String[] dir, String[] conf, int[] fy, int[] ly, String[] exceptions) {
+		int ne = conf.length;
+		this.fy = fy;
+		this.ly = ly;
+		prefix = new String[ne];
+		has_prefix = new boolean[ne];
+		excluded = new boolean[ne];
+		List<String> patterns = new ArrayList<>();
+		List<int[]> info = new ArrayList<>();
+		for (int c = 0; c < ne; c++) {
+			prefix[c] = dir[c].toUpperCase() + "/" + conf[c].toUpperCase();
+			patterns.add(prefix[c]);
+			info.add(new int[] { PREFIX, c });
+			patterns.add(dir[c].toUpperCase() + "/" + (conf[c] + "w").toUpperCase());
+			info.add(new int[] { WORKSHOP, c });
+		}
+		for (int e = 0; e < exceptions.length; e++) {
+			patterns.add(exceptions[e].toUpperCase());
+			info.add(new int[] { EXCEPTION, e });
+		}
+		int np = patterns.size();
+		pattern_type = new int[np];
+		pattern_edition = new int[np];
+		for (int p = 0; p < np; p++) {
+			pattern_type[p] = info.get(p)[0];
+			pattern_edition[p] = info.get(p)[1];
+		}
+		build_automaton(patterns);
+	}
+
+	int symbol(char ch) {
+		if (ch < 128) {
+			return ascii_symbol[ch];
+		}
+		Integer a = other_symbol.get(ch);
+		return a == null ? 0 : a;
+	}
+
+	/**
+	 * Build the Aho-Corasick automaton recognizing the patterns: first the trie of
+	 * the patterns is built, then the failure links are computed by a breadth
+	 * first visit of the trie and the transitions are completed.
+	 *
+	 * @param patterns : the patterns
+	 */
+	void build_automaton(List<String> patterns) {
+		for (String pattern : patterns) {
+			for (int i = 0; i < pattern.length(); i++) {
+				char ch = pattern.charAt(i);
+				if (symbol(ch) == 0) {
+					if (ch < 128) {
+						ascii_symbol[ch] = num_symbols;
+					} else {
+						other_symbol.put(ch, num_symbols);
+					}
+					num_symbols = num_symbols + 1;
+				}
+			}
+		}
+		List<int[]> trie = new ArrayList<>();
+		List<List<Integer>> trie_output = new ArrayList<>();
+		trie.add(new int[num_symbols]);
+		trie_output.add(new ArrayList<>());
+		for (int p = 0; p < patterns.size(); p++) {
+			String pattern = patterns.get(p);
+			int s = 0;
+			for (int i = 0; i < pattern.length(); i++) {
+				int a = symbol(pattern.charAt(i));
+				if (trie.get(s)[a] == 0) {
+					trie.get(s)[a] = trie.size();
+					trie.add(new int[num_symbols]);
+					trie_output.add(new ArrayList<>());
+				}
+				s = trie.get(s)[a];
+			}
+			trie_output.get(s).add(p);
+		}
+		int ns = trie.size();
+		delta = trie.toArray(new int[ns][]);
+		int[] failure = new int[ns];
+		int[] queue = new int[ns];
+		int head = 0;
+		int tail = 0;
+		for (int a = 0; a < num_symbols; a++) {
+			if (delta[0][a] != 0) {
+				queue[tail++] = delta[0][a];
+			}
+		}
+		while (head < tail) {
+			int s = queue[head++];
+			trie_output.get(s).addAll(trie_output.get(failure[s]));
+			for (int a = 0; a < num_symbols; a++) {
+				int t = delta[s][a];
+				if (t != 0) {
+					failure[t] = delta[failure[s]][a];
+					queue[tail++] = t;
+				} else {
+					delta[s][a] = delta[failure[s]][a];
+				}
+			}
+		}
+		output = new int[ns][];
+		for (int s = 0; s < ns; s++) {
+			output[s] = trie_output.get(s).stream().mapToInt(Integer::intValue).toArray();
+		}
+	}
+
+	/**
+	 * Check whether the URL contains the directory followed by / and the prefix of
+	 * one of the editions (this is a necessary condition for a publication to be a
+	 * conference paper).
+	 *
+	 * @param upper_url : URL of the publication in upper case
+	 * @return : true if the URL contains the prefix of one of the editions
+	 */
+	public boolean matches(String upper_url) {
+		int s = 0;
+		for (int i = 0; i < upper_url.length(); i++) {
+			s = delta[s][symbol(upper_url.charAt(i))];
+			for (int p : output[s]) {
+				if (pattern_type[p] == PREFIX) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Classify a publication with respect to the editions of the conference.
+	 *
+	 * @param upper_url : URL of the publication in upper case
+	 * @param year      : year of the publication
+	 * @return : -1 if the URL does not contain the prefix of any edition,
+	 *         otherwise the number of editions of which the publication is a paper
+	 */
+	public int classify(String upper_url, int year) {
+		int ne = prefix.length;
+		Arrays.fill(has_prefix, false);
+		Arrays.fill(excluded, false);
+		boolean any_prefix = false;
+		boolean any_exception = false;
+		int s = 0;
+		for (int i = 0; i < upper_url.length(); i++) {
+			s = delta[s][symbol(upper_url.charAt(i))];
+			for (int p : output[s]) {
+				int c = pattern_edition[p];
+				if (pattern_type[p] == EXCEPTION) {
+					any_exception = true;
+				} else if (pattern_type[p] == PREFIX) {
+					has_prefix[c] = true;
+					any_prefix = true;
+					if (starts_with_year_w(upper_url, i + 1, year)) {
+						excluded[c] = true;
+					}
+				} else {
+					excluded[c] = true;
+				}
+			}
+		}
+		if (!any_prefix) {
+			return -1;
+		}
+		if (any_exception) {
+			return 0;
+		}
+		int count = 0;
+		for (int c = 0; c < ne; c++) {
+			if (has_prefix[c] && !excluded[c] && fy[c] <= year && ly[c] >= year) {
+				count = count + 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Check whether the string contains the year followed by the letter W at the
+	 * given position (without creating the string of the year).
+	 *
+	 * @param s    : the string
+	 * @param from : the position
+	 * @param year : the year
+	 * @return : true if the year followed by W starts at the position
+	 */
+	static boolean starts_with_year_w(String s, int from, int year) {
+		if (year < 0) {
+			return s.startsWith(year + "W", from);
+		}
+		int digits = 1;
+		for (int y = year / 10; y > 0; y = y / 10) {
+			digits = digits + 1;
+		}
+		if (from + digits >= s.length() || s.charAt(from + digits) != 'W') {
+			return false;
+		}
+		for (int i = from + digits - 1; i >= from; i--) {
+			if (s.charAt(i) != '0' + year % 10) {
+				return false;
+			}
+			year = year / 10;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,334 @@
+package icalp50.datamining;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import icalp50.utilities.MinHashSketch;
+
+/**
+ * Sorensen-Dice index of the author sets of pairs of conferences, as computed
+ * by the similarity_indices functions of dataminerutils.jl, estimated from
+ * MinHash sketches of the author keys (the estimated Jaccard index J is
+ * converted into the Sorensen-Dice index 2J/(1+J)). Each pair of conferences
+ * costs time proportional to the size of the sketches instead of the size of
+ * the author sets. For verification, the indices can also be computed exactly
+ * from the author sets.
+ *
+ * The sketches describe the same author sets as the exact computation: the
+ * index of two conferences uses the sketches saved by the first phase of the
+ * analysis (author_sketches.txt, whose union is the sketch of the authors in
+ * id_name_key.txt), while the indices of each year use the sketches saved by
+ * the second phase (paper_author_sketches.txt, with the authors of the papers
+ * of each year in papers.txt).
+ */
+public class AuthorSimilarity {
+	static double dice(double jaccard) {
+		return 2 * jaccard / (1 + jaccard);
+	}
+
+	static double dice(Set<String> as1, Set<String> as2) {
+		if (as1.isEmpty() && as2.isEmpty()) {
+			return 0;
+		}
+		int intersection = 0;
+		for (String key : as1) {
+			if (as2.contains(key)) {
+				intersection = intersection + 1;
+			}
+		}
+		return dice((double) intersection / (as1.size() + as2.size() - intersection));
+	}
+
+	/**
+	 * Return the cumulative sketch of each year from the first to the last year of
+	 * the conference, that is, the sketch of the authors who have published in the
+	 * conference up to that year.
+	 *
+	 * @param year_sketch : sketch of each year
+	 * @return : the cumulative sketch of each year
+	 */
+	static TreeMap<Integer, MinHashSketch> cumulative(TreeMap<Integer, MinHashSketch> year_sketch) {
+		TreeMap<Integer, MinHashSketch> cumulative = new TreeMap<>();
+		if (year_sketch.isEmpty()) {
+			return cumulative;
+		}
+		MinHashSketch sketch = new MinHashSketch();
+		for (int y = year_sketch.firstKey(); y <= year_sketch.lastKey(); y++) {
+			if (year_sketch.containsKey(y)) {
+				sketch.union(year_sketch.get(y));
+			}
+			cumulative.put(y, sketch.copy());
+		}
+		return cumulative;
+	}
+
+	/**
+	 * Return the set of the DBLP keys of all authors of the conference.
+	 *
+	 * @param conf : conference acronym
+	 * @return : the set of author keys
+	 * @throws IOException
+	 */
+	static Set<String> author_key_set(String conf) throws IOException {
+		return new HashSet<>(author_id_key(conf).values());
+	}
+
+	static Map<Integer, String> author_id_key(String conf) throws IOException {
+		Map<Integer, String> id_key = new HashMap<>();
+		BufferedReader id_key_br = new BufferedReader(
+				new FileReader("./conferences/" + conf + "/id_name_key.txt", StandardCharsets.UTF_8));
+		String line = id_key_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split("##");
+			id_key.put(Integer.parseInt(split_line[1]), split_line[5]);
+			line = id_key_br.readLine();
+		}
+		id_key_br.close();
+		return id_key;
+	}
+
+	/**
+	 * Return, for each year from the first to the last year of the papers of the
+	 * conference, the set of the DBLP keys of the authors who have published in
+	 * the conference up to that year.
+	 *
+	 * @param conf : conference acronym
+	 * @return : the cumulative set of author keys of each year
+	 * @throws IOException
+	 */
+	static TreeMap<Integer, Set<String>> author_cumulative_key_set_year(String conf) throws IOException {
+		Map<Integer, String> id_key = author_id_key(conf);
+		TreeMap<Integer, Set<String>> year_authors = new TreeMap<>();
+		BufferedReader papers_br = new BufferedReader(
+				new FileReader("./conferences/" + conf + "/papers.txt", StandardCharsets.UTF_8));
+		String line = papers_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split("##");
+			Set<String> authors = year_authors.computeIfAbsent(Integer.parseInt(split_line[1]), y -> new HashSet<>());
+			String author_list = split_line[5];
+			if (author_list.length() > 2) {
+				for (String id : author_list.substring(1, author_list.length() - 1).split(",")) {
+					authors.add(id_key.get(Integer.parseInt(id.trim())));
+				}
+			}
+			line = papers_br.readLine();
+		}
+		papers_br.close();
+		TreeMap<Integer, Set<String>> cumulative = new TreeMap<>();
+		if (year_authors.isEmpty()) {
+			return cumulative;
+		}
+		Set<String> authors = new HashSet<>();
+		for (int y = year_authors.firstKey(); y <= year_authors.lastKey(); y++) {
+			if (year_authors.containsKey(y)) {
+				authors.addAll(year_authors.get(y));
+			}
+			cumulative.put(y, new HashSet<>(authors));
+		}
+		return cumulative;
+	}
+
+	/**
+	 * Compute the Sorensen-Dice index of the author sets of each pair of
+	 * conferences.
+	 *
+	 * @param conf  : conference acronyms
+	 * @param exact : true if the indices have to be computed from the author sets
+	 * @return : the matrix of the indices
+	 * @throws IOException
+	 */
+	public static double[][] similarity_indices(String[] conf, boolean exact) throws IOException {
+		int nc = conf.length;
+		double[][] si = new double[nc][nc];
+		if (exact) {
+			List<Set<String>> as = new ArrayList<>();
+			for (int c = 0; c < nc; c++) {
+				as.add(author_key_set(conf[c]));
+			}
+			for (int c1 = 0; c1 < nc; c1++) {
+				for (int c2 = 0; c2 < nc; c2++) {
+					si[c1][c2] = dice(as.get(c1), as.get(c2));
+				}
+			}
+		} else {
+			MinHashSketch[] sketch = new MinHashSketch[nc];
+			for (int c = 0; c < nc; c++) {
+				sketch[c] = new MinHashSketch();
+				for (MinHashSketch ys : MinHashSketch.read(sketch_file_name(conf[c])).values()) {
+					sketch[c].union(ys);
+				}
+			}
+			for (int c1 = 0; c1 < nc; c1++) {
+				for (int c2 = 0; c2 < nc; c2++) {
+					si[c1][c2] = dice(sketch[c1].jaccard(sketch[c2]));
+				}
+			}
+		}
+		return si;
+	}
+
+	/**
+	 * Compute, for each year of the conference and for each other conference, the
+	 * Sorensen-Dice index of the sets of authors who have published in the two
+	 * conferences up to that year (the index is 0 if the year is not in the range
+	 * of years of the other conference).
+	 *
+	 * @param conf_name : conference acronym
+	 * @param conf      : acronyms of the other conferences
+	 * @param exact     : true if the indices have to be computed from the author
+	 *                  sets
+	 * @return : the indices of each year (one per other conference)
+	 * @throws IOException
+	 */
+	public static TreeMap<Integer, double[]> similarity_indices(String conf_name, String[] conf, boolean exact)
+			throws IOException {
+		TreeMap<Integer, double[]> si = new TreeMap<>();
+		if (exact) {
+			TreeMap<Integer, Set<String>> acks = author_cumulative_key_set_year(conf_name);
+			for (int y : acks.keySet()) {
+				si.put(y, new double[conf.length]);
+			}
+			for (int c = 0; c < conf.length; c++) {
+				TreeMap<Integer, Set<String>> acksc = author_cumulative_key_set_year(conf[c]);
+				for (int y : acks.keySet()) {
+					if (acksc.containsKey(y)) {
+						si.get(y)[c] = dice(acks.get(y), acksc.get(y));
+					}
+				}
+			}
+		} else {
+			TreeMap<Integer, MinHashSketch> acks = cumulative(MinHashSketch.read(paper_sketch_file_name(conf_name)));
+			for (int y : acks.keySet()) {
+				si.put(y, new double[conf.length]);
+			}
+			for (int c = 0; c < conf.length; c++) {
+				TreeMap<Integer, MinHashSketch> acksc = cumulative(
+						MinHashSketch.read(paper_sketch_file_name(conf[c])));
+				for (int y : acks.keySet()) {
+					if (acksc.containsKey(y)) {
+						si.get(y)[c] = dice(acks.get(y).jaccard(acksc.get(y)));
+					}
+				}
+			}
+		}
+		return si;
+	}
+
+	static String sketch_file_name(String conf) {
+		return "./conferences/" + conf + "/author_sketches.txt";
+	}
+
+	static String paper_sketch_file_name(String conf) {
+		return "./conferences/" + conf + "/paper_author_sketches.txt";
+	}
+
+	static void save_matrix(String[] row, String[] column, double[][] si, String fno) throws IOException {
+		BufferedWriter si_bw = new BufferedWriter(new FileWriter(fno));
+		si_bw.write("conf," + String.join(",", column) + "\n");
+		for (int r = 0; r < row.length; r++) {
+			StringBuilder line = new StringBuilder(row[r]);
+			for (int c = 0; c < column.length; c++) {
+				line.append(",").append(si[r][c]);
+			}
+			si_bw.write(line.append("\n").toString());
+		}
+		si_bw.close();
+	}
+
+	static double max_difference(double[][] a, double[][] b) {
+		double max = 0;
+		for (int r = 0; r < a.length; r++) {
+			for (int c = 0; c < a[r].length; c++) {
+				max = Math.max(max, Math.abs(a[r][c] - b[r][c]));
+			}
+		}
+		return max;
+	}
+
+	static double max_difference(TreeMap<Integer, double[]> a, TreeMap<Integer, double[]> b) {
+		double max = 0;
+		for (int y : a.keySet()) {
+			if (b.containsKey(y)) {
+				max = Math.max(max, max_difference(new double[][] { a.get(y) }, new double[][] { b.get(y) }));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Save the indices of each year of a conference, one row per other conference
+	 * and one column per year.
+	 *
+	 * @param conf : acronyms of the other conferences
+	 * @param si   : the indices of each year
+	 * @param fno  : file on which the indices are saved
+	 * @throws IOException
+	 */
+	static void save_years(String[] conf, TreeMap<Integer, double[]> si, String fno) throws IOException {
+		String[] column = new String[si.size()];
+		double[][] matrix = new double[conf.length][si.size()];
+		int yi = 0;
+		for (Map.Entry<Integer, double[]> entry : si.entrySet()) {
+			column[yi] = "" + entry.getKey();
+			for (int c = 0; c < conf.length; c++) {
+				matrix[c][yi] = entry.getValue()[c];
+			}
+			yi = yi + 1;
+		}
+		save_matrix(conf, column, matrix, fno);
+	}
+
+	/**
+	 * Compute the similarity indices of the conferences from the sketches and save
+	 * the matrix of the indices of all pairs of conferences in the file
+	 * ./conferences/similarity_indices.txt and, for each conference, the indices
+	 * with the other conferences in each year in the file similarity_years.txt of
+	 * the conference. If the verification is required, the saved indices are the
+	 * exact ones and the maximum difference from the estimated ones is printed
+	 * (since the sketches and the exact sets contain the same authors, the
+	 * difference is only due to the error of the MinHash estimate).
+	 *
+	 * @param conf   : conference acronyms
+	 * @param verify : true if the indices have to be computed exactly
+	 */
+	public static void main(String[] conf, boolean verify) {
+		try {
+			double[][] si = similarity_indices(conf, false);
+			if (verify) {
+				double[][] exact_si = similarity_indices(conf, true);
+				System.out.println("Maximum difference of the conference indices: " + max_difference(si, exact_si));
+				si = exact_si;
+			}
+			save_matrix(conf, conf, si, "./conferences/similarity_indices.txt");
+			for (int c = 0; c < conf.length; c++) {
+				String[] other = new String[conf.length - 1];
+				for (int d = 0, o = 0; d < conf.length; d++) {
+					if (d != c) {
+						other[o++] = conf[d];
+					}
+				}
+				TreeMap<Integer, double[]> siy = similarity_indices(conf[c], other, false);
+				if (verify) {
+					TreeMap<Integer, double[]> exact_siy = similarity_indices(conf[c], other, true);
+					System.out.println("Maximum difference of the " + conf[c] + " yearly indices: "
+							+ max_difference(siy, exact_siy));
+					siy = exact_siy;
+				}
+				save_years(other, siy, "./conferences/" + conf[c] + "/similarity_years.txt");
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package icalp50.datamining;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import icalp50.utilities.TitleNgramIndex;
+
+/**
+ * Top-k n-grams of the paper titles of one or more conferences and their
+ * evolution over time, as computed by the word_evolution and bigram_evolution
+ * functions of titleminerutils.jl, obtained by merging the per-year counts of
+ * the n-gram indices saved by the first phase of the analysis instead of
+ * tokenizing again the titles for every query. The bigrams are formed inside
+ * each title, so that their counts do not include the bigrams across two
+ * titles of bigram_evolution (see TitleNgramIndex).
+ */
+public class TitleMiner {
+	/**
+	 * The n-grams discarded by default (the forbidden_words of Miner.jl).
+	 */
+	public static final Set<String> FORBIDDEN = new HashSet<>(Arrays.asList(",", ";", ":", ".", "{", "}", "[", "]",
+			"(", ")", "!", "?", "/", "1", "2", "3", "4", "5", "6", "7", "8", "9", "brief", "announcement",
+			"brief announcement", "extended abstract"));
+
+	/**
+	 * Return the merged n-gram index of the conferences.
+	 *
+	 * @param conf : conference acronyms
+	 * @return : the n-gram index
+	 * @throws IOException
+	 */
+	public static TitleNgramIndex index(String[] conf) throws IOException {
+		TitleNgramIndex index = new TitleNgramIndex();
+		for (String c : conf) {
+			index.merge(TitleNgramIndex.read("./conferences/" + c + "/title_ngrams.txt"));
+		}
+		return index;
+	}
+
+	/**
+	 * Return the k most frequent n-grams in the titles of a range of years which
+	 * are not forbidden, by decreasing frequency (ties are broken alphabetically).
+	 * If k is zero, all n-grams are returned, as in the conf_word_frequencies
+	 * function of titleminerutils.jl.
+	 *
+	 * @param index     : the n-gram index
+	 * @param n         : 1 for the words and 2 for the bigrams
+	 * @param k         : number of n-grams (0 for all n-grams)
+	 * @param fy        : first year of the range
+	 * @param ly        : last year of the range
+	 * @param forbidden : n-grams to be discarded
+	 * @return : the top-k n-grams
+	 */
+	public static List<String> top_k(TitleNgramIndex index, int n, int k, int fy, int ly, Set<String> forbidden) {
+		Map<String, Integer> count = index.counts(n, fy, ly);
+		List<String> ngrams = new ArrayList<>();
+		for (String ngram : count.keySet()) {
+			if (!forbidden.contains(ngram)) {
+				ngrams.add(ngram);
+			}
+		}
+		ngrams.sort((String g1, String g2) -> count.get(g1).equals(count.get(g2)) ? g1.compareTo(g2)
+				: count.get(g2) - count.get(g1));
+		return k > 0 ? ngrams.subList(0, Math.min(k, ngrams.size())) : ngrams;
+	}
+
+	/**
+	 * Return the evolution of the n-grams, that is, for each period of step years
+	 * starting from the first year, the total number of n-grams in the titles of
+	 * the period followed by the number of occurrences of each n-gram.
+	 *
+	 * @param index  : the n-gram index
+	 * @param n      : 1 for the words and 2 for the bigrams
+	 * @param fy     : first year
+	 * @param ly     : last year
+	 * @param step   : number of years of each period
+	 * @param ngrams : the n-grams to be followed
+	 * @return : one row per period
+	 */
+	public static List<int[]> evolution(TitleNgramIndex index, int n, int fy, int ly, int step, List<String> ngrams) {
+		List<int[]> evolution = new ArrayList<>();
+		for (int y = fy; y <= ly; y = y + step) {
+			Map<String, Integer> count = index.counts(n, y, y + step - 1);
+			int[] row = new int[ngrams.size() + 1];
+			for (int c : count.values()) {
+				row[0] = row[0] + c;
+			}
+			for (int g = 0; g < ngrams.size(); g++) {
+				row[g + 1] = count.getOrDefault(ngrams.get(g), 0);
+			}
+			evolution.add(row);
+		}
+		return evolution;
+	}
+
+	/**
+	 * Compute the top-k n-grams of the titles of the conferences (the forbidden
+	 * words of Miner.jl are discarded) and save them in the file
+	 * ./titles/name/top_ngrams_n.txt (one line ngram,count per n-gram) and their
+	 * evolution in the file ./titles/name/ngram_evolution_n.txt (one line per
+	 * period with the period, the total number of n-grams, and the number of
+	 * occurrences of each top n-gram, in alphabetical order).
+	 *
+	 * @param n    : 1 for the words and 2 for the bigrams
+	 * @param k    : number of n-grams (0 for all n-grams)
+	 * @param step : number of years of each period
+	 * @param name : name of the output directory
+	 * @param conf : conference acronyms
+	 */
+	public static void main(int n, int k, int step, String name, String[] conf) {
+		try {
+			TitleNgramIndex index = index(conf);
+			if (index.years().isEmpty()) {
+				return;
+			}
+			int fy = Collections.min(index.years());
+			int ly = Collections.max(index.years());
+			String path = "./titles/" + name + "/";
+			Files.createDirectories(Paths.get(path));
+			List<String> top = top_k(index, n, k, fy, ly, FORBIDDEN);
+			Map<String, Integer> count = index.counts(n, fy, ly);
+			BufferedWriter top_bw = new BufferedWriter(new FileWriter(path + "top_ngrams_" + n + ".txt"));
+			for (String ngram : top) {
+				top_bw.write(ngram + "," + count.get(ngram) + "\n");
+			}
+			top_bw.close();
+			List<String> ngrams = new ArrayList<>(top);
+			Collections.sort(ngrams);
+			List<int[]> evolution = evolution(index, n, fy, ly, step, ngrams);
+			BufferedWriter evol_bw = new BufferedWriter(new FileWriter(path + "ngram_evolution_" + n + ".txt"));
+			evol_bw.write("period,total," + String.join(",", ngrams) + "\n");
+			for (int p = 0; p < evolution.size(); p++) {
+				int y = fy + p * step;
+				StringBuilder line = new StringBuilder(y + "-" + (y + step - 1));
+				for (int c : evolution.get(p)) {
+					line.append(",").append(c);
+				}
+				evol_bw.write(line.append("\n").toString());
+			}
+			evol_bw.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
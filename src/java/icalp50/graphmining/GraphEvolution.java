@@ -0,0 +1,292 @@
+package icalp50.graphmining;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import icalp50.datacollection.LinkStream;
+import icalp50.utilities.LongIntHashMap;
+
+/**
+ * Year by year evolution of the static graph of a conference, computed as in
+ * the graph_evolution function of graphminerutils.jl but in one sweep of the
+ * temporal graph sorted by year: the graph of a year contains all the edges up
+ * to that year, and its nodes are numbered in order of appearance. The
+ * connected components are kept by a union-find structure, which also counts
+ * the nodes and the edges of each component. Every given number of years the
+ * distance based metrics of the largest connected component are computed on
+ * the compressed sparse row graph built from the edges of the component seen
+ * so far (the metrics of the previous computation are reused if no edge has
+ * been added since then), by using the same fork-join pool for all years.
+ *
+ * The compressed sparse row graph is not grown incrementally: it is rebuilt
+ * from the edge list at each computation, since the metrics need the largest
+ * component with its nodes renumbered (see the lcc_graph method), and the
+ * renumbering changes whenever components merge. The rebuild costs
+ * O(n + m log d) time and O(n + m) memory per computation (n, m, and d are the
+ * nodes, the edges, and the maximum degree of the graph): this is comparable to
+ * the computation of the diameter and of the metrics from a few hundred
+ * sampled sources, and negligible with respect to the exact metrics (which
+ * visit the graph from all its nodes).
+ */
+public class GraphEvolution {
+	/**
+	 * Statistics of the graph of one year (the distance based metrics are -1 if
+	 * they have not been computed for the year).
+	 */
+	public static class YearStatistics {
+		public int year;
+		public int nodes;
+		public int edges;
+		public int components;
+		public int lcc_nodes;
+		public int lcc_edges;
+		public int diameter = -1;
+		public int effective_diameter = -1;
+		public double degrees_of_separation = -1;
+	}
+
+	int[] node = new int[1024];
+	int num_nodes = 0;
+	int[] parent = new int[1024];
+	int[] size = new int[1024];
+	int[] comp_edges = new int[1024];
+	int num_components = 0;
+	int lcc = -1;
+	int[] eu = new int[1024];
+	int[] ev = new int[1024];
+	int num_edges = 0;
+	LongIntHashMap edge_set = new LongIntHashMap();
+	/**
+	 * Number of edges of the graph when the distance based metrics have been
+	 * computed last (-1 if they have never been computed), and these metrics.
+	 */
+	int metrics_edges = -1;
+	YearStatistics last_metrics;
+
+	/**
+	 * Return the dense id of the author, by adding a new node if the author has
+	 * not been met yet.
+	 *
+	 * @param id : author id
+	 * @return : the dense id of the author
+	 */
+	int add_node(int id) {
+		if (id >= node.length) {
+			int old_length = node.length;
+			node = Arrays.copyOf(node, Math.max(2 * old_length, id + 1));
+			Arrays.fill(node, old_length, node.length, 0);
+		}
+		if (node[id] == 0) {
+			if (num_nodes == parent.length) {
+				parent = Arrays.copyOf(parent, 2 * num_nodes);
+				size = Arrays.copyOf(size, 2 * num_nodes);
+				comp_edges = Arrays.copyOf(comp_edges, 2 * num_nodes);
+			}
+			parent[num_nodes] = num_nodes;
+			size[num_nodes] = 1;
+			comp_edges[num_nodes] = 0;
+			num_nodes = num_nodes + 1;
+			num_components = num_components + 1;
+			node[id] = num_nodes;
+			if (lcc < 0) {
+				lcc = num_nodes - 1;
+			}
+		}
+		return node[id] - 1;
+	}
+
+	int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Add an undirected edge between two nodes (if it is not already in the
+	 * graph), by merging the components of the two nodes. The largest component
+	 * is the one containing the node with the smallest dense id among the
+	 * components of maximum size, as in the lcc_subgraph function of
+	 * graphminerutils.jl: since the root of a component is always its smallest
+	 * node, this is the component with the smallest root.
+	 *
+	 * @param x : first node
+	 * @param y : second node
+	 */
+	void add_edge(int x, int y) {
+		long key = x < y ? LongIntHashMap.pack(x, y) : LongIntHashMap.pack(y, x);
+		if (x == y || edge_set.contains(key)) {
+			return;
+		}
+		edge_set.put(key, 1);
+		if (num_edges == eu.length) {
+			eu = Arrays.copyOf(eu, 2 * num_edges);
+			ev = Arrays.copyOf(ev, 2 * num_edges);
+		}
+		eu[num_edges] = x;
+		ev[num_edges] = y;
+		num_edges = num_edges + 1;
+		int rx = find(x);
+		int ry = find(y);
+		if (rx == ry) {
+			comp_edges[rx]++;
+			return;
+		}
+		int root = Math.min(rx, ry);
+		int child = Math.max(rx, ry);
+		parent[child] = root;
+		size[root] = size[root] + size[child];
+		comp_edges[root] = comp_edges[root] + comp_edges[child] + 1;
+		num_components = num_components - 1;
+		int best = find(lcc);
+		if (size[root] > size[best] || (size[root] == size[best] && root < best)) {
+			lcc = root;
+		}
+	}
+
+	/**
+	 * Return the subgraph induced by the nodes of the largest connected component
+	 * of the current graph, built from the edges of the component only (the nodes
+	 * of the subgraph keep their relative order, as in the lcc method of the
+	 * StaticGraph class).
+	 *
+	 * @return : the subgraph induced by the largest connected component
+	 */
+	StaticGraph lcc_graph() {
+		int root = find(lcc);
+		int[] new_id = new int[num_nodes];
+		int n = 0;
+		for (int x = 0; x < num_nodes; x++) {
+			new_id[x] = find(x) == root ? n++ : -1;
+		}
+		int[] lcc_eu = new int[comp_edges[root]];
+		int[] lcc_ev = new int[comp_edges[root]];
+		int m = 0;
+		for (int e = 0; e < num_edges; e++) {
+			if (new_id[eu[e]] >= 0) {
+				lcc_eu[m] = new_id[eu[e]];
+				lcc_ev[m] = new_id[ev[e]];
+				m = m + 1;
+			}
+		}
+		return new StaticGraph(n, lcc_eu, lcc_ev, m);
+	}
+
+	/**
+	 * Return the statistics of the current graph.
+	 *
+	 * @param year    : the year
+	 * @param metrics : true if the distance based metrics have to be computed
+	 * @param samples : number of sampled sources (0 for the exact metrics)
+	 * @param pool    : pool computing the distance based metrics
+	 * @return : the statistics of the graph
+	 */
+	YearStatistics statistics(int year, boolean metrics, int samples, ForkJoinPool pool) {
+		YearStatistics ys = new YearStatistics();
+		ys.year = year;
+		ys.nodes = num_nodes;
+		ys.edges = num_edges;
+		ys.components = num_components;
+		if (num_nodes > 0) {
+			int root = find(lcc);
+			ys.lcc_nodes = size[root];
+			ys.lcc_edges = comp_edges[root];
+		}
+		if (metrics && num_edges != metrics_edges) {
+			StaticGraph g = num_nodes > 0 ? lcc_graph() : new StaticGraph(0, eu, ev, 0);
+			StaticGraphMetrics sgm = new StaticGraphMetrics(g, pool);
+			ys.diameter = sgm.diameter_ifub();
+			boolean sampled = samples > 0 && samples < g.num_nodes();
+			int[] sources = sgm.sample(sampled ? samples : g.num_nodes(), StaticGraphMetrics.SEED);
+			long[] freq = sgm.distance_distribution(sources, new int[sources.length]);
+			ys.effective_diameter = sgm.effective_diameter(freq, sources.length,
+					StaticGraphMetrics.EFFECTIVE_FRACTION);
+			ys.degrees_of_separation = sgm.degrees_of_separation(freq, sources.length);
+			metrics_edges = num_edges;
+			last_metrics = ys;
+		} else if (metrics) {
+			ys.diameter = last_metrics.diameter;
+			ys.effective_diameter = last_metrics.effective_diameter;
+			ys.degrees_of_separation = last_metrics.degrees_of_separation;
+		}
+		return ys;
+	}
+
+	/**
+	 * Compute the statistics of the graph of each year between the first and the
+	 * last year (the temporal edges before the first year are included in the
+	 * graph of the first year, while the years without temporal edges have the
+	 * same statistics of the previous year).
+	 *
+	 * @param ls          : the temporal graph sorted by year
+	 * @param fy          : first year to be considered
+	 * @param ly          : last year to be considered
+	 * @param period      : number of years between two computations of the
+	 *                    distance based metrics (0 if they have not to be
+	 *                    computed), which are always computed for the last year
+	 * @param samples     : number of sampled sources (0 for the exact metrics)
+	 * @param parallelism : number of threads
+	 * @return : the statistics of each year
+	 */
+	public static YearStatistics[] evolution(LinkStream ls, int fy, int ly, int period, int samples,
+			int parallelism) {
+		GraphEvolution ge = new GraphEvolution();
+		YearStatistics[] evolution = new YearStatistics[Math.max(ly - fy + 1, 0)];
+		ForkJoinPool pool = period > 0 ? new ForkJoinPool(Math.max(parallelism, 1)) : null;
+		try {
+			int e = 0;
+			for (int y = fy; y <= ly; y++) {
+				while (e < ls.size() && ls.t(e) <= y) {
+					int x = ge.add_node(ls.u(e));
+					int z = ge.add_node(ls.v(e));
+					ge.add_edge(x, z);
+					e = e + 1;
+				}
+				boolean metrics = period > 0 && ((y - fy) % period == 0 || y == ly);
+				evolution[y - fy] = ge.statistics(y, metrics, samples, pool);
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+		return evolution;
+	}
+
+	/**
+	 * Compute the evolution of the static graph of the conference from the first
+	 * to the last year of the conference, and save it in the file
+	 * graph_evolution.txt, one line
+	 * year,nodes,edges,components,lcc_nodes,lcc_edges,diameter,effective_diameter,degrees_of_separation
+	 * per year.
+	 *
+	 * @param conf        : conference acronym
+	 * @param period      : number of years between two computations of the
+	 *                    distance based metrics (0 if they have not to be
+	 *                    computed)
+	 * @param samples     : number of sampled sources (0 for the exact metrics)
+	 * @param parallelism : number of threads
+	 */
+	public static void main(String conf, int period, int samples, int parallelism) {
+		try {
+			String path = "./conferences/" + conf + "/";
+			LinkStream conf_ls = LinkStream.read(path + "temporal_graph_conf_sorted.txt");
+			LinkStream ls = LinkStream.read(path + "temporal_graph_sorted.txt");
+			int fy = conf_ls.t(0);
+			int ly = conf_ls.t(conf_ls.size() - 1);
+			YearStatistics[] evolution = evolution(ls, fy, ly, period, samples, parallelism);
+			BufferedWriter ge_bw = new BufferedWriter(new FileWriter(path + "graph_evolution.txt"));
+			for (YearStatistics ys : evolution) {
+				ge_bw.write(ys.year + "," + ys.nodes + "," + ys.edges + "," + ys.components + "," + ys.lcc_nodes + ","
+						+ ys.lcc_edges + "," + ys.diameter + "," + ys.effective_diameter + ","
+						+ ys.degrees_of_separation + "\n");
+			}
+			ge_bw.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
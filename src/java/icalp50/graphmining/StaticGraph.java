@@ -0,0 +1,166 @@
+package icalp50.graphmining;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Undirected static graph stored in compressed sparse row format: the
+ * neighbours of node u are adj[offset[u]], ..., adj[offset[u + 1] - 1], in
+ * increasing order. The nodes are the integers from 0 to n - 1, and node u
+ * corresponds to the author with id u + 1 (self loops and multiple edges are
+ * ignored).
+ */
+public class StaticGraph {
+	int n;
+	int[] offset;
+	int[] adj;
+
+	/**
+	 * Create the graph with the given edges.
+	 *
+	 * @param n  : number of nodes
+	 * @param eu : first node of each edge
+	 * @param ev : second node of each edge
+	 * @param m  : number of edges
+	 */
+	public StaticGraph(int n, int[] eu, int[] ev, int m) {
+		this.n = n;
+		int[] degree = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			if (eu[e] != ev[e]) {
+				degree[eu[e] + 1]++;
+				degree[ev[e] + 1]++;
+			}
+		}
+		for (int u = 1; u <= n; u++) {
+			degree[u] = degree[u] + degree[u - 1];
+		}
+		int[] next = Arrays.copyOf(degree, n);
+		int[] all = new int[degree[n]];
+		for (int e = 0; e < m; e++) {
+			if (eu[e] != ev[e]) {
+				all[next[eu[e]]++] = ev[e];
+				all[next[ev[e]]++] = eu[e];
+			}
+		}
+		offset = new int[n + 1];
+		int size = 0;
+		for (int u = 0; u < n; u++) {
+			Arrays.sort(all, degree[u], degree[u + 1]);
+			offset[u] = size;
+			for (int i = degree[u]; i < degree[u + 1]; i++) {
+				if (i == degree[u] || all[i] != all[i - 1]) {
+					all[size++] = all[i];
+				}
+			}
+		}
+		offset[n] = size;
+		adj = Arrays.copyOf(all, size);
+	}
+
+	/**
+	 * Read the graph saved in a static graph file, whose lines are u,v,w (the
+	 * weight w is not used).
+	 *
+	 * @param fn : file containing the static graph
+	 * @param n  : number of authors (the graph has at least n nodes)
+	 * @return : the graph
+	 * @throws IOException
+	 */
+	public static StaticGraph read(String fn, int n) throws IOException {
+		int[] eu = new int[1024];
+		int[] ev = new int[1024];
+		int m = 0;
+		BufferedReader sg_br = new BufferedReader(new FileReader(fn));
+		String line = sg_br.readLine();
+		while (line != null && line.length() > 0) {
+			int first_comma = line.indexOf(',');
+			int second_comma = line.indexOf(',', first_comma + 1);
+			if (m == eu.length) {
+				eu = Arrays.copyOf(eu, 2 * m);
+				ev = Arrays.copyOf(ev, 2 * m);
+			}
+			eu[m] = Integer.parseInt(line.substring(0, first_comma)) - 1;
+			ev[m] = Integer.parseInt(line.substring(first_comma + 1, second_comma < 0 ? line.length() : second_comma))
+					- 1;
+			n = Math.max(n, Math.max(eu[m], ev[m]) + 1);
+			m = m + 1;
+			line = sg_br.readLine();
+		}
+		sg_br.close();
+		return new StaticGraph(n, eu, ev, m);
+	}
+
+	public int num_nodes() {
+		return n;
+	}
+
+	public int num_edges() {
+		return adj.length / 2;
+	}
+
+	public int degree(int u) {
+		return offset[u + 1] - offset[u];
+	}
+
+	/**
+	 * Return the subgraph induced by the nodes of the largest connected component
+	 * (if there are several largest components, the one containing the node with
+	 * the smallest id is chosen, as in the lcc_subgraph function of
+	 * graphminerutils.jl). The nodes of the subgraph keep their relative order.
+	 *
+	 * @return : the subgraph induced by the largest connected component
+	 */
+	public StaticGraph lcc() {
+		int[] component = new int[n];
+		Arrays.fill(component, -1);
+		int[] queue = new int[n];
+		int best = -1;
+		int best_size = 0;
+		int num_components = 0;
+		for (int s = 0; s < n; s++) {
+			if (component[s] < 0) {
+				int head = 0;
+				int tail = 0;
+				component[s] = num_components;
+				queue[tail++] = s;
+				while (head < tail) {
+					int u = queue[head++];
+					for (int i = offset[u]; i < offset[u + 1]; i++) {
+						if (component[adj[i]] < 0) {
+							component[adj[i]] = num_components;
+							queue[tail++] = adj[i];
+						}
+					}
+				}
+				if (tail > best_size) {
+					best = num_components;
+					best_size = tail;
+				}
+				num_components = num_components + 1;
+			}
+		}
+		int[] new_id = new int[n];
+		int size = 0;
+		for (int u = 0; u < n; u++) {
+			new_id[u] = component[u] == best ? size++ : -1;
+		}
+		int[] eu = new int[adj.length];
+		int[] ev = new int[adj.length];
+		int m = 0;
+		for (int u = 0; u < n; u++) {
+			if (new_id[u] >= 0) {
+				for (int i = offset[u]; i < offset[u + 1]; i++) {
+					if (u < adj[i]) {
+						eu[m] = new_id[u];
+						ev[m] = new_id[adj[i]];
+						m = m + 1;
+					}
+				}
+			}
+		}
+		return new StaticGraph(size, eu, ev, m);
+	}
+}
@@ -0,0 +1,392 @@
+package icalp50.graphmining;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Distance based metrics of the largest connected component of a static graph,
+ * as computed by the diameter_ifub, effective_diameter, and
+ * degrees_of_separation functions of graphminerutils.jl. The distances are
+ * computed by a multi-source bit-parallel breadth first search, which visits
+ * the graph from 64 sources at once by keeping, for each node, a word whose
+ * i-th bit tells whether the node has been reached from the i-th source. The
+ * groups of sources are partitioned among the threads of a fork-join pool. The
+ * diameter is computed by the iFUB algorithm, while the effective diameter and
+ * the degrees of separation are computed either exactly or on a random sample
+ * of sources, in which case the Hoeffding bound is used to bound their error
+ * (the confidence of each of the three bounds is chosen so that, by the union
+ * bound, all of them hold together with the reported confidence).
+ */
+public class StaticGraphMetrics {
+	static final int SOURCES_PER_BFS = 64;
+	/**
+	 * Fraction of pairs of nodes whose distance is at most the effective
+	 * diameter.
+	 */
+	static final double EFFECTIVE_FRACTION = 0.9;
+	/**
+	 * Probability that at least one of the sampled metrics is not within the
+	 * reported error bounds.
+	 */
+	static final double DELTA = 0.05;
+	static final long SEED = 1;
+
+	StaticGraph g;
+	ForkJoinPool pool;
+
+	/**
+	 * Scratch arrays of one thread: for each node, the sources from which it has
+	 * been reached, and the sources from which it has been reached at the current
+	 * and at the next level.
+	 */
+	static class Scratch {
+		long[] seen;
+		long[] frontier;
+		long[] next;
+
+		Scratch(int n) {
+			seen = new long[n];
+			frontier = new long[n];
+			next = new long[n];
+		}
+	}
+
+	ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(g.n));
+
+	/**
+	 * Create the metric engine of a connected graph.
+	 *
+	 * @param g           : the graph
+	 * @param parallelism : number of threads
+	 */
+	public StaticGraphMetrics(StaticGraph g, int parallelism) {
+		this(g, new ForkJoinPool(Math.max(parallelism, 1)));
+	}
+
+	/**
+	 * Create the metric engine of a connected graph, which uses an existing pool
+	 * (to be shut down by its owner, so that the pool can be shared by the
+	 * engines of several graphs).
+	 *
+	 * @param g    : the graph
+	 * @param pool : pool executing the visits of the graph
+	 */
+	public StaticGraphMetrics(StaticGraph g, ForkJoinPool pool) {
+		this.g = g;
+		this.pool = pool;
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Visit the graph from at most 64 sources at once and add to the distance
+	 * frequencies the number of pairs (source, node) at each distance.
+	 *
+	 * @param sources : the sources
+	 * @param from    : index of the first source to be visited
+	 * @param to      : index after the last source to be visited
+	 * @param sc      : scratch arrays
+	 * @param freq    : distance frequencies
+	 * @param ecc     : array on which the eccentricity of each visited source is
+	 *                saved (at the same index of the source)
+	 */
+	void bit_parallel_bfs(int[] sources, int from, int to, Scratch sc, long[] freq, int[] ecc) {
+		int n = g.n;
+		int[] offset = g.offset;
+		int[] adj = g.adj;
+		long[] seen = sc.seen;
+		long[] frontier = sc.frontier;
+		long[] next = sc.next;
+		Arrays.fill(seen, 0L);
+		Arrays.fill(frontier, 0L);
+		long all = to - from == 64 ? -1L : (1L << (to - from)) - 1;
+		for (int i = from; i < to; i++) {
+			seen[sources[i]] |= 1L << (i - from);
+			frontier[sources[i]] |= 1L << (i - from);
+			ecc[i] = 0;
+		}
+		freq[0] += to - from;
+		int d = 0;
+		while (true) {
+			d = d + 1;
+			long reached = 0L;
+			long count = 0;
+			for (int v = 0; v < n; v++) {
+				long x = 0L;
+				if (seen[v] != all) {
+					for (int i = offset[v]; i < offset[v + 1]; i++) {
+						x |= frontier[adj[i]];
+					}
+					x &= ~seen[v];
+				}
+				next[v] = x;
+				reached |= x;
+				count += Long.bitCount(x);
+			}
+			if (reached == 0L) {
+				break;
+			}
+			freq[d] += count;
+			for (int v = 0; v < n; v++) {
+				seen[v] |= next[v];
+			}
+			long[] tmp = frontier;
+			frontier = next;
+			next = tmp;
+			while (reached != 0L) {
+				ecc[from + Long.numberOfTrailingZeros(reached)] = d;
+				reached &= reached - 1;
+			}
+		}
+		sc.frontier = frontier;
+		sc.next = next;
+	}
+
+	/**
+	 * Task computing the distance frequencies of a range of sources.
+	 */
+	class BfsTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+		int[] sources;
+		int from;
+		int to;
+		int[] ecc;
+
+		BfsTask(int[] sources, int from, int to, int[] ecc) {
+			this.sources = sources;
+			this.from = from;
+			this.to = to;
+			this.ecc = ecc;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (to - from <= SOURCES_PER_BFS) {
+				long[] freq = new long[g.n + 1];
+				bit_parallel_bfs(sources, from, to, scratch.get(), freq, ecc);
+				return freq;
+			}
+			int groups = (to - from + SOURCES_PER_BFS - 1) / SOURCES_PER_BFS;
+			int mid = from + (groups / 2) * SOURCES_PER_BFS;
+			BfsTask left = new BfsTask(sources, from, mid, ecc);
+			BfsTask right = new BfsTask(sources, mid, to, ecc);
+			right.fork();
+			long[] freq = left.compute();
+			long[] right_freq = right.join();
+			for (int d = 0; d < freq.length; d++) {
+				freq[d] += right_freq[d];
+			}
+			return freq;
+		}
+	}
+
+	/**
+	 * Compute the number of pairs (source, node) at each distance.
+	 *
+	 * @param sources : the sources
+	 * @param ecc     : array on which the eccentricity of each source is saved
+	 * @return : the distance frequencies
+	 */
+	public long[] distance_distribution(int[] sources, int[] ecc) {
+		if (sources.length == 0) {
+			return new long[g.n + 1];
+		}
+		return pool.invoke(new BfsTask(sources, 0, sources.length, ecc));
+	}
+
+	/**
+	 * Compute the diameter by the iFUB algorithm: the graph is visited from the
+	 * node with maximum degree, and the eccentricities of the nodes are computed
+	 * level by level starting from the farthest one, until the lower bound given
+	 * by the maximum eccentricity is greater than twice the current level minus
+	 * one. The eccentricities of the nodes of a level are computed in parallel.
+	 *
+	 * @return : the diameter
+	 */
+	public int diameter_ifub() {
+		int n = g.n;
+		if (n <= 1) {
+			return 0;
+		}
+		int u = 0;
+		for (int x = 1; x < n; x++) {
+			if (g.degree(x) > g.degree(u)) {
+				u = x;
+			}
+		}
+		int[] dist = new int[n];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		dist[u] = 0;
+		queue[tail++] = u;
+		while (head < tail) {
+			int x = queue[head++];
+			for (int i = g.offset[x]; i < g.offset[x + 1]; i++) {
+				if (dist[g.adj[i]] < 0) {
+					dist[g.adj[i]] = dist[x] + 1;
+					queue[tail++] = g.adj[i];
+				}
+			}
+		}
+		int level = dist[queue[n - 1]];
+		int lower = level;
+		int upper = 2 * level;
+		int end = n;
+		while (lower < upper) {
+			int start = end;
+			while (start > 0 && dist[queue[start - 1]] == level) {
+				start = start - 1;
+			}
+			int[] fringe = Arrays.copyOfRange(queue, start, end);
+			int[] ecc = new int[fringe.length];
+			distance_distribution(fringe, ecc);
+			for (int i = 0; i < ecc.length; i++) {
+				lower = Math.max(lower, ecc[i]);
+			}
+			if (lower > 2 * (level - 1)) {
+				return lower;
+			}
+			upper = 2 * (level - 1);
+			level = level - 1;
+			end = start;
+		}
+		return lower;
+	}
+
+	/**
+	 * Return the average distance between a source and a different node.
+	 *
+	 * @param freq        : distance frequencies
+	 * @param num_sources : number of sources
+	 * @return : the average distance
+	 */
+	public double degrees_of_separation(long[] freq, int num_sources) {
+		if (g.n <= 1) {
+			return 0;
+		}
+		long s = 0;
+		for (int d = 1; d < freq.length; d++) {
+			s = s + d * freq[d];
+		}
+		return (double) s / ((double) num_sources * (g.n - 1));
+	}
+
+	/**
+	 * Return the smallest distance such that the given fraction of the pairs
+	 * (source, node), including the pairs in which the source is the node, are at
+	 * most at that distance.
+	 *
+	 * @param freq        : distance frequencies
+	 * @param num_sources : number of sources
+	 * @param fraction    : fraction of pairs
+	 * @return : the effective diameter
+	 */
+	public int effective_diameter(long[] freq, int num_sources, double fraction) {
+		if (g.n <= 1) {
+			return 0;
+		}
+		long num_pairs = 0;
+		int d = 0;
+		while (d < freq.length) {
+			num_pairs = num_pairs + freq[d];
+			if (num_pairs >= fraction * num_sources * g.n) {
+				return d;
+			}
+			d = d + 1;
+		}
+		return freq.length - 1;
+	}
+
+	/**
+	 * Choose a random sample of distinct nodes.
+	 *
+	 * @param k    : number of nodes
+	 * @param seed : seed of the random generator
+	 * @return : the sampled nodes
+	 */
+	int[] sample(int k, long seed) {
+		int[] nodes = new int[g.n];
+		for (int u = 0; u < g.n; u++) {
+			nodes[u] = u;
+		}
+		if (k >= g.n) {
+			return nodes;
+		}
+		Random random = new Random(seed);
+		for (int i = 0; i < k; i++) {
+			int j = i + random.nextInt(g.n - i);
+			int tmp = nodes[i];
+			nodes[i] = nodes[j];
+			nodes[j] = tmp;
+		}
+		return Arrays.copyOf(nodes, k);
+	}
+
+	/**
+	 * Compute the metrics of the largest connected component of the static graph
+	 * of the conference, and save them in the file static_graph_metrics.txt, one
+	 * line name,value per metric. If the number of samples is positive and less
+	 * than the number of nodes of the component, the effective diameter and the
+	 * degrees of separation are computed by visiting the graph from the sampled
+	 * nodes only: in this case, with probability at least 1 - DELTA, the effective
+	 * diameter is between the two bounds effective_diameter_lower and
+	 * effective_diameter_upper and the degrees of separation differ from the exact
+	 * value by at most degrees_of_separation_error. Each of the three bounds is a
+	 * two-sided Hoeffding bound with failure probability DELTA / 3, so that all of
+	 * them hold together by the union bound.
+	 *
+	 * @param conf        : conference acronym
+	 * @param samples     : number of sampled sources (0 for the exact metrics)
+	 * @param parallelism : number of threads
+	 */
+	public static void main(String conf, int samples, int parallelism) {
+		try {
+			String path = "./conferences/" + conf + "/";
+			int num_authors;
+			try (Stream<String> lines = Files.lines(Paths.get(path + "id_name_key.txt"))) {
+				num_authors = (int) lines.count();
+			}
+			StaticGraph sg = StaticGraph.read(path + "static_graph.txt", num_authors);
+			StaticGraph lcc = sg.lcc();
+			StaticGraphMetrics sgm = new StaticGraphMetrics(lcc, parallelism);
+			BufferedWriter sgm_bw = new BufferedWriter(new FileWriter(path + "static_graph_metrics.txt"));
+			sgm_bw.write("nodes," + sg.num_nodes() + "\n");
+			sgm_bw.write("edges," + sg.num_edges() + "\n");
+			sgm_bw.write("lcc_nodes," + lcc.num_nodes() + "\n");
+			sgm_bw.write("lcc_edges," + lcc.num_edges() + "\n");
+			int diameter = sgm.diameter_ifub();
+			sgm_bw.write("diameter," + diameter + "\n");
+			boolean sampled = samples > 0 && samples < lcc.num_nodes();
+			int[] sources = sgm.sample(sampled ? samples : lcc.num_nodes(), SEED);
+			long[] freq = sgm.distance_distribution(sources, new int[sources.length]);
+			sgm_bw.write("effective_diameter,"
+					+ sgm.effective_diameter(freq, sources.length, EFFECTIVE_FRACTION) + "\n");
+			sgm_bw.write("degrees_of_separation," + sgm.degrees_of_separation(freq, sources.length) + "\n");
+			sgm_bw.write("samples," + (sampled ? sources.length : 0) + "\n");
+			if (sampled) {
+				double eps = Math.sqrt(Math.log(2 * 3 / DELTA) / (2.0 * sources.length));
+				sgm_bw.write("effective_diameter_lower,"
+						+ sgm.effective_diameter(freq, sources.length, Math.max(EFFECTIVE_FRACTION - eps, 0)) + "\n");
+				sgm_bw.write("effective_diameter_upper,"
+						+ sgm.effective_diameter(freq, sources.length, Math.min(EFFECTIVE_FRACTION + eps, 1)) + "\n");
+				sgm_bw.write("degrees_of_separation_error," + diameter * eps + "\n");
+				sgm_bw.write("confidence," + (1 - DELTA) + "\n");
+			}
+			sgm_bw.close();
+			sgm.shutdown();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
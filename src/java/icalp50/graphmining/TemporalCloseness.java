@@ -0,0 +1,344 @@
+package icalp50.graphmining;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import icalp50.datacollection.LinkStream;
+
+/**
+ * Temporal (harmonic) closeness of all authors of a conference, computed on the
+ * sorted temporal graph as in the closeness function of graphminerutils.jl: for
+ * each source, the temporal edges are analysed in reverse order by keeping, for
+ * each node, two intervals of departure times with the corresponding latest
+ * starting times. The sources are partitioned among the threads of a fork-join
+ * pool and each thread uses its own scratch arrays.
+ */
+public class TemporalCloseness {
+	static final int INF = Integer.MAX_VALUE;
+	/**
+	 * Maximum number of sources analysed by a single task (the partition of the
+	 * sources does not depend on the number of threads, so that the sums are
+	 * always computed in the same order).
+	 */
+	static final int SOURCES_PER_TASK = 64;
+
+	int n;
+	int m;
+	int t_alpha;
+	int t_omega;
+	int[] eu;
+	int[] ev;
+	int[] et;
+
+	/**
+	 * Create the engine for the temporal graph, whose nodes are the integers from
+	 * 1 to the maximum node id.
+	 *
+	 * @param ls : the temporal graph sorted by year
+	 */
+	public TemporalCloseness(LinkStream ls) {
+		m = ls.size();
+		eu = new int[m];
+		ev = new int[m];
+		et = new int[m];
+		t_alpha = INF;
+		t_omega = -1;
+		n = -1;
+		for (int i = 0; i < m; i++) {
+			eu[i] = ls.u(i);
+			ev[i] = ls.v(i);
+			et[i] = ls.t(i);
+			n = Math.max(n, Math.max(eu[i], ev[i]));
+			t_alpha = Math.min(t_alpha, et[i]);
+			t_omega = Math.max(t_omega, et[i]);
+		}
+	}
+
+	/**
+	 * Scratch arrays of one thread: for each node, the right end r of its two
+	 * intervals, the left ends l1 and l2, and the latest starting times s1 and s2.
+	 */
+	static class Intervals {
+		int[] r;
+		int[] l1;
+		int[] s1;
+		int[] l2;
+		int[] s2;
+
+		Intervals(int n) {
+			r = new int[n + 1];
+			l1 = new int[n + 1];
+			s1 = new int[n + 1];
+			l2 = new int[n + 1];
+			s2 = new int[n + 1];
+		}
+
+		void init(int t_omega) {
+			Arrays.fill(r, t_omega + 2);
+			Arrays.fill(l1, t_omega + 1);
+			Arrays.fill(s1, INF);
+			Arrays.fill(l2, t_omega + 1);
+			Arrays.fill(s2, INF);
+		}
+
+		int min_l(int x) {
+			return s2[x] < s1[x] ? l2[x] : l1[x];
+		}
+
+		int min_s(int x) {
+			return s2[x] < s1[x] ? s2[x] : s1[x];
+		}
+
+		int max_l(int x) {
+			return s2[x] > s1[x] ? l2[x] : l1[x];
+		}
+
+		void set_max(int x, int l, int rx, int s) {
+			r[x] = rx;
+			if (s1[x] > s2[x]) {
+				l1[x] = l;
+				s1[x] = s;
+			} else {
+				l2[x] = l;
+				s2[x] = s;
+			}
+		}
+
+		void set_min(int x, int l) {
+			if (s1[x] < s2[x]) {
+				l1[x] = l;
+			} else {
+				l2[x] = l;
+			}
+		}
+
+		double contribution(int x, int t_omega) {
+			if (s1[x] < INF && s2[x] < INF && r[x] <= t_omega + 1) {
+				if (s1[x] < s2[x]) {
+					return Math.log((double) (r[x] - s1[x] + 1) / (r[x] - s2[x] + 1));
+				} else if (s1[x] > s2[x]) {
+					return Math.log((double) (r[x] - s2[x] + 1) / (r[x] - s1[x] + 1));
+				}
+			}
+			return 0.0;
+		}
+	}
+
+	/**
+	 * Add to the closeness array the contribution of one source (see the
+	 * closeness_contribution function of graphminerutils.jl).
+	 *
+	 * @param s         : the source
+	 * @param directed  : true if the temporal edges are directed
+	 * @param in        : scratch arrays
+	 * @param closeness : closeness array to which the contribution is added
+	 */
+	void add_contribution(int s, boolean directed, Intervals in, double[] closeness) {
+		in.init(t_omega);
+		for (int e = m - 1; e >= 0; e--) {
+			int u = eu[e];
+			int v = ev[e];
+			int t = et[e];
+			in.r[s] = t + 1;
+			in.l1[s] = t;
+			in.s1[s] = t;
+			in.l2[s] = t;
+			in.s2[s] = t;
+			int rtu_l = in.min_l(u);
+			int rtu_s = in.min_s(u);
+			int _rtu_l = in.max_l(u);
+			int rtv_l = in.min_l(v);
+			int rtv_s = in.min_s(v);
+			int _rtv_l = in.max_l(v);
+			if (rtu_s > t && rtv_s > t) {
+				if (!directed && rtu_l < rtv_l) {
+					closeness[v] += in.contribution(v, t_omega);
+					in.set_max(v, rtu_l, rtv_l, t);
+				} else if (rtu_l > rtv_l) {
+					closeness[u] += in.contribution(u, t_omega);
+					in.set_max(u, rtv_l, rtu_l, t);
+				}
+			} else if (rtu_s > t && rtv_s == t) {
+				if (!directed && rtu_l < rtv_l) {
+					in.set_min(v, rtu_l);
+				} else if (rtu_l > _rtv_l) {
+					closeness[u] += in.contribution(u, t_omega);
+					in.set_max(u, _rtv_l, rtu_l, t);
+				}
+			} else if (rtu_s == t && rtv_s > t) {
+				if (rtv_l < rtu_l) {
+					in.set_min(u, rtv_l);
+				} else if (!directed && rtv_l > _rtu_l) {
+					closeness[v] += in.contribution(v, t_omega);
+					in.set_max(v, _rtu_l, rtv_l, t);
+				}
+			} else if (rtu_s == t && rtv_s == t) {
+				if (rtu_l > _rtv_l) {
+					in.set_min(u, _rtv_l);
+				} else if (!directed && rtv_l > _rtu_l) {
+					in.set_min(v, _rtu_l);
+				}
+			}
+		}
+		for (int u = 1; u <= n; u++) {
+			if (u != s) {
+				closeness[u] += in.contribution(u, t_omega);
+				int last_l = in.l1[u];
+				int last_s = in.s1[u];
+				if (in.l2[u] < in.l1[u]) {
+					last_l = in.l2[u];
+					last_s = in.s2[u];
+				}
+				if (last_l > t_alpha && last_s < INF) {
+					closeness[u] += Math.log((double) (last_l - t_alpha + 1) / (last_l - last_s + 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Task computing the sum of the contributions of a range of sources.
+	 */
+	class ContributionTask extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+		int from;
+		int to;
+		boolean directed;
+
+		ContributionTask(int from, int to, boolean directed) {
+			this.from = from;
+			this.to = to;
+			this.directed = directed;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (to - from <= SOURCES_PER_TASK) {
+				double[] closeness = new double[n + 1];
+				double[] contribution = new double[n + 1];
+				Intervals in = scratch.get();
+				for (int s = from; s < to; s++) {
+					Arrays.fill(contribution, 0.0);
+					add_contribution(s, directed, in, contribution);
+					for (int u = 1; u <= n; u++) {
+						closeness[u] += contribution[u];
+					}
+				}
+				return closeness;
+			}
+			int mid = (from + to) >>> 1;
+			ContributionTask left = new ContributionTask(from, mid, directed);
+			ContributionTask right = new ContributionTask(mid, to, directed);
+			right.fork();
+			double[] closeness = left.compute();
+			double[] right_closeness = right.join();
+			for (int u = 1; u <= n; u++) {
+				closeness[u] += right_closeness[u];
+			}
+			return closeness;
+		}
+	}
+
+	ThreadLocal<Intervals> scratch = ThreadLocal.withInitial(() -> new Intervals(n));
+
+	/**
+	 * Compute the temporal closeness of all nodes.
+	 *
+	 * @param directed    : true if the temporal edges are directed
+	 * @param parallelism : number of threads
+	 * @return : the closeness of each node (position 0 is not used)
+	 */
+	public double[] closeness(boolean directed, int parallelism) {
+		if (n <= 1) {
+			return new double[Math.max(n + 1, 1)];
+		}
+		ForkJoinPool pool = new ForkJoinPool(Math.max(parallelism, 1));
+		try {
+			double[] c = pool.invoke(new ContributionTask(1, n + 1, directed));
+			for (int u = 1; u <= n; u++) {
+				c[u] = c[u] / ((double) (n - 1) * (t_omega - t_alpha));
+			}
+			return c;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Return the k nodes with the highest values, in decreasing order of value
+	 * (nodes with the same value are in increasing order of id).
+	 *
+	 * @param c : the value of each node (position 0 is not used)
+	 * @param k : number of nodes to be returned
+	 * @return : the ids of the top-k nodes
+	 */
+	public static int[] top_k(double[] c, int k) {
+		Integer[] ids = new Integer[Math.max(c.length - 1, 0)];
+		for (int u = 1; u < c.length; u++) {
+			ids[u - 1] = u;
+		}
+		Arrays.sort(ids, (a, b) -> c[a] != c[b] ? Double.compare(c[b], c[a]) : Integer.compare(a, b));
+		int[] top = new int[Math.min(k, ids.length)];
+		for (int i = 0; i < top.length; i++) {
+			top[i] = ids[i];
+		}
+		return top;
+	}
+
+	/**
+	 * Read the mapping between integer ids and names of the conference authors.
+	 *
+	 * @param conf : conference acronym
+	 * @return : the name of each author id
+	 * @throws IOException
+	 */
+	public static Map<Integer, String> read_names(String conf) throws IOException {
+		Map<Integer, String> id_name = new HashMap<>();
+		BufferedReader id_key_br = new BufferedReader(
+				new FileReader("./conferences/" + conf + "/id_name_key.txt", StandardCharsets.UTF_8));
+		String line = id_key_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split("##");
+			id_name.put(Integer.parseInt(split_line[1]), split_line[3]);
+			line = id_key_br.readLine();
+		}
+		id_key_br.close();
+		return id_name;
+	}
+
+	/**
+	 * Compute the temporal closeness of the authors of the conference and save the
+	 * top-k authors in the file temporal_closeness.txt, one line rank,id,value,name
+	 * per author.
+	 *
+	 * @param conf        : conference acronym
+	 * @param k           : number of authors to be saved
+	 * @param parallelism : number of threads
+	 */
+	public static void main(String conf, int k, int parallelism) {
+		try {
+			String path = "./conferences/" + conf + "/";
+			TemporalCloseness tc = new TemporalCloseness(LinkStream.read(path + "temporal_graph_sorted.txt"));
+			double[] c = tc.closeness(false, parallelism);
+			Map<Integer, String> id_name = read_names(conf);
+			BufferedWriter tc_bw = new BufferedWriter(
+					new FileWriter(path + "temporal_closeness.txt", StandardCharsets.UTF_8));
+			int[] top = top_k(c, k);
+			for (int i = 0; i < top.length; i++) {
+				tc_bw.write((i + 1) + "," + top[i] + "," + c[top[i]] + "," + id_name.get(top[i]) + "\n");
+			}
+			tc_bw.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package icalp50.main;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import icalp50.datacollection.AuthorProfileCache;
+import icalp50.datacollection.ConferenceAuthorDataCollector;
+import icalp50.datacollection.FusedGraphCreator;
+import icalp50.utilities.DblpSnapshot;
+import icalp50.utilities.PhaseMetrics;
+import icalp50.utilities.Utilities;
+
+/**
+ * Resident analysis server: the snapshot of the DBLP database and the cache of
+ * the author profiles are loaded once, and the analyses of conferences are
+ * submitted as jobs through an HTTP endpoint on the loopback interface. The
+ * jobs are executed by a bounded pool of worker threads (with the fused second
+ * to fifth phases), and their state and timings can be queried. The endpoints
+ * are the following ones.
+ *
+ * POST /jobs : submit a job, whose body contains the arguments of one
+ * conference in the format described in the documentation (for instance, the
+ * content of a file of the args directory); the response is the job. A job is
+ * refused if a job for the same conference is queued or running (409) or if
+ * the queue is full (503).
+ *
+ * GET /jobs : the list of all jobs (a finished job is kept for at most
+ * FINISHED_JOB_RETENTION_MS milliseconds, and at most the last
+ * MAX_FINISHED_JOBS finished jobs are kept).
+ *
+ * GET /jobs/id : the job with the given id.
+ *
+ * POST /shutdown : stop accepting jobs and terminate the server when the
+ * submitted jobs are completed (the cache of the author profiles is then saved
+ * if required).
+ *
+ * Jobs are returned in JSON format with the fields id, conference, state
+ * (queued, running, done, or failed), queued_ms, first_phase_ms,
+ * graph_phases_ms, wall_ms (the time since the submission), and error.
+ *
+ * The memory used by the server does not grow with the number of jobs: besides
+ * the eviction of the finished jobs, the cache of the author profiles is
+ * bounded by its maximum size (see the AuthorProfileCache class), and the
+ * measurements kept for the report by the PhaseMetrics class are bounded by
+ * its max_completed field.
+ */
+public class AnalysisServer {
+	static final int QUEUE_CAPACITY = 64;
+	static final int MAX_FINISHED_JOBS = 256;
+	static final long FINISHED_JOB_RETENTION_MS = 60 * 60 * 1000;
+
+	/**
+	 * A submitted job and its timings (in milliseconds).
+	 */
+	static class Job {
+		final int id;
+		final String conference;
+		final String[] fp_args;
+		final String[] sp_args;
+		volatile String state = "queued";
+		volatile String error = null;
+		final long submitted = System.currentTimeMillis();
+		volatile long started = 0;
+		volatile long first_phase_ms = 0;
+		volatile long graph_phases_ms = 0;
+		volatile long finished = 0;
+
+		Job(int id, String[] fp_args, String[] sp_args) {
+			this.id = id;
+			this.conference = fp_args[0];
+			this.fp_args = fp_args;
+			this.sp_args = sp_args;
+		}
+
+		boolean active() {
+			return state.equals("queued") || state.equals("running");
+		}
+
+		boolean finished() {
+			return !active() && finished > 0;
+		}
+
+		String to_json() {
+			long now = System.currentTimeMillis();
+			long queued_ms = (started > 0 ? started : now) - submitted;
+			long wall_ms = (finished > 0 ? finished : now) - submitted;
+			return "{\"id\": " + id + ", \"conference\": " + PhaseMetrics.json_string(conference) + ", \"state\": \""
+					+ state + "\", \"queued_ms\": " + queued_ms + ", \"first_phase_ms\": " + first_phase_ms
+					+ ", \"graph_phases_ms\": " + graph_phases_ms + ", \"wall_ms\": " + wall_ms + ", \"error\": "
+					+ (error == null ? "null" : PhaseMetrics.json_string(error)) + "}";
+		}
+	}
+
+	DblpSnapshot dblp;
+	AuthorProfileCache cache;
+	ThreadPoolExecutor pool;
+	HttpServer server;
+	Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+	AtomicInteger next_id = new AtomicInteger(1);
+	CountDownLatch stopped = new CountDownLatch(1);
+
+	AnalysisServer(DblpSnapshot dblp, AuthorProfileCache cache, int num_workers) {
+		this.dblp = dblp;
+		this.cache = cache;
+		int n = Math.max(num_workers, 1);
+		pool = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+	}
+
+	/**
+	 * Execute the five phases of the analysis of the conference of the job. The
+	 * job ends as failed if a phase throws an exception or an error (the error
+	 * is then thrown again to the worker thread), so that it is evicted anyway.
+	 *
+	 * @param job : the job
+	 */
+	void run(Job job) {
+		job.started = System.currentTimeMillis();
+		job.state = "running";
+		System.out.println("Job " + job.id + ": processing " + job.conference + "...");
+		try {
+			ConferenceAuthorDataCollector.collect(dblp, job.fp_args, cache);
+			job.first_phase_ms = System.currentTimeMillis() - job.started;
+			Map<String, Exception> failures = FusedGraphCreator.create_graphs(dblp, new String[][] { job.sp_args },
+					Main.first_year, Main.last_year, Main.save_intermediate_files, null);
+			job.graph_phases_ms = System.currentTimeMillis() - job.started - job.first_phase_ms;
+			if (!failures.isEmpty()) {
+				throw failures.values().iterator().next();
+			}
+			job.state = "done";
+		} catch (Exception e) {
+			e.printStackTrace();
+			job.error = e.toString();
+			job.state = "failed";
+		} catch (Error e) {
+			job.error = e.toString();
+			job.state = "failed";
+			throw e;
+		} finally {
+			job.finished = System.currentTimeMillis();
+			System.out.println("Job " + job.id + ": " + job.conference + " " + job.state + " in "
+					+ (job.finished - job.started) + " milliseconds (" + cache.bytes() + " bytes of cached profiles)");
+			evict_finished();
+		}
+	}
+
+	/**
+	 * Remove the finished jobs kept for more than FINISHED_JOB_RETENTION_MS
+	 * milliseconds and, if more than MAX_FINISHED_JOBS finished jobs remain, the
+	 * ones which have finished first.
+	 */
+	synchronized void evict_finished() {
+		long now = System.currentTimeMillis();
+		List<Job> finished = new ArrayList<>();
+		for (Job job : jobs.values()) {
+			if (job.finished()) {
+				if (now - job.finished > FINISHED_JOB_RETENTION_MS) {
+					jobs.remove(job.id);
+				} else {
+					finished.add(job);
+				}
+			}
+		}
+		if (finished.size() > MAX_FINISHED_JOBS) {
+			finished.sort((Job j1, Job j2) -> Long.compare(j1.finished, j2.finished));
+			for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+				jobs.remove(finished.get(i).id);
+			}
+		}
+	}
+
+	/**
+	 * Submit the job described by the arguments of one conference.
+	 *
+	 * @param body : the arguments separated by white spaces
+	 * @return : the HTTP status and the response body
+	 */
+	synchronized Object[] submit(String body) {
+		if (pool.isShutdown()) {
+			return new Object[] { 503, "{\"error\": \"the server is shutting down\"}" };
+		}
+		String[][] split_args;
+		try {
+			split_args = Main.split_arguments(body.trim().split("\\s+"));
+		} catch (RuntimeException e) {
+			split_args = null;
+		}
+		if (split_args == null) {
+			return new Object[] { 400, "{\"error\": \"error in input format: see the documentation\"}" };
+		}
+		evict_finished();
+		for (Job other : jobs.values()) {
+			if (other.active() && other.conference.equals(split_args[0][0])) {
+				return new Object[] { 409, other.to_json() };
+			}
+		}
+		Job job = new Job(next_id.getAndIncrement(), split_args[0], split_args[1]);
+		jobs.put(job.id, job);
+		try {
+			pool.execute(() -> run(job));
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.id);
+			return new Object[] { 503, "{\"error\": \"too many queued jobs\"}" };
+		}
+		return new Object[] { 202, job.to_json() };
+	}
+
+	String list() {
+		evict_finished();
+		List<Integer> ids = new ArrayList<>(jobs.keySet());
+		ids.sort(null);
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < ids.size(); i++) {
+			sb.append(i > 0 ? ",\n " : "").append(jobs.get(ids.get(i)).to_json());
+		}
+		return sb.append("]").toString();
+	}
+
+	static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream os = exchange.getResponseBody();
+		os.write(bytes);
+		os.close();
+	}
+
+	void handle_jobs(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		String path = exchange.getRequestURI().getPath();
+		if (path.equals("/jobs") || path.equals("/jobs/")) {
+			if (method.equals("POST")) {
+				String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+				Object[] response = submit(body);
+				respond(exchange, (Integer) response[0], (String) response[1]);
+			} else if (method.equals("GET")) {
+				respond(exchange, 200, list());
+			} else {
+				respond(exchange, 405, "{\"error\": \"method not allowed\"}");
+			}
+			return;
+		}
+		Job job = null;
+		try {
+			job = jobs.get(Integer.parseInt(path.substring("/jobs/".length())));
+		} catch (NumberFormatException e) {
+		}
+		if (job == null) {
+			respond(exchange, 404, "{\"error\": \"no such job\"}");
+		} else if (!method.equals("GET")) {
+			respond(exchange, 405, "{\"error\": \"method not allowed\"}");
+		} else {
+			respond(exchange, 200, job.to_json());
+		}
+	}
+
+	void handle_shutdown(HttpExchange exchange) throws IOException {
+		if (!exchange.getRequestMethod().equals("POST")) {
+			respond(exchange, 405, "{\"error\": \"method not allowed\"}");
+			return;
+		}
+		synchronized (this) {
+			pool.shutdown();
+		}
+		respond(exchange, 202, "{\"state\": \"shutting down\"}");
+		stopped.countDown();
+	}
+
+	/**
+	 * Start the server and wait until it is shut down.
+	 *
+	 * @param port : the port on the loopback interface
+	 * @throws Exception
+	 */
+	void serve(int port) throws Exception {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/jobs", this::handle_jobs);
+		server.createContext("/shutdown", this::handle_shutdown);
+		server.start();
+		System.out.println("Listening on http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+				+ server.getAddress().getPort() + "/jobs with " + pool.getMaximumPoolSize() + " workers");
+		stopped.await();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		server.stop(0);
+	}
+
+	/**
+	 * Load the snapshot of the DBLP database and the cache of the author profiles,
+	 * and serve the analysis jobs until the server is shut down.
+	 *
+	 * @param port        : the port on the loopback interface
+	 * @param num_workers : number of worker threads
+	 */
+	public static void main(int port, int num_workers) {
+		try {
+			System.setProperty("entityExpansionLimit", "10000000");
+			DblpSnapshot dblp = Utilities.read_snapshot();
+			AuthorProfileCache cache = Main.profile_cache(dblp);
+			new AnalysisServer(dblp, cache, num_workers).serve(port);
+			Main.save_profile_cache(cache);
+			System.out.println("done");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
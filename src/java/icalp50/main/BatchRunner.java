@@ -0,0 +1,96 @@
+package icalp50.main;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import icalp50.datacollection.AuthorProfileCache;
+import icalp50.datacollection.ConferenceAuthorDataCollector;
+import icalp50.datacollection.FusedGraphCreator;
+import icalp50.utilities.DblpSnapshot;
+
+public class BatchRunner {
+	/**
+	 * Execute the five phases of the analysis of several conferences by using a
+	 * pool of worker threads. The first phase of the conferences is executed in
+	 * parallel (sharing the cache of the author profiles), and the editions of
+	 * each conference are prepared in parallel if there are more workers than
+	 * conferences. Then the DBLP publications are analysed only once for all
+	 * conferences whose first phase succeeded, and the graphs of these conferences
+	 * are created in parallel. A failing conference does not stop the analysis of
+	 * the other ones: the failures are printed at the end, together with a
+	 * summary of the analysis.
+	 *
+	 * @param dblp              : the snapshot of the DBLP database
+	 * @param fp_args           : list of arguments of the first phase for each
+	 *                          conference (see the ConferenceAuthorDataCollector
+	 *                          class)
+	 * @param sp_args           : list of arguments of the second phase for each
+	 *                          conference (see the
+	 *                          ConferenceTemporalAdjacencyMatrixCreator class)
+	 * @param fy                : first year to be considered in the static graphs
+	 * @param ly                : last year to be considered in the static graphs
+	 * @param save_intermediate : true if the intermediate files have to be saved
+	 * @param num_workers       : number of worker threads
+	 * @param cache             : cache of the author profiles
+	 * @return : the exception which stopped the analysis of each failed
+	 *         conference (indexed by acronym)
+	 */
+	public static Map<String, Exception> run(DblpSnapshot dblp, String[][] fp_args, String[][] sp_args, int fy,
+			int ly, boolean save_intermediate, int num_workers, AuthorProfileCache cache) {
+		int nc = fp_args.length;
+		Map<String, Exception> failures = new LinkedHashMap<>();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(num_workers, 1));
+		try {
+			long start = System.currentTimeMillis();
+			AtomicInteger completed = new AtomicInteger(0);
+			int edition_workers = Math.max(num_workers / Math.max(nc, 1), 1);
+			List<Future<?>> tasks = new ArrayList<>();
+			for (int c = 0; c < nc; c++) {
+				String[] args = fp_args[c];
+				tasks.add(pool.submit(() -> {
+					ConferenceAuthorDataCollector.collect(dblp, args, cache, edition_workers);
+					System.out.println("[" + completed.incrementAndGet() + "/" + nc + "] " + args[0]
+							+ ": first phase concluded");
+					return null;
+				}));
+			}
+			List<String[]> selected = new ArrayList<>();
+			for (int c = 0; c < nc; c++) {
+				try {
+					tasks.get(c).get();
+					selected.add(sp_args[c]);
+				} catch (Exception e) {
+					failures.put(fp_args[c][0], e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+					System.out.println("[" + completed.incrementAndGet() + "/" + nc + "] " + fp_args[c][0]
+							+ ": first phase failed");
+				}
+			}
+			System.out.println("....first phase concluded in " + (System.currentTimeMillis() - start)
+					+ " milliseconds");
+			start = System.currentTimeMillis();
+			Map<String, Exception> graph_failures = FusedGraphCreator.create_graphs(dblp,
+					selected.toArray(new String[0][]), fy, ly, save_intermediate, pool);
+			for (String[] args : selected) {
+				System.out.println(args[0] + ": second to fifth phase "
+						+ (graph_failures.containsKey(args[0]) ? "failed" : "concluded"));
+			}
+			failures.putAll(graph_failures);
+			System.out.println("....second to fifth phase concluded in " + (System.currentTimeMillis() - start)
+					+ " milliseconds");
+		} finally {
+			pool.shutdown();
+		}
+		for (String conf : failures.keySet()) {
+			System.out.println("Analysis of " + conf + " failed:");
+			failures.get(conf).printStackTrace();
+		}
+		System.out.println((nc - failures.size()) + " conferences analysed, " + failures.size() + " failed");
+		return failures;
+	}
+}
@@ -1,12 +1,32 @@
 package icalp50.main;
 
-import org.dblp.mmdb.RecordDbInterface;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import icalp50.datacollection.AuthorProfileCache;
 import icalp50.datacollection.ConferenceAuthorDataCollector;
 import icalp50.datacollection.ConferenceTemporalAdjacencyMatrixCreator;
+import icalp50.datacollection.FusedGraphCreator;
+import icalp50.datacollection.IncrementalUpdater;
 import icalp50.datacollection.Temporal2Static;
 import icalp50.datacollection.TemporalGraphCreator;
+import icalp50.datacollection.TemporalGraphIndex;
 import icalp50.datacollection.TemporalGraphSorter;
+import icalp50.datacollection.UrlRules;
+import icalp50.datamining.AuthorSimilarity;
+import icalp50.datamining.TitleMiner;
+import icalp50.graphmining.GraphEvolution;
+import icalp50.graphmining.StaticGraphMetrics;
+import icalp50.graphmining.TemporalCloseness;
+import icalp50.utilities.DblpSnapshot;
 import icalp50.utilities.Utilities;
 
 public class Main {
@@ -61,56 +81,348 @@ public class Main {
 	public static int num_default_conf = 16;
 	public static int first_year = 1900;
 	public static int last_year = 2021;
+	/**
+	 * If true, the second to fifth phases are executed in memory (see the
+	 * FusedGraphCreator class), otherwise each phase reads the files written by
+	 * the previous one.
+	 */
+	public static boolean fused_phases = Boolean.parseBoolean(System.getProperty("icalp50.fused", "true"));
+	/**
+	 * If true, the fused phases also save the temporal adjacency matrix files and
+	 * the unsorted temporal graph files.
+	 */
+	public static boolean save_intermediate_files = Boolean.getBoolean("icalp50.intermediate");
+	/**
+	 * Number of worker threads used when several conferences are analysed with the
+	 * fused phases (if 1, the conferences are analysed one after the other).
+	 */
+	public static int num_workers = Integer.getInteger("icalp50.workers", Runtime.getRuntime().availableProcessors());
+	/**
+	 * If true, the profiles of the authors computed during the first phase are
+	 * saved in a file and reused by the next executions on the same DBLP snapshot.
+	 */
+	public static boolean save_profile_cache = Boolean.getBoolean("icalp50.profiles");
+	public static String profile_cache_file_name = "./data/author_profiles.cache";
+	/**
+	 * If true, the DBLP XML file is streamed in order to create a snapshot
+	 * restricted to the publications relevant to the analysed conferences (see
+	 * the FilteredSnapshotWriter class), instead of building the DBLP main memory
+	 * DB and the snapshot of the whole database.
+	 */
+	public static boolean streaming_ingestion = Boolean.getBoolean("icalp50.streaming");
+
+	/**
+	 * Return the SHA-256 digest of the arguments of the conferences in
+	 * hexadecimal, so that the name of the file of the restricted snapshot has a
+	 * fixed length whatever the number of conferences. Each argument is preceded
+	 * by its length and each list by its number of arguments, so that different
+	 * lists of arguments have different encodings.
+	 *
+	 * @param fp_args : arguments of the first phase of each conference
+	 * @param sp_args : arguments of the second phase of each conference
+	 * @return : the digest of the arguments
+	 */
+	static String arguments_digest(String[][] fp_args, String[][] sp_args) {
+		StringBuilder sb = new StringBuilder();
+		for (String[][] phase_args : new String[][][] { fp_args, sp_args }) {
+			sb.append(phase_args.length).append('#');
+			for (String[] conference_args : phase_args) {
+				sb.append(conference_args.length).append('#');
+				for (String arg : conference_args) {
+					sb.append(arg.length()).append(':').append(arg);
+				}
+			}
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Return the snapshot of the DBLP database used to analyse the conferences:
+	 * either the snapshot of the whole database or, with streaming ingestion, the
+	 * snapshot restricted to the conferences, saved in a file whose name contains
+	 * the digest of their arguments (see the arguments_digest method).
+	 *
+	 * @param fp_args : arguments of the first phase of each conference
+	 * @param sp_args : arguments of the second phase of each conference
+	 * @return : the snapshot of the DBLP database
+	 */
+	public static DblpSnapshot read_snapshot(String[][] fp_args, String[][] sp_args) {
+		if (!streaming_ingestion) {
+			return Utilities.read_snapshot();
+		}
+		Set<String> toc_keys = new HashSet<>();
+		List<UrlRules> rules = new ArrayList<>();
+		for (int c = 0; c < fp_args.length; c++) {
+			toc_keys.addAll(ConferenceAuthorDataCollector.toc_keys(fp_args[c]));
+			rules.add(ConferenceTemporalAdjacencyMatrixCreator.url_rules(sp_args[c]));
+		}
+		String fn = "./data/dblp-" + arguments_digest(fp_args, sp_args) + ".snapshot";
+		return Utilities.read_filtered_snapshot(fn, toc_keys, upper_url -> {
+			for (UrlRules r : rules) {
+				if (r.matches(upper_url)) {
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Return the cache of the author profiles shared by all analysed conferences
+	 * (loaded from disk if required).
+	 *
+	 * @param dblp : the snapshot of the DBLP database
+	 * @return : the cache of the author profiles
+	 */
+	public static AuthorProfileCache profile_cache(DblpSnapshot dblp) {
+		if (save_profile_cache) {
+			try {
+				AuthorProfileCache cache = AuthorProfileCache.load(dblp, profile_cache_file_name,
+						Utilities.snapshot_file_name);
+				System.out.println(cache.size() + " author profiles loaded");
+				return cache;
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		return new AuthorProfileCache(dblp);
+	}
+
+	/**
+	 * Save the cache of the author profiles on disk (if required).
+	 *
+	 * @param cache : the cache of the author profiles
+	 */
+	public static void save_profile_cache(AuthorProfileCache cache) {
+		if (save_profile_cache) {
+			try {
+				cache.save(profile_cache_file_name);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Split the arguments of one conference (in the format described in the
+	 * documentation) into the arguments of the first phase and the arguments of
+	 * the second phase.
+	 *
+	 * @param args : list of arguments for the specific conference
+	 * @return : the arguments of the first phase and the arguments of the second
+	 *         phase, or null if the arguments are not in the correct format
+	 */
+	public static String[][] split_arguments(String[] args) {
+		int nsp = Integer.parseInt(args[0]);
+		if ((args.length - nsp * 4 - 3) % 6 != 0) {
+			return null;
+		}
+		String[] fp = new String[args.length - nsp * 4 - 2];
+		for (int i = 0; i < fp.length; i++) {
+			fp[i] = args[i + 1];
+		}
+		String[] sp = new String[2 + nsp * 4];
+		sp[0] = args[1];
+		for (int i = 0; i < nsp; i++) {
+			sp[1 + i * 4] = args[fp.length + 1 + i * 4];
+			sp[2 + i * 4] = args[fp.length + 2 + i * 4];
+			sp[3 + i * 4] = args[fp.length + 3 + i * 4];
+			sp[4 + i * 4] = args[fp.length + 4 + i * 4];
+		}
+		sp[1 + nsp * 4] = args[args.length - 1];
+		return new String[][] { fp, sp };
+	}
+
+	/**
+	 * Analyse several conferences whose arguments are contained in the given
+	 * files (one file per conference, with the arguments in the format described
+	 * in the documentation separated by white spaces). The conferences are
+	 * analysed in parallel and the analysis of the other conferences continues if
+	 * one conference fails.
+	 *
+	 * @param fns : the files containing the arguments of the conferences
+	 * @return : true if all conferences have been successfully analysed
+	 */
+	public static boolean batch(String[] fns) {
+		String[][] fp_args = new String[fns.length][];
+		String[][] sp_args = new String[fns.length][];
+		for (int f = 0; f < fns.length; f++) {
+			try {
+				String[] args = new String(Files.readAllBytes(Paths.get(fns[f]))).trim().split("\\s+");
+				String[][] split_args = split_arguments(args);
+				if (split_args == null) {
+					System.out.println("Error in input format of " + fns[f] + ": see the documentation");
+					return false;
+				}
+				fp_args[f] = split_args[0];
+				sp_args[f] = split_args[1];
+			} catch (Exception e) {
+				e.printStackTrace();
+				return false;
+			}
+		}
+		System.setProperty("entityExpansionLimit", "10000000");
+		DblpSnapshot dblp = read_snapshot(fp_args, sp_args);
+		AuthorProfileCache cache = profile_cache(dblp);
+		Map<String, Exception> failures = BatchRunner.run(dblp, fp_args, sp_args, first_year, last_year,
+				save_intermediate_files, num_workers, cache);
+		save_profile_cache(cache);
+		System.out.println("done");
+		return failures.isEmpty();
+	}
+
+	/**
+	 * Update the files of a conference which has already been analysed, by
+	 * analysing only the editions and the publications since the given year (see
+	 * the IncrementalUpdater class).
+	 *
+	 * @param since_year : first year whose data are analysed again
+	 * @param args       : list of arguments for the specific conference (in the
+	 *                   format described in the documentation)
+	 * @return : true if the conference has been successfully updated
+	 */
+	public static boolean update(int since_year, String[] args) {
+		String[][] split_args = split_arguments(args);
+		if (split_args == null) {
+			System.out.println("Error in input format: see the documentation");
+			return false;
+		}
+		System.setProperty("entityExpansionLimit", "10000000");
+		DblpSnapshot dblp = read_snapshot(new String[][] { split_args[0] }, new String[][] { split_args[1] });
+		AuthorProfileCache cache = profile_cache(dblp);
+		System.out.println("Updating " + args[1] + " since " + since_year + "...");
+		try {
+			IncrementalUpdater.update(dblp, split_args[0], split_args[1], since_year, first_year, last_year,
+					save_intermediate_files, cache);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return false;
+		}
+		save_profile_cache(cache);
+		System.out.println("done");
+		return true;
+	}
 
 	public static void main(String[] args) {
-		if (args.length == 0) {
+		if (args.length == 3 && args[0].equals("-closeness")) {
+			TemporalCloseness.main(args[1], Integer.parseInt(args[2]), num_workers);
+		} else if ((args.length == 2 || args.length == 3) && args[0].equals("-metrics")) {
+			StaticGraphMetrics.main(args[1], args.length == 3 ? Integer.parseInt(args[2]) : 0, num_workers);
+		} else if (args.length > 0 && args[0].equals("-similarity")) {
+			boolean verify = args.length > 1 && args[1].equals("-exact");
+			int first = verify ? 2 : 1;
+			String[] conf = new String[args.length - first];
+			for (int i = 0; i < conf.length; i++) {
+				conf[i] = args[i + first];
+			}
+			AuthorSimilarity.main(conf.length > 0 ? conf : default_conferences, verify);
+		} else if (args.length >= 5 && args[0].equals("-words")) {
+			String[] conf = new String[args.length - 5];
+			for (int i = 0; i < conf.length; i++) {
+				conf[i] = args[i + 5];
+			}
+			TitleMiner.main(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), args[4],
+					conf.length > 0 ? conf : new String[] { args[4] });
+		} else if ((args.length == 3 || args.length == 4) && args[0].equals("-windows")) {
+			int width = Integer.parseInt(args[2]);
+			int step = args.length == 4 ? Integer.parseInt(args[3]) : 1;
+			if (width < 1 || step < 1) {
+				System.out.println("Error in input format: see the documentation");
+			} else {
+				TemporalGraphIndex.main(args[1], width, step);
+			}
+		} else if (args.length >= 2 && args.length <= 4 && args[0].equals("-evolution")) {
+			GraphEvolution.main(args[1], args.length >= 3 ? Integer.parseInt(args[2]) : 0,
+					args.length == 4 ? Integer.parseInt(args[3]) : 0, num_workers);
+		} else if (args.length > 1 && args[0].equals("-update")) {
+			String[] conf_args = new String[args.length - 2];
+			for (int i = 0; i < conf_args.length; i++) {
+				conf_args[i] = args[i + 2];
+			}
+			if (!update(Integer.parseInt(args[1]), conf_args)) {
+				System.exit(1);
+			}
+		} else if ((args.length == 2 || args.length == 3) && args[0].equals("-server")) {
+			AnalysisServer.main(Integer.parseInt(args[1]), args.length == 3 ? Integer.parseInt(args[2]) : num_workers);
+		} else if (args.length > 0 && args[0].equals("-batch")) {
+			String[] fns = new String[args.length - 1];
+			for (int i = 0; i < fns.length; i++) {
+				fns[i] = args[i + 1];
+			}
+			if (!batch(fns)) {
+				System.exit(1);
+			}
+		} else if (args.length == 0) {
 			System.setProperty("entityExpansionLimit", "10000000");
-			RecordDbInterface dblp = Utilities.read_xml_file();
-			for (int c = 0; c < num_default_conf; c++) {
-				System.out.println("Processing " + default_conferences[c] + "...");
-				ConferenceAuthorDataCollector.main(dblp, default_arguments_phirst_phase[c]);
-				System.out.println("....first phase concluded");
-				ConferenceTemporalAdjacencyMatrixCreator.main(dblp, default_arguments_second_phase[c]);
-				System.out.println("....second phase concluded");
-				TemporalGraphCreator.main(default_conferences[c]);
-				System.out.println("....third phase concluded");
-				TemporalGraphSorter.main(default_conferences[c]);
-				System.out.println("....fourth phase concluded");
-				Temporal2Static.main(default_conferences[c], first_year, last_year);
-				System.out.println("....fifth phase concluded");
+			DblpSnapshot dblp = read_snapshot(default_arguments_phirst_phase, default_arguments_second_phase);
+			AuthorProfileCache cache = profile_cache(dblp);
+			if (fused_phases) {
+				System.out.println("Processing all conferences...");
+				Map<String, Exception> failures = BatchRunner.run(dblp, default_arguments_phirst_phase,
+						default_arguments_second_phase, first_year, last_year, save_intermediate_files, num_workers,
+						cache);
+				save_profile_cache(cache);
 				System.out.println("done");
+				if (!failures.isEmpty()) {
+					System.exit(1);
+				}
+			} else {
+				for (int c = 0; c < num_default_conf; c++) {
+					System.out.println("Processing " + default_conferences[c] + "...");
+					ConferenceAuthorDataCollector.main(dblp, default_arguments_phirst_phase[c], cache, num_workers);
+					System.out.println("....first phase concluded");
+				}
+				save_profile_cache(cache);
+				System.out.println("Processing all conferences...");
+				ConferenceTemporalAdjacencyMatrixCreator.main(dblp, default_arguments_second_phase);
+				System.out.println("....second phase concluded");
+				for (int c = 0; c < num_default_conf; c++) {
+					System.out.println("Processing " + default_conferences[c] + "...");
+					TemporalGraphCreator.main(default_conferences[c]);
+					System.out.println("....third phase concluded");
+					TemporalGraphSorter.main(default_conferences[c]);
+					System.out.println("....fourth phase concluded");
+					Temporal2Static.main(default_conferences[c], first_year, last_year);
+					System.out.println("....fifth phase concluded");
+					System.out.println("done");
+				}
 			}
 		} else {
-			int nsp = Integer.parseInt(args[0]);
-			if ((args.length - nsp * 4 - 3) % 6 != 0) {
+			String[][] split_args = split_arguments(args);
+			if (split_args == null) {
 				System.out.println("Error in input format: see the documentation");
 			} else {
-				String[] fp = new String[args.length - nsp * 4 - 2];
-				for (int i = 0; i < fp.length; i++) {
-					fp[i] = args[i + 1];
-				}
-				String[] sp = new String[2 + nsp * 4];
-				sp[0] = args[1];
-				for (int i = 0; i < nsp; i++) {
-					sp[1 + i * 4] = args[fp.length + 1 + i * 4];
-					sp[2 + i * 4] = args[fp.length + 2 + i * 4];
-					sp[3 + i * 4] = args[fp.length + 3 + i * 4];
-					sp[4 + i * 4] = args[fp.length + 4 + i * 4];
-				}
-				sp[1 + nsp * 4] = args[args.length - 1];
+				String[] fp = split_args[0];
+				String[] sp = split_args[1];
 				System.setProperty("entityExpansionLimit", "10000000");
-				RecordDbInterface dblp = Utilities.read_xml_file();
+				DblpSnapshot dblp = read_snapshot(new String[][] { fp }, new String[][] { sp });
+				AuthorProfileCache cache = profile_cache(dblp);
 				System.out.println("Processing " + args[1] + "...");
-				ConferenceAuthorDataCollector.main(dblp, fp);
+				ConferenceAuthorDataCollector.main(dblp, fp, cache, num_workers);
+				save_profile_cache(cache);
 				System.out.println("....first phase concluded");
-				ConferenceTemporalAdjacencyMatrixCreator.main(dblp, sp);
-				System.out.println("....second phase concluded");
-				TemporalGraphCreator.main(args[1]);
-				System.out.println("....third phase concluded");
-				TemporalGraphSorter.main(args[1]);
-				System.out.println("....fourth phase concluded");
-				Temporal2Static.main(args[1], first_year, last_year);
-				System.out.println("....fifth phase concluded");
+				if (fused_phases) {
+					FusedGraphCreator.main(dblp, sp, first_year, last_year, save_intermediate_files);
+					System.out.println("....second to fifth phase concluded");
+				} else {
+					ConferenceTemporalAdjacencyMatrixCreator.main(dblp, sp);
+					System.out.println("....second phase concluded");
+					TemporalGraphCreator.main(args[1]);
+					System.out.println("....third phase concluded");
+					TemporalGraphSorter.main(args[1]);
+					System.out.println("....fourth phase concluded");
+					Temporal2Static.main(args[1], first_year, last_year);
+					System.out.println("....fifth phase concluded");
+				}
 				System.out.println("done");
 			}
 		}
@@ -0,0 +1,194 @@
+package icalp50.utilities;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapping between the authors of a conference and their dense integer ids
+ * (starting from 1). The authors are identified by their index in the DBLP
+ * snapshot, so that the lookups in the loops over the publications are made on
+ * an open addressing table of integers, without decoding and comparing names
+ * or keys (since DBLP primary names are unique, this is equivalent to
+ * identifying the authors by name). The name and the DBLP key of each author
+ * are decoded only once, when the author is added, and the authors are sorted
+ * by name only when the dictionary is saved.
+ */
+public class AuthorDictionary {
+	LongIntHashMap person_id = new LongIntHashMap();
+	int[] id_person = new int[16];
+	String[] id_name = new String[16];
+	String[] id_key = new String[16];
+	int next_id = 1;
+
+	/**
+	 * Return the id of the author.
+	 *
+	 * @param person : person index in the snapshot
+	 * @return : the id of the author or -1 if the author is not in the dictionary
+	 */
+	public int id(int person) {
+		return person_id.get(person, -1);
+	}
+
+	/**
+	 * Add the author to the dictionary with the next id.
+	 *
+	 * @param dblp   : the snapshot of the DBLP database
+	 * @param person : person index in the snapshot
+	 * @return : the id of the author
+	 */
+	public int add(DblpSnapshot dblp, int person) {
+		int id = next_id;
+		put(id, person, dblp.person_name(person), dblp.person_key(person));
+		return id;
+	}
+
+	/**
+	 * Associate the id with the author (the person index is negative if the
+	 * author is not in the snapshot).
+	 */
+	void put(int id, int person, String name, String key) {
+		if (id >= id_person.length) {
+			int capacity = Math.max(2 * id_person.length, id + 1);
+			id_person = Arrays.copyOf(id_person, capacity);
+			id_name = Arrays.copyOf(id_name, capacity);
+			id_key = Arrays.copyOf(id_key, capacity);
+		}
+		id_person[id] = person;
+		id_name[id] = name;
+		id_key[id] = key;
+		if (person >= 0) {
+			person_id.put(person, id);
+		}
+		next_id = Math.max(next_id, id + 1);
+	}
+
+	/**
+	 * Return the id which will be assigned to the next author (that is, one plus
+	 * the largest id in the dictionary).
+	 *
+	 * @return : the next id
+	 */
+	public int next_id() {
+		return next_id;
+	}
+
+	/**
+	 * Return the person associated with the author.
+	 *
+	 * @param id : the id of the author
+	 * @return : person index in the snapshot or -1 if the author has not been
+	 *         associated with a person of the snapshot
+	 */
+	public int person(int id) {
+		return id_person[id];
+	}
+
+	public String name(int id) {
+		return id_name[id];
+	}
+
+	public String key(int id) {
+		return id_key[id];
+	}
+
+	public void rename(int id, String name) {
+		id_name[id] = name;
+	}
+
+	/**
+	 * Read the dictionary from the file id_name_key.txt of a conference. The
+	 * authors are not associated with the persons of a snapshot until the resolve
+	 * method is invoked.
+	 *
+	 * @param fni : the file containing the dictionary
+	 * @return : the dictionary
+	 * @throws IOException
+	 */
+	public static AuthorDictionary read(String fni) throws IOException {
+		AuthorDictionary dictionary = new AuthorDictionary();
+		BufferedReader id_key_br = new BufferedReader(new FileReader(fni, StandardCharsets.UTF_8));
+		String line = id_key_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split("##");
+			dictionary.put(Integer.parseInt(split_line[1]), -1, split_line[3], split_line[5]);
+			line = id_key_br.readLine();
+		}
+		id_key_br.close();
+		return dictionary;
+	}
+
+	/**
+	 * Associate the authors of the dictionaries with the persons of the snapshot
+	 * having the same DBLP key. The key of each person is decoded once, however
+	 * many dictionaries contain the person.
+	 *
+	 * @param dblp         : the snapshot of the DBLP database
+	 * @param dictionaries : the dictionaries (null elements are ignored)
+	 * @param persons      : indices of the persons to be resolved (if null, all
+	 *                     persons of the snapshot are resolved)
+	 * @return : for each person of the snapshot, the indices of the dictionaries
+	 *         containing the person in increasing order (null if there are none)
+	 */
+	public static int[][] resolve(DblpSnapshot dblp, List<AuthorDictionary> dictionaries, int[] persons) {
+		Map<String, List<int[]>> key_ids = new HashMap<>();
+		for (int d = 0; d < dictionaries.size(); d++) {
+			AuthorDictionary dictionary = dictionaries.get(d);
+			if (dictionary != null) {
+				for (int id = 1; id < dictionary.next_id; id++) {
+					if (dictionary.id_key[id] != null) {
+						key_ids.computeIfAbsent(dictionary.id_key[id], k -> new ArrayList<>()).add(new int[] { d, id });
+					}
+				}
+			}
+		}
+		int[][] person_dictionaries = new int[dblp.num_persons()][];
+		int n = persons == null ? dblp.num_persons() : persons.length;
+		for (int i = 0; i < n; i++) {
+			int person = persons == null ? i : persons[i];
+			List<int[]> ids = key_ids.get(dblp.person_key(person));
+			if (ids != null && person_dictionaries[person] == null) {
+				person_dictionaries[person] = new int[ids.size()];
+				for (int j = 0; j < ids.size(); j++) {
+					int[] dictionary_id = ids.get(j);
+					AuthorDictionary dictionary = dictionaries.get(dictionary_id[0]);
+					dictionary.id_person[dictionary_id[1]] = person;
+					dictionary.person_id.put(person, dictionary_id[1]);
+					person_dictionaries[person][j] = dictionary_id[0];
+				}
+			}
+		}
+		return person_dictionaries;
+	}
+
+	/**
+	 * Save the dictionary, one line i##id##n##name##k##key per author, with the
+	 * authors sorted by name.
+	 *
+	 * @param fno : file on which the dictionary is saved
+	 * @throws IOException
+	 */
+	public void save(String fno) throws IOException {
+		List<Integer> ids = new ArrayList<>();
+		for (int id = 1; id < next_id; id++) {
+			if (id_key[id] != null) {
+				ids.add(id);
+			}
+		}
+		ids.sort(Comparator.comparing((Integer id) -> id_name[id]));
+		try (RecordWriter ai_rw = new RecordWriter(fno)) {
+			for (int id : ids) {
+				ai_rw.append("i##").append(id).append("##n##").append(id_name[id]).append("##k##").append(id_key[id])
+						.append('\n');
+			}
+		}
+	}
+}
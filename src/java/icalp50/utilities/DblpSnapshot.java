@@ -0,0 +1,475 @@
+package icalp50.utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.dblp.mmdb.BookTitle;
+import org.dblp.mmdb.Field;
+import org.dblp.mmdb.Person;
+import org.dblp.mmdb.PersonName;
+import org.dblp.mmdb.Publication;
+import org.dblp.mmdb.RecordDbInterface;
+import org.dblp.mmdb.TableOfContents;
+
+/**
+ * Compact read-only view of the part of the DBLP main memory DB used by the
+ * pipeline. Publications, persons, and tables of contents are identified by
+ * dense integer indices and all their attributes are stored column-wise, so
+ * that the snapshot file can be memory-mapped instead of re-parsing the DBLP
+ * XML file at every run.
+ *
+ * The snapshot contains all publications which are either journal or
+ * conference papers or belong to a table of contents (in the same order of
+ * the DBLP main memory DB), the persons who authored them (with their primary
+ * name and their list of publications), and the tables of contents. A
+ * snapshot restricted to the publications relevant to some conferences can be
+ * created directly from the XML file (see the FilteredSnapshotWriter class).
+ */
+public class DblpSnapshot {
+	static final int MAGIC = 0x434D5331;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 48;
+
+	int n_pubs;
+	int n_persons;
+	int n_tocs;
+	IntBuffer pub_tag;
+	IntBuffer pub_year;
+	IntBuffer pub_url;
+	IntBuffer pub_key;
+	IntBuffer pub_publtype;
+	IntBuffer pub_title;
+	IntBuffer pub_booktitle;
+	IntBuffer pub_author_off;
+	IntBuffer pub_authors;
+	IntBuffer person_key;
+	IntBuffer person_name;
+	IntBuffer person_pub_off;
+	IntBuffer person_pubs;
+	IntBuffer toc_key;
+	IntBuffer toc_pub_off;
+	IntBuffer toc_pubs;
+	ByteBuffer strings;
+	String[] tags;
+	volatile Map<String, Integer> toc_index;
+
+	/**
+	 * Growable array of integers, used while building the snapshot.
+	 */
+	static class IntColumn {
+		int[] a = new int[1024];
+		int size = 0;
+
+		void add(int x) {
+			if (size == a.length) {
+				a = Arrays.copyOf(a, a.length * 2);
+			}
+			a[size++] = x;
+		}
+	}
+
+	/**
+	 * Pool of UTF-8 encoded strings, used while building the snapshot. Each string
+	 * is saved as its length (in variable-length encoding) followed by its bytes,
+	 * and it is referred to by its offset in the pool. Short strings which are
+	 * repeated many times (such as publication types and book titles) can be
+	 * shared.
+	 */
+	static class StringPool {
+		ByteBuffer bb = ByteBuffer.allocate(1 << 20);
+		Map<String, Integer> shared = new HashMap<>();
+
+		int add(String s) throws IOException {
+			if (s == null) {
+				return -1;
+			}
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			if ((long) bb.position() + b.length + 5 > Integer.MAX_VALUE) {
+				throw new IOException("string pool of the DBLP snapshot exceeds 2GB");
+			}
+			if (bb.remaining() < b.length + 5) {
+				long capacity = Math.max(2L * bb.capacity(), (long) bb.position() + b.length + 5);
+				ByteBuffer nbb = ByteBuffer.allocate((int) Math.min(capacity, Integer.MAX_VALUE - 8));
+				bb.flip();
+				nbb.put(bb);
+				bb = nbb;
+			}
+			int offset = bb.position();
+			int len = b.length;
+			while ((len & ~0x7F) != 0) {
+				bb.put((byte) ((len & 0x7F) | 0x80));
+				len = len >>> 7;
+			}
+			bb.put((byte) len);
+			bb.put(b);
+			return offset;
+		}
+
+		int add_shared(String s) throws IOException {
+			if (s == null) {
+				return -1;
+			}
+			Integer offset = shared.get(s);
+			if (offset == null) {
+				offset = add(s);
+				shared.put(s, offset);
+			}
+			return offset;
+		}
+	}
+
+	/**
+	 * Return the concatenation of the values of all the fields of the publication
+	 * with the given tag (the Publication class does not include a getTitle
+	 * method).
+	 *
+	 * @param pub : the publication
+	 * @param tag : the field tag
+	 * @return : the concatenation of the field values
+	 */
+	static String field_value(Publication pub, String tag) {
+		String value = "";
+		for (Field f : pub.getFields(tag)) {
+			value = value.concat(f.value());
+		}
+		return value;
+	}
+
+	static void write_column(DataOutputStream dos, IntColumn c) throws IOException {
+		for (int i = 0; i < c.size; i++) {
+			dos.writeInt(c.a[i]);
+		}
+	}
+
+	/**
+	 * Save in the snapshot file the publications, the persons, and the tables of
+	 * contents of the DBLP main memory DB used by the pipeline.
+	 *
+	 * @param dblp : the Java interface to the DBLP database
+	 * @param fn   : file on which the snapshot is saved
+	 * @throws IOException
+	 */
+	public static void write(RecordDbInterface dblp, String fn) throws IOException {
+		StringPool sp = new StringPool();
+		Map<Publication, Integer> pub_index = new IdentityHashMap<>();
+		Map<Person, Integer> person_index = new IdentityHashMap<>();
+		Map<String, Integer> tag_index = new HashMap<>();
+		IntColumn tag_strings = new IntColumn();
+		IntColumn pub_tag = new IntColumn(), pub_year = new IntColumn(), pub_url = new IntColumn();
+		IntColumn pub_key = new IntColumn(), pub_publtype = new IntColumn(), pub_title = new IntColumn();
+		IntColumn pub_booktitle = new IntColumn(), pub_author_off = new IntColumn(), pub_authors = new IntColumn();
+		IntColumn person_key = new IntColumn(), person_name = new IntColumn();
+		IntColumn person_pub_off = new IntColumn(), person_pubs = new IntColumn();
+		IntColumn toc_key = new IntColumn(), toc_pub_off = new IntColumn(), toc_pubs = new IntColumn();
+		pub_author_off.add(0);
+		for (Publication pub : dblp.getPublications()) {
+			String tag = pub.getTag();
+			if (!tag.equals("article") && !tag.equals("inproceedings") && pub.getToc() == null) {
+				continue;
+			}
+			pub_index.put(pub, pub_index.size());
+			Integer tag_id = tag_index.get(tag);
+			if (tag_id == null) {
+				tag_id = tag_strings.size;
+				tag_index.put(tag, tag_id);
+				tag_strings.add(sp.add(tag));
+			}
+			pub_tag.add(tag_id);
+			pub_year.add(pub.getYear());
+			pub_url.add(sp.add(field_value(pub, "url")));
+			pub_key.add(sp.add(pub.getAttributes().get("key")));
+			pub_publtype.add(sp.add_shared(pub.getAttributes().get("publtype")));
+			pub_title.add(sp.add(field_value(pub, "title")));
+			BookTitle booktitle = pub.getBooktitle();
+			pub_booktitle.add(booktitle == null ? -1 : sp.add_shared(booktitle.getTitle()));
+			for (PersonName pn : pub.getNames()) {
+				Person person = pn.getPerson();
+				Integer a = person_index.get(person);
+				if (a == null) {
+					a = person_index.size();
+					person_index.put(person, a);
+					person_key.add(sp.add(person.getKey()));
+					person_name.add(sp.add(person.getPrimaryName().name()));
+				}
+				pub_authors.add(a);
+			}
+			pub_author_off.add(pub_authors.size);
+		}
+		Person[] persons = new Person[person_index.size()];
+		for (Map.Entry<Person, Integer> e : person_index.entrySet()) {
+			persons[e.getValue()] = e.getKey();
+		}
+		person_pub_off.add(0);
+		for (Person person : persons) {
+			for (Publication pub : person.getPublications()) {
+				Integer p = pub_index.get(pub);
+				if (p != null) {
+					person_pubs.add(p);
+				}
+			}
+			person_pub_off.add(person_pubs.size);
+		}
+		toc_pub_off.add(0);
+		for (TableOfContents toc : dblp.getTocs()) {
+			toc_key.add(sp.add(toc.getKey()));
+			for (Publication pub : toc.getPublications()) {
+				toc_pubs.add(pub_index.get(pub));
+			}
+			toc_pub_off.add(toc_pubs.size);
+		}
+		save(fn, sp, tag_strings, pub_tag, pub_year, pub_url, pub_key, pub_publtype, pub_title, pub_booktitle,
+				pub_author_off, pub_authors, person_key, person_name, person_pub_off, person_pubs, toc_key, toc_pub_off,
+				toc_pubs);
+	}
+
+	/**
+	 * Save the header, the columns (in the order in which they are mapped), and
+	 * the string pool in the snapshot file. The snapshot is written in a
+	 * temporary file which is then renamed, so that an interrupted execution
+	 * does not leave an incomplete snapshot (which would not be recreated, since
+	 * it is more recent than the DBLP XML file).
+	 *
+	 * @param fn      : file on which the snapshot is saved
+	 * @param sp      : the string pool
+	 * @param columns : the columns
+	 * @throws IOException
+	 */
+	static void save(String fn, StringPool sp, IntColumn... columns) throws IOException {
+		IntColumn tag_strings = columns[0], pub_tag = columns[1], pub_authors = columns[9], person_key = columns[10];
+		IntColumn person_pubs = columns[13], toc_key = columns[14], toc_pubs = columns[16];
+		Path tmp = Paths.get(fn + ".tmp");
+		DataOutputStream dos = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp.toFile()), 1 << 20));
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		dos.writeInt(pub_tag.size);
+		dos.writeInt(person_key.size);
+		dos.writeInt(toc_key.size);
+		dos.writeInt(pub_authors.size);
+		dos.writeInt(person_pubs.size);
+		dos.writeInt(toc_pubs.size);
+		dos.writeInt(tag_strings.size);
+		dos.writeLong(sp.bb.position());
+		dos.writeInt(0);
+		for (IntColumn c : columns) {
+			write_column(dos, c);
+		}
+		dos.write(sp.bb.array(), 0, sp.bb.position());
+		dos.close();
+		Files.move(tmp, Paths.get(fn), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	static IntBuffer map_ints(FileChannel fc, long[] position, int count) throws IOException {
+		IntBuffer ib = fc.map(FileChannel.MapMode.READ_ONLY, position[0], 4L * count).asIntBuffer();
+		position[0] = position[0] + 4L * count;
+		return ib;
+	}
+
+	/**
+	 * Memory-map the snapshot file.
+	 *
+	 * @param fn : file containing the snapshot
+	 * @return : the snapshot
+	 * @throws IOException
+	 */
+	public static DblpSnapshot map(String fn) throws IOException {
+		DblpSnapshot s = new DblpSnapshot();
+		RandomAccessFile raf = new RandomAccessFile(fn, "r");
+		FileChannel fc = raf.getChannel();
+		ByteBuffer header = fc.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+			raf.close();
+			throw new IOException(fn + " is not a DBLP snapshot of version " + VERSION);
+		}
+		s.n_pubs = header.getInt();
+		s.n_persons = header.getInt();
+		s.n_tocs = header.getInt();
+		int n_pub_authors = header.getInt();
+		int n_person_pubs = header.getInt();
+		int n_toc_pubs = header.getInt();
+		int n_tags = header.getInt();
+		long strings_length = header.getLong();
+		long[] position = { HEADER_SIZE };
+		IntBuffer tag_strings = map_ints(fc, position, n_tags);
+		s.pub_tag = map_ints(fc, position, s.n_pubs);
+		s.pub_year = map_ints(fc, position, s.n_pubs);
+		s.pub_url = map_ints(fc, position, s.n_pubs);
+		s.pub_key = map_ints(fc, position, s.n_pubs);
+		s.pub_publtype = map_ints(fc, position, s.n_pubs);
+		s.pub_title = map_ints(fc, position, s.n_pubs);
+		s.pub_booktitle = map_ints(fc, position, s.n_pubs);
+		s.pub_author_off = map_ints(fc, position, s.n_pubs + 1);
+		s.pub_authors = map_ints(fc, position, n_pub_authors);
+		s.person_key = map_ints(fc, position, s.n_persons);
+		s.person_name = map_ints(fc, position, s.n_persons);
+		s.person_pub_off = map_ints(fc, position, s.n_persons + 1);
+		s.person_pubs = map_ints(fc, position, n_person_pubs);
+		s.toc_key = map_ints(fc, position, s.n_tocs);
+		s.toc_pub_off = map_ints(fc, position, s.n_tocs + 1);
+		s.toc_pubs = map_ints(fc, position, n_toc_pubs);
+		s.strings = fc.map(FileChannel.MapMode.READ_ONLY, position[0], strings_length);
+		raf.close();
+		s.tags = new String[n_tags];
+		for (int i = 0; i < n_tags; i++) {
+			s.tags[i] = s.string_at(tag_strings.get(i));
+		}
+		return s;
+	}
+
+	/**
+	 * Decode the string saved at the given offset of the string pool.
+	 *
+	 * @param offset : offset of the string in the pool (-1 if the string is null)
+	 * @return : the decoded string
+	 */
+	String string_at(int offset) {
+		if (offset < 0) {
+			return null;
+		}
+		int len = 0;
+		int shift = 0;
+		byte b = strings.get(offset++);
+		while ((b & 0x80) != 0) {
+			len = len | ((b & 0x7F) << shift);
+			shift = shift + 7;
+			b = strings.get(offset++);
+		}
+		len = len | (b << shift);
+		byte[] bytes = new byte[len];
+		strings.get(offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public int num_publications() {
+		return n_pubs;
+	}
+
+	public int num_persons() {
+		return n_persons;
+	}
+
+	public int num_tocs() {
+		return n_tocs;
+	}
+
+	/**
+	 * Return the tag of the publication (tags are decoded once when the snapshot
+	 * is mapped).
+	 *
+	 * @param p : publication index
+	 * @return : the publication tag
+	 */
+	public String pub_tag(int p) {
+		return tags[pub_tag.get(p)];
+	}
+
+	public int pub_year(int p) {
+		return pub_year.get(p);
+	}
+
+	public String pub_url(int p) {
+		return string_at(pub_url.get(p));
+	}
+
+	public String pub_key(int p) {
+		return string_at(pub_key.get(p));
+	}
+
+	public String pub_publtype(int p) {
+		return string_at(pub_publtype.get(p));
+	}
+
+	public String pub_title(int p) {
+		return string_at(pub_title.get(p));
+	}
+
+	public String pub_booktitle(int p) {
+		return string_at(pub_booktitle.get(p));
+	}
+
+	public int pub_num_authors(int p) {
+		return pub_author_off.get(p + 1) - pub_author_off.get(p);
+	}
+
+	/**
+	 * Return the i-th author of the publication (in the DBLP order).
+	 *
+	 * @param p : publication index
+	 * @param i : author position
+	 * @return : person index
+	 */
+	public int pub_author(int p, int i) {
+		return pub_authors.get(pub_author_off.get(p) + i);
+	}
+
+	public String person_key(int a) {
+		return string_at(person_key.get(a));
+	}
+
+	public String person_name(int a) {
+		return string_at(person_name.get(a));
+	}
+
+	public int person_num_publications(int a) {
+		return person_pub_off.get(a + 1) - person_pub_off.get(a);
+	}
+
+	public int person_publication(int a, int i) {
+		return person_pubs.get(person_pub_off.get(a) + i);
+	}
+
+	/**
+	 * Return the index of the table of contents with the given key.
+	 *
+	 * @param key : key of the table of contents (such as db/conf/icalp/icalp72.bht)
+	 * @return : the index of the table of contents or -1 if it does not exist
+	 */
+	public int toc(String key) {
+		Map<String, Integer> index = toc_index;
+		if (index == null) {
+			index = build_toc_index();
+		}
+		Integer t = index.get(key);
+		return t == null ? -1 : t;
+	}
+
+	/**
+	 * Build the index of the tables of contents (only once, even if several
+	 * threads look up a table of contents at the same time).
+	 *
+	 * @return : the index of the tables of contents
+	 */
+	synchronized Map<String, Integer> build_toc_index() {
+		if (toc_index == null) {
+			Map<String, Integer> index = new HashMap<>();
+			for (int t = 0; t < n_tocs; t++) {
+				index.put(string_at(toc_key.get(t)), t);
+			}
+			toc_index = index;
+		}
+		return toc_index;
+	}
+
+	public int toc_num_publications(int t) {
+		return toc_pub_off.get(t + 1) - toc_pub_off.get(t);
+	}
+
+	public int toc_publication(int t, int i) {
+		return toc_pubs.get(toc_pub_off.get(t) + i);
+	}
+}
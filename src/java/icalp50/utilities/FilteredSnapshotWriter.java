@@ -0,0 +1,453 @@
+package icalp50.utilities;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import icalp50.utilities.DblpSnapshot.IntColumn;
+import icalp50.utilities.DblpSnapshot.StringPool;
+
+/**
+ * Creation of a snapshot of the DBLP database restricted to the publications
+ * relevant to some conferences, by streaming the DBLP XML file twice instead
+ * of building the DBLP main memory DB, so that the memory used depends on the
+ * size of the conferences and not on the size of DBLP. The conferences are
+ * described by the keys of the tables of contents of their editions and by a
+ * filter on the (upper case) URLs of their papers.
+ *
+ * The first pass collects the names of the authors of the publications in the
+ * tables of contents (except the proceedings), and the aliases of the persons
+ * with more than one name (persons are identified by the 64-bit hash of their
+ * primary name, that is, the first name of their home page record). The second
+ * pass keeps the publications in the tables of contents, the journal and
+ * conference papers whose URL passes the filter or having one of the collected
+ * authors, and the home page records of the collected authors. The snapshot is
+ * then written with the publications sorted by key, the publications of each
+ * table of contents in the order of the XML file, and the publications of each
+ * person by decreasing key, as in the snapshot of the DBLP main memory DB.
+ * Field values are saved as in the DBLP main memory DB (titles and URLs with
+ * their markup and the characters &amp;, &lt;, and &gt; escaped, names and book
+ * titles as plain text). Only the collected authors have a key and their
+ * primary name: the other persons have no key and the name with which they
+ * first appear.
+ */
+public class FilteredSnapshotWriter {
+	/**
+	 * Fields of a DBLP record read during the two passes.
+	 */
+	static class Record {
+		String tag;
+		String key;
+		String publtype;
+		List<String> names = new ArrayList<>();
+		String title = "";
+		String url = "";
+		String first_url = null;
+		String booktitle = null;
+		String year = null;
+		long[] persons;
+		int index;
+
+		boolean is_person() {
+			return tag.equals("person") || (tag.equals("www") && title.equals("Home Page"));
+		}
+
+		boolean is_paper() {
+			return tag.equals("article") || tag.equals("inproceedings");
+		}
+
+		/**
+		 * Return the key of the table of contents of the publication, obtained from
+		 * its first URL (db/.../name.html#anchor corresponds to db/.../name.bht).
+		 *
+		 * @return : the key of the table of contents or null if the URL does not
+		 *         refer to a table of contents
+		 */
+		String toc() {
+			if (first_url == null || !first_url.startsWith("db/") || !first_url.contains(".html")) {
+				return null;
+			}
+			return first_url.substring(0, first_url.indexOf(".html")) + ".bht";
+		}
+
+		int year() {
+			try {
+				return Integer.parseInt(year);
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Aliases of the persons: the hash of each alias is associated with the index
+	 * of the hash of the primary name of the person.
+	 */
+	LongIntHashMap alias = new LongIntHashMap();
+	long[] primary = new long[16];
+	/**
+	 * Collected authors: the hash of the primary name of each author is associated
+	 * with the index of its key and of its primary name.
+	 */
+	LongIntHashMap venue = new LongIntHashMap();
+	String[] venue_key = new String[16];
+	String[] venue_name = new String[16];
+	long records = 0;
+
+	static long hash(String name) {
+		return MinHashSketch.hash(name);
+	}
+
+	/**
+	 * Return the hash of the primary name of the person with the given name.
+	 *
+	 * @param name : the name
+	 * @return : the hash of the primary name
+	 */
+	long person(String name) {
+		return person(hash(name));
+	}
+
+	long person(long h) {
+		int a = alias.get(h, -1);
+		return a < 0 ? h : primary[a];
+	}
+
+	static boolean in_toc(Record record, Set<String> toc_keys) {
+		String toc = record.toc();
+		return toc != null && toc_keys.contains(toc);
+	}
+
+	static void escape(StringBuilder sb, String s) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '&') {
+				sb.append("&amp;");
+			} else if (c == '<') {
+				sb.append("&lt;");
+			} else if (c == '>') {
+				sb.append("&gt;");
+			} else {
+				sb.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Read the content of the current element until its end tag.
+	 *
+	 * @param r      : the XML reader positioned on the start tag of the element
+	 * @param markup : if true, the content is returned with its inner tags and
+	 *               with the characters &, <, and > escaped, otherwise only its
+	 *               text is returned
+	 * @return : the content of the element
+	 * @throws XMLStreamException
+	 */
+	static String read_content(XMLStreamReader r, boolean markup) throws XMLStreamException {
+		StringBuilder sb = new StringBuilder();
+		int depth = 0;
+		while (true) {
+			int event = r.next();
+			if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+					|| event == XMLStreamConstants.SPACE) {
+				if (markup) {
+					escape(sb, r.getText());
+				} else {
+					sb.append(r.getText());
+				}
+			} else if (event == XMLStreamConstants.START_ELEMENT) {
+				depth = depth + 1;
+				if (markup) {
+					sb.append('<').append(r.getLocalName());
+					for (int a = 0; a < r.getAttributeCount(); a++) {
+						sb.append(' ').append(r.getAttributeLocalName(a)).append("=\"");
+						escape(sb, r.getAttributeValue(a));
+						sb.append('"');
+					}
+					sb.append('>');
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == 0) {
+					return sb.toString();
+				}
+				depth = depth - 1;
+				if (markup) {
+					sb.append("</").append(r.getLocalName()).append('>');
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read the record starting at the current element.
+	 *
+	 * @param r : the XML reader positioned on the start tag of the record
+	 * @return : the record
+	 * @throws XMLStreamException
+	 */
+	static Record read_record(XMLStreamReader r) throws XMLStreamException {
+		Record record = new Record();
+		record.tag = r.getLocalName();
+		record.key = r.getAttributeValue(null, "key");
+		record.publtype = r.getAttributeValue(null, "publtype");
+		while (r.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String field = r.getLocalName();
+			if (field.equals("author") || field.equals("editor")) {
+				record.names.add(read_content(r, false));
+			} else if (field.equals("title")) {
+				record.title = record.title.concat(read_content(r, true));
+			} else if (field.equals("url")) {
+				String url = read_content(r, true);
+				record.url = record.url.concat(url);
+				if (record.first_url == null) {
+					record.first_url = url;
+				}
+			} else if (field.equals("booktitle") && record.booktitle == null) {
+				record.booktitle = read_content(r, false);
+			} else if (field.equals("year") && record.year == null) {
+				record.year = read_content(r, false);
+			} else {
+				read_content(r, false);
+			}
+		}
+		return record;
+	}
+
+	/**
+	 * Interface of the two passes over the records of the XML file.
+	 */
+	interface RecordVisitor {
+		void visit(Record record) throws IOException;
+	}
+
+	/**
+	 * Stream the records of the XML file (the DTD is resolved with respect to the
+	 * directory of the XML file).
+	 *
+	 * @param xml_fn  : the DBLP XML file
+	 * @param visitor : the visitor of the records
+	 * @throws IOException
+	 */
+	void stream(String xml_fn, RecordVisitor visitor) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+		File xml = new File(xml_fn);
+		try (InputStream is = new BufferedInputStream(new FileInputStream(xml), 1 << 20)) {
+			XMLStreamReader r = factory.createXMLStreamReader(xml.toURI().toString(), is);
+			while (r.next() != XMLStreamConstants.START_ELEMENT) {
+			}
+			int order = 0;
+			while (r.nextTag() == XMLStreamConstants.START_ELEMENT) {
+				visitor.visit(read_record(r));
+				order = order + 1;
+			}
+			r.close();
+			records = order;
+		} catch (XMLStreamException e) {
+			throw new IOException("cannot parse XML: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * First pass: collect the aliases of the persons and the names of the authors
+	 * of the publications in the tables of contents. The collected authors are
+	 * then identified by the hash of their primary name.
+	 *
+	 * @param xml_fn   : the DBLP XML file
+	 * @param toc_keys : keys of the tables of contents of the conference editions
+	 * @throws IOException
+	 */
+	void collect_authors(String xml_fn, Set<String> toc_keys) throws IOException {
+		LongIntHashMap names = new LongIntHashMap();
+		stream(xml_fn, record -> {
+			if (record.is_person()) {
+				for (int i = 1; i < record.names.size(); i++) {
+					if (alias.size() == primary.length) {
+						primary = Arrays.copyOf(primary, 2 * primary.length);
+					}
+					primary[alias.size()] = hash(record.names.get(0));
+					alias.put(hash(record.names.get(i)), alias.size());
+				}
+			} else if (!record.tag.equals("proceedings") && in_toc(record, toc_keys)) {
+				for (String name : record.names) {
+					names.put(hash(name), 0);
+				}
+			}
+		});
+		for (long h : names.sorted_keys()) {
+			long p = person(h);
+			if (!venue.contains(p)) {
+				venue.put(p, venue.size());
+			}
+		}
+		venue_key = new String[venue.size()];
+		venue_name = new String[venue.size()];
+	}
+
+	/**
+	 * Second pass: keep the publications in the tables of contents, the journal
+	 * and conference papers whose URL passes the filter or having one of the
+	 * collected authors, and the home pages of the collected authors.
+	 *
+	 * @param xml_fn     : the DBLP XML file
+	 * @param toc_keys   : keys of the tables of contents of the conference
+	 *                   editions
+	 * @param url_filter : filter on the URLs (in upper case) of the papers
+	 * @return : the kept publications in the order of the XML file
+	 * @throws IOException
+	 */
+	List<Record> collect_publications(String xml_fn, Set<String> toc_keys, Predicate<String> url_filter)
+			throws IOException {
+		List<Record> pubs = new ArrayList<>();
+		stream(xml_fn, record -> {
+			if (record.is_person()) {
+				if (record.names.size() > 0) {
+					int v = venue.get(hash(record.names.get(0)), -1);
+					if (v >= 0) {
+						venue_key[v] = record.key;
+						venue_name[v] = record.names.get(0);
+					}
+				}
+				return;
+			}
+			record.persons = new long[record.names.size()];
+			boolean keep = in_toc(record, toc_keys)
+					|| (record.is_paper() && url_filter.test(record.url.toUpperCase()));
+			for (int i = 0; i < record.persons.length; i++) {
+				record.persons[i] = person(record.names.get(i));
+				keep = keep || (record.is_paper() && venue.contains(record.persons[i]));
+			}
+			if (keep) {
+				pubs.add(record);
+			}
+		});
+		return pubs;
+	}
+
+	/**
+	 * Write the snapshot of the kept publications.
+	 *
+	 * @param pubs     : the kept publications in the order of the XML file
+	 * @param toc_keys : keys of the tables of contents of the conference editions
+	 * @param fn       : file on which the snapshot is saved
+	 * @throws IOException
+	 */
+	void write(List<Record> pubs, Set<String> toc_keys, String fn) throws IOException {
+		Map<String, List<Record>> toc_records = new TreeMap<>();
+		for (Record pub : pubs) {
+			if (in_toc(pub, toc_keys)) {
+				toc_records.computeIfAbsent(pub.toc(), k -> new ArrayList<>()).add(pub);
+			}
+		}
+		pubs.sort(Comparator.comparing((Record pub) -> pub.key));
+		StringPool sp = new StringPool();
+		LongIntHashMap person_index = new LongIntHashMap();
+		Map<String, Integer> tag_index = new HashMap<>();
+		IntColumn tag_strings = new IntColumn();
+		IntColumn pub_tag = new IntColumn(), pub_year = new IntColumn(), pub_url = new IntColumn();
+		IntColumn pub_key = new IntColumn(), pub_publtype = new IntColumn(), pub_title = new IntColumn();
+		IntColumn pub_booktitle = new IntColumn(), pub_author_off = new IntColumn(), pub_authors = new IntColumn();
+		IntColumn person_key = new IntColumn(), person_name = new IntColumn();
+		IntColumn person_pub_off = new IntColumn(), person_pubs = new IntColumn();
+		IntColumn toc_key = new IntColumn(), toc_pub_off = new IntColumn(), toc_pubs = new IntColumn();
+		pub_author_off.add(0);
+		for (int p = 0; p < pubs.size(); p++) {
+			Record pub = pubs.get(p);
+			pub.index = p;
+			Integer tag_id = tag_index.get(pub.tag);
+			if (tag_id == null) {
+				tag_id = tag_strings.size;
+				tag_index.put(pub.tag, tag_id);
+				tag_strings.add(sp.add(pub.tag));
+			}
+			pub_tag.add(tag_id);
+			pub_year.add(pub.year());
+			pub_url.add(sp.add(pub.url));
+			pub_key.add(sp.add(pub.key));
+			pub_publtype.add(sp.add_shared(pub.publtype));
+			pub_title.add(sp.add(pub.title));
+			pub_booktitle.add(sp.add_shared(pub.booktitle));
+			for (int i = 0; i < pub.persons.length; i++) {
+				int a = person_index.get(pub.persons[i], -1);
+				if (a < 0) {
+					a = person_index.size();
+					person_index.put(pub.persons[i], a);
+					int v = venue.get(pub.persons[i], -1);
+					person_key.add(sp.add(v >= 0 ? venue_key[v] : null));
+					person_name.add(sp.add(v >= 0 && venue_name[v] != null ? venue_name[v] : pub.names.get(i)));
+				}
+				pub_authors.add(a);
+			}
+			pub_author_off.add(pub_authors.size);
+		}
+		int n_persons = person_index.size();
+		int[] offset = new int[n_persons + 1];
+		for (int i = 0; i < pub_authors.size; i++) {
+			offset[pub_authors.a[i] + 1]++;
+		}
+		for (int a = 0; a < n_persons; a++) {
+			offset[a + 1] = offset[a + 1] + offset[a];
+		}
+		for (int a = 0; a <= n_persons; a++) {
+			person_pub_off.add(offset[a]);
+		}
+		person_pubs.a = new int[Math.max(pub_authors.size, 1)];
+		person_pubs.size = pub_authors.size;
+		for (int p = pubs.size() - 1; p >= 0; p--) {
+			for (int i = pub_author_off.a[p]; i < pub_author_off.a[p + 1]; i++) {
+				person_pubs.a[offset[pub_authors.a[i]]++] = p;
+			}
+		}
+		toc_pub_off.add(0);
+		for (Map.Entry<String, List<Record>> entry : toc_records.entrySet()) {
+			toc_key.add(sp.add(entry.getKey()));
+			for (Record pub : entry.getValue()) {
+				toc_pubs.add(pub.index);
+			}
+			toc_pub_off.add(toc_pubs.size);
+		}
+		DblpSnapshot.save(fn, sp, tag_strings, pub_tag, pub_year, pub_url, pub_key, pub_publtype, pub_title,
+				pub_booktitle, pub_author_off, pub_authors, person_key, person_name, person_pub_off, person_pubs,
+				toc_key, toc_pub_off, toc_pubs);
+	}
+
+	/**
+	 * Create the snapshot restricted to the publications relevant to the
+	 * conferences by streaming the DBLP XML file twice.
+	 *
+	 * @param xml_fn     : the DBLP XML file
+	 * @param toc_keys   : keys of the tables of contents of the conference
+	 *                   editions
+	 * @param url_filter : filter on the URLs (in upper case) of the conference
+	 *                   papers
+	 * @param fn         : file on which the snapshot is saved
+	 * @return : number of records of the XML file
+	 * @throws IOException
+	 */
+	public static long write(String xml_fn, Set<String> toc_keys, Predicate<String> url_filter, String fn)
+			throws IOException {
+		FilteredSnapshotWriter writer = new FilteredSnapshotWriter();
+		writer.collect_authors(xml_fn, toc_keys);
+		List<Record> pubs = writer.collect_publications(xml_fn, toc_keys, url_filter);
+		writer.write(pubs, toc_keys, fn);
+		return writer.records;
+	}
+}
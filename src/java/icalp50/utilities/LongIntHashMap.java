@@ -0,0 +1,181 @@
+package icalp50.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table (with linear probing) associating long keys with
+ * integer values, without boxing keys and values. It is mainly used with keys
+ * obtained by packing two author ids into one long.
+ */
+public class LongIntHashMap {
+	long[] keys;
+	int[] values;
+	boolean[] used;
+	int mask;
+	int size = 0;
+
+	public LongIntHashMap() {
+		this(16);
+	}
+
+	public LongIntHashMap(int expected_size) {
+		int capacity = 16;
+		while (capacity < 2L * expected_size) {
+			capacity = 2 * capacity;
+		}
+		allocate(capacity);
+	}
+
+	void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Pack two integers into one long (the first integer in the high bits), so
+	 * that sorting the packed longs sorts the pairs lexicographically when both
+	 * integers are non-negative.
+	 *
+	 * @param x : the first integer
+	 * @param y : the second integer
+	 * @return : the packed long
+	 */
+	public static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	public static int high(long key) {
+		return (int) (key >>> 32);
+	}
+
+	public static int low(long key) {
+		return (int) key;
+	}
+
+	static int hash(long key) {
+		key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+		key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return (int) (key ^ (key >>> 33));
+	}
+
+	int slot(long key) {
+		int slot = hash(key) & mask;
+		while (used[slot] && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	void rehash() {
+		long[] old_keys = keys;
+		int[] old_values = values;
+		boolean[] old_used = used;
+		allocate(2 * old_keys.length);
+		for (int i = 0; i < old_keys.length; i++) {
+			if (old_used[i]) {
+				int slot = slot(old_keys[i]);
+				used[slot] = true;
+				keys[slot] = old_keys[i];
+				values[slot] = old_values[i];
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(long key) {
+		return used[slot(key)];
+	}
+
+	/**
+	 * Return the value associated with the key.
+	 *
+	 * @param key           : the key
+	 * @param default_value : value returned if the key is not in the table
+	 * @return : the value associated with the key or the default value
+	 */
+	public int get(long key, int default_value) {
+		int slot = slot(key);
+		return used[slot] ? values[slot] : default_value;
+	}
+
+	public void put(long key, int value) {
+		int slot = slot(key);
+		if (!used[slot]) {
+			used[slot] = true;
+			keys[slot] = key;
+			size = size + 1;
+			if (2 * size > keys.length) {
+				values[slot] = value;
+				rehash();
+				return;
+			}
+		}
+		values[slot] = value;
+	}
+
+	/**
+	 * Add a quantity to the value associated with the key (a key which is not in
+	 * the table is inserted with value equal to the quantity).
+	 *
+	 * @param key   : the key
+	 * @param delta : the quantity to be added
+	 */
+	public void add(long key, int delta) {
+		int slot = slot(key);
+		if (used[slot]) {
+			values[slot] = values[slot] + delta;
+		} else {
+			put(key, delta);
+		}
+	}
+
+	/**
+	 * Remove the key from the table (if it is in the table). The following keys
+	 * of the same cluster are shifted backward, so that no deleted marker is
+	 * needed.
+	 *
+	 * @param key : the key
+	 */
+	public void remove(long key) {
+		int hole = slot(key);
+		if (!used[hole]) {
+			return;
+		}
+		used[hole] = false;
+		size = size - 1;
+		int next = (hole + 1) & mask;
+		while (used[next]) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				used[hole] = true;
+				used[next] = false;
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+	}
+
+	/**
+	 * Return the keys of the table in increasing order.
+	 *
+	 * @return : the sorted keys
+	 */
+	public long[] sorted_keys() {
+		long[] sorted = new long[size];
+		int j = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				sorted[j++] = keys[i];
+			}
+		}
+		Arrays.sort(sorted);
+		return sorted;
+	}
+}
@@ -0,0 +1,159 @@
+package icalp50.utilities;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * MinHash sketch of a set of strings (typically, the DBLP keys of the authors
+ * of a conference): for each of K hash functions, the sketch keeps the minimum
+ * hash value of the elements of the set. The fraction of hash functions for
+ * which the sketches of two sets have the same minimum is an unbiased estimate
+ * of the Jaccard index of the two sets (with standard error at most
+ * 1/(2*sqrt(K))), and the sketch of the union of two sets is the
+ * component-wise minimum of their sketches.
+ */
+public class MinHashSketch {
+	public static final int K = 256;
+	static final long EMPTY = Long.MAX_VALUE;
+
+	long[] min = new long[K];
+
+	public MinHashSketch() {
+		Arrays.fill(min, EMPTY);
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the characters of the string.
+	 *
+	 * @param s : the string
+	 * @return : the hash value
+	 */
+	static long hash(String s) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < s.length(); i++) {
+			h = (h ^ s.charAt(i)) * 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/**
+	 * Finalizer of the SplitMix64 generator, used to derive the K hash functions
+	 * from one hash value.
+	 *
+	 * @param x : the value
+	 * @return : the mixed value
+	 */
+	static long mix(long x) {
+		x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+		x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+		return (x ^ (x >>> 31)) >>> 1;
+	}
+
+	public void add(String s) {
+		long h = hash(s);
+		for (int i = 0; i < K; i++) {
+			long x = mix(h + (i + 1) * 0x9e3779b97f4a7c15L);
+			if (x < min[i]) {
+				min[i] = x;
+			}
+		}
+	}
+
+	/**
+	 * Add to this sketch the elements of the set of another sketch.
+	 *
+	 * @param other : the other sketch
+	 */
+	public void union(MinHashSketch other) {
+		for (int i = 0; i < K; i++) {
+			min[i] = Math.min(min[i], other.min[i]);
+		}
+	}
+
+	public MinHashSketch copy() {
+		MinHashSketch sketch = new MinHashSketch();
+		System.arraycopy(min, 0, sketch.min, 0, K);
+		return sketch;
+	}
+
+	public boolean is_empty() {
+		return min[0] == EMPTY;
+	}
+
+	/**
+	 * Return the estimate of the Jaccard index of the sets of the two sketches (0
+	 * if both sets are empty).
+	 *
+	 * @param other : the other sketch
+	 * @return : the estimated Jaccard index
+	 */
+	public double jaccard(MinHashSketch other) {
+		if (is_empty() && other.is_empty()) {
+			return 0;
+		}
+		int equal = 0;
+		for (int i = 0; i < K; i++) {
+			if (min[i] == other.min[i]) {
+				equal = equal + 1;
+			}
+		}
+		return (double) equal / K;
+	}
+
+	/**
+	 * Save the sketches of the years of a conference, one line y##year##s##values
+	 * per year, where values are the K minimum hash values separated by commas.
+	 *
+	 * @param year_sketch : sketch of each year
+	 * @param fno         : file on which the sketches are saved
+	 * @throws IOException
+	 */
+	public static void save(Map<Integer, MinHashSketch> year_sketch, String fno) throws IOException {
+		try (RecordWriter sk_rw = new RecordWriter(fno)) {
+			for (Map.Entry<Integer, MinHashSketch> entry : year_sketch.entrySet()) {
+				sk_rw.append("y##").append(entry.getKey()).append("##s##");
+				long[] min = entry.getValue().min;
+				for (int i = 0; i < K; i++) {
+					if (i > 0) {
+						sk_rw.append(',');
+					}
+					sk_rw.append(Long.toHexString(min[i]));
+				}
+				sk_rw.append('\n');
+			}
+		}
+	}
+
+	/**
+	 * Read the sketches of the years of a conference.
+	 *
+	 * @param fni : file containing the sketches
+	 * @return : sketch of each year
+	 * @throws IOException
+	 */
+	public static TreeMap<Integer, MinHashSketch> read(String fni) throws IOException {
+		TreeMap<Integer, MinHashSketch> year_sketch = new TreeMap<>();
+		BufferedReader sk_br = new BufferedReader(new FileReader(fni));
+		String line = sk_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split("##");
+			String[] values = split_line[3].split(",");
+			if (values.length != K) {
+				sk_br.close();
+				throw new IOException(fni + " contains sketches with " + values.length + " values instead of " + K);
+			}
+			MinHashSketch sketch = new MinHashSketch();
+			for (int i = 0; i < K; i++) {
+				sketch.min[i] = Long.parseUnsignedLong(values[i], 16);
+			}
+			year_sketch.put(Integer.parseInt(split_line[1]), sketch);
+			line = sk_br.readLine();
+		}
+		sk_br.close();
+		return year_sketch;
+	}
+}
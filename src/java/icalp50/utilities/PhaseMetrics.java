@@ -0,0 +1,385 @@
+package icalp50.utilities;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Measurements of one phase of the analysis of one conference (or of several
+ * conferences, when the phase is shared by them): wall-clock time, CPU time and
+ * bytes allocated by the thread executing the phase, peak heap usage, and the
+ * counters of the publications scanned, of the author pairs visited, of the
+ * edges written, and of the bytes written. A phase is measured between the
+ * start method and the close method, which have to be invoked by the same
+ * thread (typically, by a try-with-resources statement). If a part of the
+ * phase is executed by other threads (for instance, by a pool), the CPU time
+ * and the bytes allocated by these threads are added to the ones of the phase
+ * by the thread_usage and add_thread_usage methods, invoked by each of these
+ * threads at the start and at the end of its part. If the report or the JFR
+ * events are not required, the measurements are not recorded.
+ *
+ * The peak heap usage is the sum of the peak usages of the heap memory pools
+ * since the start of the phase: the peaks are reset at the start of a phase
+ * only if no other phase is running, so that with concurrent phases the peak
+ * is the one of all running phases.
+ */
+public class PhaseMetrics implements AutoCloseable {
+	/**
+	 * File on which the report of all phases is saved when the program
+	 * terminates (in CSV format if the file name ends with .csv, in JSON format
+	 * otherwise). If null, no report is saved.
+	 */
+	public static final String report_file_name = System.getProperty("icalp50.report");
+	/**
+	 * If true, a JFR event is committed at the end of each phase (the events are
+	 * recorded only if a flight recording is running, for instance because the
+	 * JVM has been started with -XX:StartFlightRecording).
+	 */
+	public static final boolean jfr_events = Boolean.getBoolean("icalp50.jfr");
+	public static final boolean enabled = report_file_name != null || jfr_events;
+
+	/**
+	 * Maximum number of phases kept for the report (for instance, by a resident
+	 * server executing many jobs): if it is exceeded, the oldest phases are
+	 * discarded, so that the report contains the most recent ones.
+	 */
+	public static final int max_completed = Integer.getInteger("icalp50.report_max_phases", 1 << 16);
+
+	static final ArrayDeque<PhaseMetrics> completed = new ArrayDeque<>();
+	static long discarded = 0;
+	static final AtomicInteger running = new AtomicInteger(0);
+	static {
+		if (report_file_name != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(PhaseMetrics::save_report));
+		}
+	}
+
+	@Name("icalp50.Phase")
+	@Label("Analysis Phase")
+	@Category("ConferenceMining")
+	static class PhaseEvent extends Event {
+		@Label("Phase")
+		String phase;
+		@Label("Conference")
+		String conference;
+		@Label("Publications")
+		long publications;
+		@Label("Author Pairs")
+		long author_pairs;
+		@Label("Edges")
+		long edges;
+		@Label("Bytes Written")
+		@DataAmount
+		long bytes;
+	}
+
+	String phase;
+	String conference;
+	long start_time;
+	long start_cpu;
+	long start_allocated;
+	long wall_time;
+	long cpu_time;
+	long allocated;
+	long peak_heap;
+	/**
+	 * CPU time and bytes allocated by the other threads executing parts of the
+	 * phase.
+	 */
+	long other_cpu_time = 0;
+	long other_allocated = 0;
+	long publications = 0;
+	long author_pairs = 0;
+	long edges = 0;
+	long bytes = 0;
+	PhaseEvent event;
+
+	/**
+	 * Start measuring a phase.
+	 *
+	 * @param phase      : name of the phase
+	 * @param conference : acronym of the conference (or of the conferences)
+	 * @return : the measurements of the phase
+	 */
+	public static PhaseMetrics start(String phase, String conference) {
+		PhaseMetrics m = new PhaseMetrics();
+		m.phase = phase;
+		m.conference = conference;
+		if (enabled) {
+			if (running.getAndIncrement() == 0) {
+				for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+					if (pool.getType() == MemoryType.HEAP) {
+						pool.resetPeakUsage();
+					}
+				}
+			}
+			m.start_cpu = thread_cpu_time();
+			m.start_allocated = thread_allocated_bytes();
+			if (jfr_events) {
+				m.event = new PhaseEvent();
+				m.event.begin();
+			}
+			m.start_time = System.nanoTime();
+		}
+		return m;
+	}
+
+	static long thread_cpu_time() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		return bean.isCurrentThreadCpuTimeSupported() ? bean.getCurrentThreadCpuTime() : 0;
+	}
+
+	static long thread_allocated_bytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	static long heap_peak_usage() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+				peak = peak + pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	/**
+	 * Return the CPU time and the bytes allocated by the current thread so far,
+	 * at the start of a part of a phase executed by the thread (if the
+	 * measurements are not recorded, null is returned).
+	 *
+	 * @return : the CPU time and the bytes allocated by the current thread
+	 */
+	public static long[] thread_usage() {
+		return enabled ? new long[] { thread_cpu_time(), thread_allocated_bytes() } : null;
+	}
+
+	/**
+	 * Add to the phase the CPU time and the bytes allocated by the current thread
+	 * since the start of a part of the phase executed by the thread (it can be
+	 * invoked by several threads at once).
+	 *
+	 * @param start : the value returned by thread_usage at the start of the part
+	 */
+	public void add_thread_usage(long[] start) {
+		if (start != null) {
+			long cpu = thread_cpu_time() - start[0];
+			long bytes_allocated = thread_allocated_bytes() - start[1];
+			synchronized (this) {
+				other_cpu_time = other_cpu_time + cpu;
+				other_allocated = other_allocated + bytes_allocated;
+			}
+		}
+	}
+
+	public void add_publications(long n) {
+		publications = publications + n;
+	}
+
+	public void add_author_pairs(long n) {
+		author_pairs = author_pairs + n;
+	}
+
+	public void add_edges(long n) {
+		edges = edges + n;
+	}
+
+	/**
+	 * Add the size of a file written by the phase to the bytes written (files
+	 * which do not exist are ignored).
+	 *
+	 * @param fn : the file name
+	 */
+	public void add_file(String fn) {
+		bytes = bytes + new File(fn).length();
+	}
+
+	/**
+	 * Record the counters of a part of a shared phase which cannot be measured
+	 * separately (for instance, the part of the scan of the DBLP publications
+	 * relative to one conference): the times, the allocation and the peak heap
+	 * of the record are zero. As for the measured phases, the record is added to
+	 * the report and committed as a JFR event if they are required.
+	 *
+	 * @param phase        : name of the phase
+	 * @param conference   : acronym of the conference
+	 * @param publications : number of publications
+	 * @param author_pairs : number of author pairs
+	 * @param edges        : number of edges
+	 */
+	public static void record(String phase, String conference, long publications, long author_pairs, long edges) {
+		if (!enabled) {
+			return;
+		}
+		PhaseMetrics m = new PhaseMetrics();
+		m.phase = phase;
+		m.conference = conference;
+		m.publications = publications;
+		m.author_pairs = author_pairs;
+		m.edges = edges;
+		if (jfr_events) {
+			m.event = new PhaseEvent();
+			m.commit_event();
+		}
+		if (report_file_name != null) {
+			add_completed(m);
+		}
+	}
+
+	void commit_event() {
+		event.phase = phase;
+		event.conference = conference;
+		event.publications = publications;
+		event.author_pairs = author_pairs;
+		event.edges = edges;
+		event.bytes = bytes;
+		event.commit();
+	}
+
+	static void add_completed(PhaseMetrics m) {
+		synchronized (completed) {
+			completed.addLast(m);
+			while (completed.size() > max_completed) {
+				completed.removeFirst();
+				discarded = discarded + 1;
+			}
+		}
+	}
+
+	/**
+	 * Stop measuring the phase and record its measurements.
+	 */
+	@Override
+	public void close() {
+		if (!enabled) {
+			return;
+		}
+		wall_time = System.nanoTime() - start_time;
+		synchronized (this) {
+			cpu_time = thread_cpu_time() - start_cpu + other_cpu_time;
+			allocated = thread_allocated_bytes() - start_allocated + other_allocated;
+		}
+		peak_heap = heap_peak_usage();
+		running.decrementAndGet();
+		if (event != null) {
+			event.end();
+			commit_event();
+		}
+		if (report_file_name != null) {
+			add_completed(this);
+		}
+	}
+
+	/**
+	 * Return the string as a JSON string literal.
+	 *
+	 * @param s : the string
+	 * @return : the quoted and escaped string
+	 */
+	public static String json_string(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append("\"").toString();
+	}
+
+	static String csv_string(String s) {
+		if (s.contains(",") || s.contains("\"")) {
+			return "\"" + s.replace("\"", "\"\"") + "\"";
+		}
+		return s;
+	}
+
+	/**
+	 * Save the report of the recorded phases (the last max_completed ones), in
+	 * the order in which they have terminated, one row (or JSON object) per phase
+	 * with the fields phase, conference, wall_ms, cpu_ms, allocated_bytes,
+	 * peak_heap_bytes, publications, author_pairs, edges, and bytes_written. The
+	 * JSON report also contains the maximum heap size of the JVM and the number
+	 * of discarded phases.
+	 *
+	 * @param fno : file on which the report is saved
+	 * @throws IOException
+	 */
+	public static void save(String fno) throws IOException {
+		List<PhaseMetrics> phases;
+		long num_discarded;
+		synchronized (completed) {
+			phases = new ArrayList<>(completed);
+			num_discarded = discarded;
+		}
+		boolean csv = fno.endsWith(".csv");
+		BufferedWriter bw = new BufferedWriter(new FileWriter(fno));
+		if (csv) {
+			bw.write("phase,conference,wall_ms,cpu_ms,allocated_bytes,peak_heap_bytes,publications,author_pairs,"
+					+ "edges,bytes_written\n");
+		} else {
+			bw.write("{\n  \"max_heap_bytes\": " + Runtime.getRuntime().maxMemory() + ",\n  \"discarded_phases\": "
+					+ num_discarded + ",\n  \"phases\": [");
+		}
+		for (int i = 0; i < phases.size(); i++) {
+			PhaseMetrics m = phases.get(i);
+			long[] values = { m.wall_time / 1000000, m.cpu_time / 1000000, m.allocated, m.peak_heap, m.publications,
+					m.author_pairs, m.edges, m.bytes };
+			if (csv) {
+				StringBuilder line = new StringBuilder(csv_string(m.phase) + "," + csv_string(m.conference));
+				for (long v : values) {
+					line.append(",").append(v);
+				}
+				bw.write(line.append("\n").toString());
+			} else {
+				String[] names = { "wall_ms", "cpu_ms", "allocated_bytes", "peak_heap_bytes", "publications",
+						"author_pairs", "edges", "bytes_written" };
+				StringBuilder object = new StringBuilder(i > 0 ? ",\n" : "\n");
+				object.append("    {\"phase\": ").append(json_string(m.phase)).append(", \"conference\": ")
+						.append(json_string(m.conference));
+				for (int v = 0; v < values.length; v++) {
+					object.append(", \"").append(names[v]).append("\": ").append(values[v]);
+				}
+				bw.write(object.append("}").toString());
+			}
+		}
+		if (!csv) {
+			bw.write("\n  ]\n}\n");
+		}
+		bw.close();
+	}
+
+	/**
+	 * Save the report in the file specified by the icalp50.report property.
+	 */
+	static void save_report() {
+		try {
+			save(report_file_name);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
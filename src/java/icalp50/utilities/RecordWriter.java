@@ -0,0 +1,352 @@
+package icalp50.utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writer of the text files of the conferences (in the ## delimited format and
+ * in the CSV format), encoded in UTF-8. Strings and integers are appended
+ * directly into a byte buffer, without formatting or concatenating strings.
+ * When the buffer is full, it is handed to a background thread shared by all
+ * writers, which writes it with a single write on the file channel, while the
+ * writer continues in another buffer (at most MAX_PENDING buffers of a writer
+ * are waiting to be written, and the buffers are reused by all writers). If
+ * the file name ends with .gz, the file is compressed in the gzip format: the
+ * compression is executed by the thread of the writer (so that the files of
+ * different writers are compressed in parallel), and only the buffers of
+ * compressed bytes are handed to the background thread.
+ *
+ * A writer without a file keeps all the appended bytes in memory (see the
+ * to_byte_array method), so that parts of a file can be prepared in advance.
+ * A writer must be used by one thread at a time, and the file is complete only
+ * after the close method has returned.
+ */
+public class RecordWriter implements Closeable {
+	public static final int BUFFER_SIZE = 1 << 20;
+	static final int MAX_PENDING = 2;
+	static final int MAX_POOLED = 16;
+	static final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<>();
+	static final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "icalp50-writer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	byte[] buf;
+	int pos = 0;
+	FileChannel channel;
+	OutputStream gzip;
+	byte[] zbuf;
+	int zpos = 0;
+	Semaphore pending = new Semaphore(MAX_PENDING);
+	volatile IOException failure = null;
+
+	/**
+	 * Create a writer which keeps the appended bytes in memory.
+	 */
+	public RecordWriter() {
+		buf = new byte[256];
+	}
+
+	/**
+	 * Create (or truncate) the file and a writer on it.
+	 *
+	 * @param fno : the file name (the file is compressed if the name ends with
+	 *            .gz)
+	 * @throws IOException
+	 */
+	public RecordWriter(String fno) throws IOException {
+		channel = FileChannel.open(Paths.get(fno), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		if (fno.endsWith(".gz")) {
+			zbuf = take_buffer();
+			gzip = new GZIPOutputStream(new CompressedBuffer(), 1 << 16);
+		}
+		buf = take_buffer();
+	}
+
+	static byte[] take_buffer() {
+		byte[] b = pool.poll();
+		return b != null ? b : new byte[BUFFER_SIZE];
+	}
+
+	static void release_buffer(byte[] b) {
+		if (pool.size() < MAX_POOLED) {
+			pool.offer(b);
+		}
+	}
+
+	/**
+	 * Write the bytes on the file (executed by the background thread).
+	 */
+	void write_bytes(byte[] b, int len) throws IOException {
+		ByteBuffer bb = ByteBuffer.wrap(b, 0, len);
+		while (bb.hasRemaining()) {
+			channel.write(bb);
+		}
+	}
+
+	/**
+	 * Hand the first len bytes of the buffer to the background thread, which
+	 * writes them on the file and then releases the buffer.
+	 *
+	 * @param b   : the buffer
+	 * @param len : number of bytes to be written
+	 * @throws IOException : if a previous write has failed
+	 */
+	void hand_off(byte[] b, int len) throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		try {
+			pending.acquire();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+		flusher.execute(() -> {
+			try {
+				if (failure == null) {
+					write_bytes(b, len);
+				}
+			} catch (IOException e) {
+				failure = e;
+			} finally {
+				release_buffer(b);
+				pending.release();
+			}
+		});
+	}
+
+	/**
+	 * Stream of the compressed bytes of a .gz file, which are collected in zbuf
+	 * and handed to the background thread when zbuf is full or the stream is
+	 * closed (the file channel is closed by the close method of the writer).
+	 */
+	class CompressedBuffer extends OutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			if (zpos == zbuf.length) {
+				hand_off(zbuf, zpos);
+				zbuf = take_buffer();
+				zpos = 0;
+			}
+			zbuf[zpos++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (zpos == zbuf.length) {
+					hand_off(zbuf, zpos);
+					zbuf = take_buffer();
+					zpos = 0;
+				}
+				int n = Math.min(len, zbuf.length - zpos);
+				System.arraycopy(b, off, zbuf, zpos, n);
+				zpos = zpos + n;
+				off = off + n;
+				len = len - n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			byte[] b = zbuf;
+			zbuf = null;
+			if (zpos > 0) {
+				hand_off(b, zpos);
+			} else {
+				release_buffer(b);
+			}
+		}
+	}
+
+	/**
+	 * Hand the current buffer to the background thread and continue in another
+	 * buffer, or compress it if the file is compressed (or, if the writer has no
+	 * file, enlarge the buffer so that it has room for n more bytes).
+	 *
+	 * @param n : number of bytes to be appended
+	 * @throws IOException
+	 */
+	void make_room(int n) throws IOException {
+		if (channel == null) {
+			buf = Arrays.copyOf(buf, Math.max(2 * buf.length, pos + n));
+			return;
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		if (pos > 0) {
+			if (gzip != null) {
+				gzip.write(buf, 0, pos);
+			} else {
+				hand_off(buf, pos);
+				buf = take_buffer();
+			}
+			pos = 0;
+		}
+	}
+
+	public RecordWriter append(char c) throws IOException {
+		if (pos == buf.length) {
+			make_room(1);
+		}
+		buf[pos++] = (byte) c;
+		return this;
+	}
+
+	public RecordWriter append(int x) throws IOException {
+		return append((long) x);
+	}
+
+	public RecordWriter append(long x) throws IOException {
+		if (x == Long.MIN_VALUE) {
+			return append(Long.toString(x));
+		}
+		if (pos + 20 > buf.length) {
+			make_room(20);
+		}
+		if (x < 0) {
+			buf[pos++] = '-';
+			x = -x;
+		}
+		int digits = 1;
+		for (long y = x / 10; y > 0; y = y / 10) {
+			digits = digits + 1;
+		}
+		for (int i = pos + digits - 1; i >= pos; i--) {
+			buf[i] = (byte) ('0' + x % 10);
+			x = x / 10;
+		}
+		pos = pos + digits;
+		return this;
+	}
+
+	/**
+	 * Append the string encoded in UTF-8 (ASCII characters are copied directly,
+	 * the rest of the string is encoded from the first non-ASCII character). As
+	 * with a StringBuilder, a null string is appended as null.
+	 *
+	 * @param s : the string
+	 * @return : the writer
+	 * @throws IOException
+	 */
+	public RecordWriter append(String s) throws IOException {
+		if (s == null) {
+			s = "null";
+		}
+		int n = s.length();
+		for (int i = 0; i < n; i++) {
+			char c = s.charAt(i);
+			if (c >= 0x80) {
+				return write(s.substring(i).getBytes(StandardCharsets.UTF_8));
+			}
+			if (pos == buf.length) {
+				make_room(n - i);
+			}
+			buf[pos++] = (byte) c;
+		}
+		return this;
+	}
+
+	public RecordWriter write(byte[] b) throws IOException {
+		int off = 0;
+		while (off < b.length) {
+			if (pos == buf.length) {
+				make_room(b.length - off);
+			}
+			int len = Math.min(b.length - off, buf.length - pos);
+			System.arraycopy(b, off, buf, pos, len);
+			pos = pos + len;
+			off = off + len;
+		}
+		return this;
+	}
+
+	/**
+	 * Append the line u,v,w in CSV format.
+	 */
+	public RecordWriter csv_line(int u, int v, int w) throws IOException {
+		return append(u).append(',').append(v).append(',').append(w).append('\n');
+	}
+
+	/**
+	 * Append the line u,v,t,w in CSV format.
+	 */
+	public RecordWriter csv_line(int u, int v, int t, int w) throws IOException {
+		return append(u).append(',').append(v).append(',').append(t).append(',').append(w).append('\n');
+	}
+
+	/**
+	 * Return the appended bytes of a writer without a file.
+	 *
+	 * @return : the appended bytes
+	 */
+	public byte[] to_byte_array() {
+		return Arrays.copyOf(buf, pos);
+	}
+
+	/**
+	 * Write (and compress) the remaining bytes and close the file, waiting for the
+	 * background thread to complete the writes of the writer.
+	 *
+	 * @throws IOException : if a write has failed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel == null || buf == null) {
+			return;
+		}
+		IOException error = null;
+		try {
+			make_room(0);
+		} catch (IOException e) {
+			error = e;
+		}
+		if (gzip != null) {
+			try {
+				gzip.close();
+			} catch (IOException e) {
+				if (error == null) {
+					error = e;
+				}
+			}
+		}
+		release_buffer(buf);
+		buf = null;
+		try {
+			flusher.submit(() -> {
+				channel.close();
+				return null;
+			}).get();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (error == null) {
+				Throwable cause = e.getCause();
+				error = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+}
@@ -0,0 +1,316 @@
+package icalp50.utilities;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Number of occurrences of the words (unigrams) and of the pairs of
+ * consecutive words (bigrams) in the paper titles of each year. The titles are
+ * tokenized once as in the ngram_frequencies function of titleminerutils.jl:
+ * the title is converted to lower case, the punctuation characters , ; : . ! ?
+ * ( ) are deleted, the stop words, the articles, and the prepositions of the
+ * Languages.jl package for English (together with the word via) are deleted
+ * wherever they form a whole word (as the \b(...)\b patterns of TextAnalysis,
+ * so that non-uniform becomes -uniform), and the title is split at white
+ * spaces. The unigrams are singularized as in the singularized_word_dict
+ * function. The counts of any range of years are obtained by merging the
+ * counts of the years of the range.
+ *
+ * The bigrams differ by design from the ones of the bigram_evolution function,
+ * which concatenates all the titles of a period and therefore also counts one
+ * bigram formed by the last word of a title and the first word of the next
+ * one: these bigrams depend on the order of the titles and on the length of
+ * the period, so that they cannot be obtained by merging yearly counts, and
+ * they are not phrases of any title. Here the bigrams are formed inside each
+ * title, so that a period with t titles has up to t - 1 bigrams less than in
+ * bigram_evolution. The unigrams do not depend on the title boundaries.
+ *
+ * The save_title_ngram_index function of titleminerutils.jl writes the counts
+ * computed by the Julia code in the format of the save method, so that the
+ * two indices of a conference can be compared line by line.
+ */
+public class TitleNgramIndex {
+	static final Pattern PUNCTUATION = Pattern.compile("[,;:.!?()]+");
+	static final Pattern WORD = Pattern.compile("\\w+", Pattern.UNICODE_CHARACTER_CLASS);
+	static final Pattern WHITE_SPACE = Pattern.compile("\\s+");
+	/**
+	 * The English stop words of the Languages.jl package.
+	 */
+	static final String[] ENGLISH_STOP_WORDS = { "a", "about", "above", "across", "after", "again", "against", "all",
+			"almost", "alone", "along", "already", "also", "although", "always", "among", "an", "and", "another", "any",
+			"anybody", "anyone", "anything", "anywhere", "are", "area", "areas", "around", "as", "ask", "asked",
+			"asking", "asks", "at", "away", "b", "back", "backed", "backing", "backs", "be", "became", "because",
+			"become", "becomes", "been", "before", "began", "behind", "being", "beings", "best", "better", "between",
+			"big", "both", "but", "by", "c", "came", "can", "cannot", "case", "cases", "certain", "certainly", "clear",
+			"clearly", "come", "could", "d", "did", "differ", "different", "differently", "do", "does", "done", "down",
+			"downed", "downing", "downs", "during", "e", "each", "early", "either", "end", "ended", "ending", "ends",
+			"enough", "even", "evenly", "ever", "every", "everybody", "everyone", "everything", "everywhere", "f",
+			"face", "faces", "fact", "facts", "far", "felt", "few", "find", "finds", "first", "for", "four", "from",
+			"full", "fully", "further", "furthered", "furthering", "furthers", "g", "gave", "general", "generally",
+			"get", "gets", "give", "given", "gives", "go", "going", "good", "goods", "got", "great", "greater",
+			"greatest", "group", "grouped", "grouping", "groups", "h", "had", "has", "have", "having", "he", "her",
+			"here", "herself", "high", "higher", "highest", "him", "himself", "his", "how", "however", "i", "if",
+			"important", "in", "interest", "interested", "interesting", "interests", "into", "is", "it", "its",
+			"itself", "j", "just", "k", "keep", "keeps", "kind", "knew", "know", "known", "knows", "l", "large",
+			"largely", "last", "later", "latest", "least", "less", "let", "lets", "like", "likely", "long", "longer",
+			"longest", "m", "made", "make", "making", "man", "many", "may", "me", "member", "members", "men", "might",
+			"more", "most", "mostly", "mr", "mrs", "much", "must", "my", "myself", "n", "necessary", "need", "needed",
+			"needing", "needs", "never", "new", "newer", "newest", "next", "no", "nobody", "non", "noone", "not",
+			"nothing", "now", "nowhere", "number", "numbers", "o", "of", "off", "often", "old", "older", "oldest", "on",
+			"once", "one", "only", "open", "opened", "opening", "opens", "or", "order", "ordered", "ordering", "orders",
+			"other", "others", "our", "out", "over", "p", "part", "parted", "parting", "parts", "per", "perhaps",
+			"place", "places", "point", "pointed", "pointing", "points", "possible", "present", "presented",
+			"presenting", "presents", "problem", "problems", "put", "puts", "q", "quite", "r", "rather", "really",
+			"right", "room", "rooms", "s", "said", "same", "saw", "say", "says", "second", "seconds", "see", "seem",
+			"seemed", "seeming", "seems", "sees", "several", "shall", "she", "should", "show", "showed", "showing",
+			"shows", "side", "sides", "since", "small", "smaller", "smallest", "so", "some", "somebody", "someone",
+			"something", "somewhere", "state", "states", "still", "such", "sure", "t", "take", "taken", "than", "that",
+			"the", "their", "them", "then", "there", "therefore", "these", "they", "thing", "things", "think", "thinks",
+			"this", "those", "though", "thought", "thoughts", "three", "through", "thus", "to", "today", "together",
+			"too", "took", "toward", "turn", "turned", "turning", "turns", "two", "u", "under", "until", "up", "upon",
+			"us", "use", "used", "uses", "v", "very", "w", "want", "wanted", "wanting", "wants", "was", "way", "ways",
+			"we", "well", "wells", "went", "were", "what", "when", "where", "whether", "which", "while", "who", "whole",
+			"whose", "why", "will", "with", "within", "without", "work", "worked", "working", "works", "would", "x",
+			"y", "year", "years", "yet", "you", "young", "younger", "youngest", "your", "yours", "z" };
+	static final String[] ENGLISH_ARTICLES = { "a", "an", "the" };
+	/**
+	 * The English prepositions of the Languages.jl package.
+	 */
+	static final String[] ENGLISH_PREPOSITIONS = { "aboard", "about", "above", "absent", "across", "after", "against",
+			"along", "alongside", "amid", "amidst", "among", "amongst", "around", "as", "aside", "astride", "at",
+			"athwart", "atop", "barring", "before", "behind", "below", "beneath", "beside", "besides", "between",
+			"beyond", "but", "by", "circa", "concerning", "despite", "down", "during", "except", "excluding", "failing",
+			"following", "for", "from", "given", "in", "including", "inside", "into", "like", "mid", "minus", "near",
+			"next", "notwithstanding", "of", "off", "on", "onto", "opposite", "out", "outside", "over", "pace", "past",
+			"per", "plus", "pro", "qua", "regarding", "round", "sans", "save", "since", "than", "through", "throughout",
+			"till", "times", "to", "toward", "towards", "under", "underneath", "unlike", "until", "unto", "up", "upon",
+			"versus", "via", "vice", "with", "within", "without", "worth" };
+	static final Set<String> STOP_WORDS = new HashSet<>();
+	static {
+		STOP_WORDS.addAll(Arrays.asList(ENGLISH_STOP_WORDS));
+		STOP_WORDS.addAll(Arrays.asList(ENGLISH_ARTICLES));
+		STOP_WORDS.addAll(Arrays.asList(ENGLISH_PREPOSITIONS));
+		STOP_WORDS.add("via");
+	}
+
+	/**
+	 * Words which are their own singular: the uncountable words of the inflector
+	 * followed by the exceptions added in Miner.jl.
+	 */
+	static final Set<String> INVARIANT = new HashSet<>(Arrays.asList("equipment", "information", "rice", "money",
+			"species", "series", "fish", "sheep", "jeans", "police", "access", "algebra", "asynchronous", "calculus",
+			"process", "synchronous"));
+	/**
+	 * Singularization rules of the inflector, in the order in which they are
+	 * tried (the irregular words first): the first rule whose pattern matches the
+	 * end of the word is applied.
+	 */
+	static final Pattern[] SINGULAR_PATTERN = { Pattern.compile("(p)eople$"), Pattern.compile("(m)en$"),
+			Pattern.compile("(c)hildren$"), Pattern.compile("(s)exes$"), Pattern.compile("(m)oves$"),
+			Pattern.compile("(z)ombies$"), Pattern.compile("(database)s$"), Pattern.compile("(quiz)zes$"),
+			Pattern.compile("(matr)ices$"), Pattern.compile("(vert|ind)ices$"), Pattern.compile("^(ox)en"),
+			Pattern.compile("(alias|status)(es)?$"), Pattern.compile("(octop|vir)(us|i)$"),
+			Pattern.compile("^(a)x[ie]s$"), Pattern.compile("(cris|test)(is|es)$"), Pattern.compile("(shoe)s$"),
+			Pattern.compile("(o)es$"), Pattern.compile("(bus)(es)?$"), Pattern.compile("^(m|l)ice$"),
+			Pattern.compile("(x|ch|ss|sh)es$"), Pattern.compile("(m)ovies$"), Pattern.compile("(s)eries$"),
+			Pattern.compile("([^aeiouy]|qu)ies$"), Pattern.compile("([lr])ves$"), Pattern.compile("(tive)s$"),
+			Pattern.compile("(hive)s$"), Pattern.compile("([^f])ves$"), Pattern.compile("(^analy)(sis|ses)$"),
+			Pattern.compile("((a)naly|(b)a|(d)iagno|(p)arenthe|(p)rogno|(s)ynop|(t)he)(sis|ses)$"),
+			Pattern.compile("([ti])a$"), Pattern.compile("(n)ews$"), Pattern.compile("(ss)$"), Pattern.compile("s$") };
+	static final String[] SINGULAR_REPLACEMENT = { "$1erson", "$1an", "$1hild", "$1ex", "$1ove", "$1ombie", "$1",
+			"$1", "$1ix", "$1ex", "$1", "$1", "$1us", "$1xis", "$1is", "$1", "$1", "$1", "$1ouse", "$1", "$1ovie",
+			"$1eries", "$1y", "$1f", "$1", "$1", "$1fe", "$1sis", "$1sis", "$1um", "$1ews", "$1", "" };
+
+	/**
+	 * Counts of each n-gram in each year: counts[n - 1] is the map from year to
+	 * the counts of the n-grams of that year.
+	 */
+	List<TreeMap<Integer, Map<String, Integer>>> counts = new ArrayList<>();
+
+	public TitleNgramIndex() {
+		counts.add(new TreeMap<>());
+		counts.add(new TreeMap<>());
+	}
+
+	/**
+	 * Return the words of the title after the deletion of the stop words.
+	 *
+	 * @param title : the title
+	 * @return : the words of the title
+	 */
+	public static List<String> tokenize(String title) {
+		String text = PUNCTUATION.matcher(title.toLowerCase(Locale.ROOT)).replaceAll("");
+		StringBuilder kept = new StringBuilder(text.length());
+		Matcher m = WORD.matcher(text);
+		int end = 0;
+		while (m.find()) {
+			kept.append(text, end, m.start());
+			if (!STOP_WORDS.contains(m.group())) {
+				kept.append(text, m.start(), m.end());
+			}
+			end = m.end();
+		}
+		kept.append(text, end, text.length());
+		List<String> words = new ArrayList<>();
+		for (String word : WHITE_SPACE.split(kept)) {
+			if (word.length() > 0) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Return the singular form of the (lower case) word.
+	 *
+	 * @param word : the word
+	 * @return : the singular form of the word
+	 */
+	public static String singularize(String word) {
+		if (INVARIANT.contains(word)) {
+			return word;
+		}
+		for (int r = 0; r < SINGULAR_PATTERN.length; r++) {
+			Matcher m = SINGULAR_PATTERN[r].matcher(word);
+			if (m.find()) {
+				return m.replaceFirst(SINGULAR_REPLACEMENT[r]);
+			}
+		}
+		return word;
+	}
+
+	static void add(Map<String, Integer> count, String ngram, int c) {
+		count.merge(ngram, c, Integer::sum);
+	}
+
+	/**
+	 * Add the n-grams of a title to the counts of the year.
+	 *
+	 * @param year  : the year
+	 * @param title : the title
+	 */
+	public void add_title(int year, String title) {
+		List<String> words = tokenize(title);
+		Map<String, Integer> unigrams = counts.get(0).computeIfAbsent(year, y -> new HashMap<>());
+		Map<String, Integer> bigrams = counts.get(1).computeIfAbsent(year, y -> new HashMap<>());
+		for (int i = 0; i < words.size(); i++) {
+			add(unigrams, singularize(words.get(i)), 1);
+			if (i > 0) {
+				add(bigrams, words.get(i - 1) + " " + words.get(i), 1);
+			}
+		}
+	}
+
+	/**
+	 * Remove the counts of the years since the given year.
+	 *
+	 * @param since_year : the first year to be removed
+	 */
+	public void remove_since(int since_year) {
+		for (TreeMap<Integer, Map<String, Integer>> year_count : counts) {
+			year_count.tailMap(since_year, true).clear();
+		}
+	}
+
+	/**
+	 * Return the years with at least one title.
+	 *
+	 * @return : the years
+	 */
+	public Set<Integer> years() {
+		return counts.get(0).keySet();
+	}
+
+	/**
+	 * Return the counts of the n-grams in the titles of a range of years.
+	 *
+	 * @param n  : 1 for the unigrams and 2 for the bigrams
+	 * @param fy : first year of the range
+	 * @param ly : last year of the range
+	 * @return : the count of each n-gram
+	 */
+	public Map<String, Integer> counts(int n, int fy, int ly) {
+		Map<String, Integer> count = new HashMap<>();
+		if (ly >= fy) {
+			for (Map<String, Integer> year_count : counts.get(n - 1).subMap(fy, true, ly, true).values()) {
+				for (Map.Entry<String, Integer> entry : year_count.entrySet()) {
+					add(count, entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Add the counts of another index to the counts of this index.
+	 *
+	 * @param other : the other index
+	 */
+	public void merge(TitleNgramIndex other) {
+		for (int n = 0; n < counts.size(); n++) {
+			for (Map.Entry<Integer, Map<String, Integer>> entry : other.counts.get(n).entrySet()) {
+				Map<String, Integer> year_count = counts.get(n).computeIfAbsent(entry.getKey(), y -> new HashMap<>());
+				for (Map.Entry<String, Integer> ngram_count : entry.getValue().entrySet()) {
+					add(year_count, ngram_count.getKey(), ngram_count.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Save the index, one line y##year##n##n##g##ngram##c##count per n-gram and
+	 * year (the n-grams of a year are sorted).
+	 *
+	 * @param fno : file on which the index is saved
+	 * @throws IOException
+	 */
+	public void save(String fno) throws IOException {
+		try (RecordWriter ti_rw = new RecordWriter(fno)) {
+			for (int n = 0; n < counts.size(); n++) {
+				for (Map.Entry<Integer, Map<String, Integer>> entry : counts.get(n).entrySet()) {
+					for (Map.Entry<String, Integer> ngram_count : new TreeMap<>(entry.getValue()).entrySet()) {
+						ti_rw.append("y##").append(entry.getKey()).append("##n##").append(n + 1).append("##g##")
+								.append(ngram_count.getKey()).append("##c##").append(ngram_count.getValue())
+								.append('\n');
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read an index saved by the save method.
+	 *
+	 * @param fni : file containing the index
+	 * @return : the index
+	 * @throws IOException
+	 */
+	public static TitleNgramIndex read(String fni) throws IOException {
+		TitleNgramIndex index = new TitleNgramIndex();
+		BufferedReader ti_br = new BufferedReader(new FileReader(fni, StandardCharsets.UTF_8));
+		String line = ti_br.readLine();
+		while (line != null && line.length() > 0) {
+			String[] split_line = line.split("##");
+			int year = Integer.parseInt(split_line[1]);
+			int n = Integer.parseInt(split_line[3]);
+			index.counts.get(n - 1).computeIfAbsent(year, y -> new HashMap<>()).put(split_line[5],
+					Integer.parseInt(split_line[7]));
+			line = ti_br.readLine();
+		}
+		ti_br.close();
+		return index;
+	}
+}
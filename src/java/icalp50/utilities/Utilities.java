@@ -1,12 +1,17 @@
 package icalp50.utilities;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import org.dblp.mmdb.RecordDb;
 import org.dblp.mmdb.RecordDbInterface;
 import org.xml.sax.SAXException;
 
 public class Utilities {
+	public static String snapshot_file_name = "./data/dblp.snapshot";
+
 	public static RecordDbInterface read_xml_file() {
 		String dblpXmlFilename = "./data/dblp.xml";
 		String dblpDtdFilename = "./data/dblp.dtd";
@@ -27,4 +32,87 @@ public class Utilities {
 		System.out.format("and ready: %d publs, %d pers\n\n", dblp.numberOfPublications(), dblp.numberOfPersons());
 		return dblp;
 	}
+
+	/**
+	 * Memory-map the binary snapshot of the DBLP main memory DB. If the snapshot
+	 * does not exist or it is older than the DBLP XML file, the XML file is parsed
+	 * and the snapshot is (re)created.
+	 * 
+	 * @return : the snapshot of the DBLP database
+	 */
+	public static DblpSnapshot read_snapshot() {
+		String dblpXmlFilename = "./data/dblp.xml";
+		String dblpSnapshotFilename = snapshot_file_name;
+		File xml = new File(dblpXmlFilename);
+		File snapshot = new File(dblpSnapshotFilename);
+		try {
+			if (!snapshot.exists() || snapshot.lastModified() < xml.lastModified()) {
+				try (PhaseMetrics m = PhaseMetrics.start("xml", "")) {
+					RecordDbInterface dblp = read_xml_file();
+					System.out.println("saving the dblp snapshot ...");
+					DblpSnapshot.write(dblp, dblpSnapshotFilename);
+					m.add_publications(dblp.numberOfPublications());
+					m.add_file(dblpSnapshotFilename);
+				}
+			}
+			return map_snapshot(dblpSnapshotFilename);
+		} catch (final IOException ex) {
+			System.err.println("cannot read dblp snapshot: " + ex.getMessage());
+			System.exit(-1);
+		}
+		return null;
+	}
+
+	/**
+	 * Memory-map the snapshot of the DBLP database restricted to the publications
+	 * relevant to some conferences (see the FilteredSnapshotWriter class). If the
+	 * snapshot does not exist or it is older than the DBLP XML file, it is
+	 * (re)created by streaming the XML file, without building the DBLP main memory
+	 * DB. The snapshot then replaces the snapshot of the whole DBLP database for
+	 * the rest of the execution (for instance, for the cache of the author
+	 * profiles).
+	 * 
+	 * @param fn         : file of the restricted snapshot
+	 * @param toc_keys   : keys of the tables of contents of the conference
+	 *                   editions
+	 * @param url_filter : filter on the URLs (in upper case) of the conference
+	 *                   papers
+	 * @return : the restricted snapshot of the DBLP database
+	 */
+	public static DblpSnapshot read_filtered_snapshot(String fn, Set<String> toc_keys, Predicate<String> url_filter) {
+		String dblpXmlFilename = "./data/dblp.xml";
+		File xml = new File(dblpXmlFilename);
+		File snapshot = new File(fn);
+		try {
+			if (!snapshot.exists() || snapshot.lastModified() < xml.lastModified()) {
+				System.out.println("streaming the dblp XML file ...");
+				long start = System.currentTimeMillis();
+				try (PhaseMetrics m = PhaseMetrics.start("stream", "")) {
+					m.add_publications(FilteredSnapshotWriter.write(dblpXmlFilename, toc_keys, url_filter, fn));
+					m.add_file(fn);
+				}
+				long end = System.currentTimeMillis();
+				System.out.format("Filtered snapshot created in %d seconds\n", (end - start) / 1000);
+			}
+			snapshot_file_name = fn;
+			return map_snapshot(fn);
+		} catch (final IOException ex) {
+			System.err.println("cannot create dblp snapshot: " + ex.getMessage());
+			System.exit(-1);
+		}
+		return null;
+	}
+
+	static DblpSnapshot map_snapshot(String fn) throws IOException {
+		long start = System.currentTimeMillis();
+		DblpSnapshot dblp;
+		try (PhaseMetrics m = PhaseMetrics.start("snapshot", "")) {
+			dblp = DblpSnapshot.map(fn);
+			m.add_publications(dblp.num_publications());
+		}
+		long end = System.currentTimeMillis();
+		System.out.format("Snapshot mapped in %d milliseconds ", end - start);
+		System.out.format("and ready: %d publs, %d pers\n\n", dblp.num_publications(), dblp.num_persons());
+		return dblp;
+	}
 }
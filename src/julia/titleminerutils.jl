@@ -290,6 +290,35 @@ function bigram_evolution(area::String, step::Int64, k::Int64, fy::Int64, ly::In
     return bigram_number, bigram_evol
 end
 
+"""
+   `save_title_ngram_index(conf_name::String)`
+
+Save into the file `title_ngrams_jl.txt` in the directory `conf_name` included in the directory `conferences` the number of occurrences of each word (singularized) and of each bigram in the paper titles of each year, as computed by the `ngram_frequencies` and `singularized_word_dict` functions, in the format of the file `title_ngrams.txt` produced by the Java library (one line `y##year##n##n##g##ngram##c##count` per n-gram and year). The two files can be compared line by line, except for the bigrams formed by the last word of a title and the first word of the next one, which are not included in the file produced by the Java library.
+"""
+function save_title_ngram_index(conf_name::String)
+    first_year::Int64, last_year::Int64 = first_last_year(conf_name)
+    open(path_to_files * "conferences/" * conf_name * "/title_ngrams_jl.txt", "w") do f
+        for n in 1:2
+            for y in first_year:last_year
+                fn::String = path_to_files * "conferences/" * conf_name * "/papers/paper_titles_" * string(y) * ".txt"
+                if isfile(fn)
+                    titles::String = ""
+                    for l in readlines(fn)
+                        titles = titles * "\n" * l
+                    end
+                    d::Dict{String,Int64} = ngram_frequencies(StringDocument(titles), n)
+                    if (n == 1)
+                        d = singularized_word_dict(d)
+                    end
+                    for g in sort(collect(keys(d)))
+                        write(f, "y##" * string(y) * "##n##" * string(n) * "##g##" * g * "##c##" * string(d[g]) * "\n")
+                    end
+                end
+            end
+        end
+    end
+end
+
 function read_icalp_communities()
     fn::String = path_to_files * "icalp/communities.txt"
     author_membership::Dict{String,Tuple{Float64,Float64,Float64,Float64}} = Dict{String,Tuple{Float64,Float64,Float64,Float64}}()